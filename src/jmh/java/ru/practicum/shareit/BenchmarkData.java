@@ -0,0 +1,47 @@
+package ru.practicum.shareit;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+/**
+ * Генератор детерминированных данных для бенчмарков.
+ * Запуск: mvn -Pjmh -DskipTests verify -Djmh.args="ItemRepository -p size=1000 -prof gc"
+ */
+public final class BenchmarkData {
+
+    /**
+     * Токен, который есть в названии каждой вещи: поиск по нему возвращает все вещи.
+     */
+    public static final String COMMON_WORD = "инструмент";
+
+    private static final String[] WORDS = {
+        "дрель", "перфоратор", "шуруповёрт", "лобзик", "болгарка", "палатка", "велосипед", "лестница",
+        "пылесос", "генератор", "стремянка", "рюкзак", "спальник", "самокат", "удочка", "мангал"
+    };
+
+    private BenchmarkData() {
+    }
+
+    public static User user(long i) {
+        User user = new User();
+        user.setName("Пользователь " + i);
+        user.setEmail("user" + i + "@mail.ru");
+        return user;
+    }
+
+    public static Item item(long i, User owner) {
+        Item item = new Item();
+        item.setName(WORDS[(int) (i % WORDS.length)] + " " + COMMON_WORD + " " + uniqueWord(i));
+        item.setDescription("Почти новый " + WORDS[(int) ((i / WORDS.length) % WORDS.length)]);
+        item.setAvailable(i % 10 != 0);
+        item.setOwner(owner);
+        return item;
+    }
+
+    /**
+     * Слово, встречающееся в названии ровно одной вещи.
+     */
+    public static String uniqueWord(long i) {
+        return "модель" + Long.toString(i, 36);
+    }
+}
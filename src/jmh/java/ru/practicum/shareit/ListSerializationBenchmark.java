@@ -0,0 +1,96 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.common.JsonStreamWriter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemJsonWriter;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Запись списка вещей в ответ: прежний путь (dto, список, Jackson по dto) против потоковой записи сущностей.
+ * Выделение памяти на запрос - метрика gc.alloc.rate.norm профайлера gc:
+ * mvn -Pjmh -DskipTests verify -Djmh.args="ListSerializationBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final OutputStream out = new DiscardingOutputStream();
+    private ObjectMapper objectMapper;
+    private JsonStreamWriter jsonStreamWriter;
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jsonStreamWriter = new JsonStreamWriter(objectMapper, new SimpleMeterRegistry());
+        User owner = BenchmarkData.user(1);
+        owner.setId(1L);
+        items = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            Item item = BenchmarkData.item(i, owner);
+            item.setId(i);
+            items.add(item);
+        }
+    }
+
+    /**
+     * Как MappingJackson2HttpMessageConverter: генератор на поток ответа и ObjectWriter по типу значения.
+     */
+    @Benchmark
+    public void dtoList() throws IOException {
+        List<ItemDto> dtos = items.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            objectMapper.writer().writeValue(generator, dtos);
+        }
+    }
+
+    @Benchmark
+    public void entityStream() throws IOException {
+        jsonStreamWriter.array(items.stream(), ItemJsonWriter::write).getBody().writeTo(out);
+    }
+
+    /**
+     * Поток ответа, который ничего не хранит; в отличие от OutputStream.nullOutputStream() переживает close().
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
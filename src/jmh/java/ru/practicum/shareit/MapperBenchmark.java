@@ -0,0 +1,74 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования ItemMapper и UserMapper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private User user;
+    private Item item;
+    private UserDto userDto;
+    private ItemDto itemDto;
+    private ItemDto itemPatch;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkData.user(1);
+        user.setId(1L);
+        item = BenchmarkData.item(1, user);
+        item.setId(1L);
+        userDto = UserMapper.toUserDto(user);
+        itemDto = ItemMapper.toItemDto(item);
+        itemPatch = new ItemDto(null, null, "Новое описание", false, null);
+    }
+
+    @Benchmark
+    public ItemDto itemToDto() {
+        return ItemMapper.toItemDto(item);
+    }
+
+    @Benchmark
+    public Item dtoToItem() {
+        return ItemMapper.toItem(itemDto);
+    }
+
+    @Benchmark
+    public Item patchItem() {
+        return ItemMapper.toUpdatedItem(item, itemPatch);
+    }
+
+    @Benchmark
+    public UserDto userToDto() {
+        return UserMapper.toUserDto(user);
+    }
+
+    @Benchmark
+    public User dtoToUser() {
+        return UserMapper.toUser(userDto);
+    }
+}
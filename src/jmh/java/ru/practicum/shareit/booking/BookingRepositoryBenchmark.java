@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Первая страница бронирований автора с длинной историей для каждого состояния.
+ * Бронирования идут подряд по часу, «сейчас» — середина истории.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookingRepositoryBenchmark {
+
+    private static final Pagination PAGE = Pagination.of(null, 0, 20);
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    private int history;
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    private BookingState state;
+
+    private InMemoryBookingRepository repository;
+    private LocalDateTime now;
+    private Long bookerId;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        repository = new InMemoryBookingRepository();
+        User owner = BenchmarkData.user(1);
+        owner.setId(1L);
+        User booker = BenchmarkData.user(2);
+        booker.setId(2L);
+        bookerId = booker.getId();
+        Item item = BenchmarkData.item(1, owner);
+        item.setId(1L);
+
+        Booking.BookingStatus[] statuses = Booking.BookingStatus.values();
+        for (int i = 0; i < history; i++) {
+            Booking booking = new Booking();
+            booking.setStart(ORIGIN.plusHours(i));
+            booking.setEnd(ORIGIN.plusHours(i + 1).minusMinutes(1));
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStatus(statuses[i % statuses.length]);
+            repository.save(booking);
+        }
+        now = ORIGIN.plusHours(history / 2).plusMinutes(30);
+    }
+
+    @Benchmark
+    public List<Booking> findByBookerId() {
+        return repository.findByBookerId(bookerId, state, now, PAGE).toList();
+    }
+
+    @Benchmark
+    public List<Booking> findByOwnerId() {
+        return repository.findByOwnerId(1L, state, now, PAGE).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилища вещей в памяти: вещи владельца и поиск по тексту на разных объёмах
+ * для раскладки объектами (InMemoryItemRepository) и колонками (ColumnarItemRepository).
+ * У каждого владельца ITEMS_PER_OWNER вещей; страница — PAGE_SIZE элементов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemRepositoryBenchmark {
+
+    private static final int ITEMS_PER_OWNER = 10;
+    private static final Pagination PAGE = Pagination.of(null, 0, 20);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"objects", "columnar"})
+    private String storage;
+
+    private ItemRepository repository;
+    private int owners;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        repository = storage.equals("columnar") ? new ColumnarItemRepository() : new InMemoryItemRepository();
+        owners = Math.max(1, size / ITEMS_PER_OWNER);
+        User[] users = new User[owners];
+        for (int i = 0; i < owners; i++) {
+            users[i] = BenchmarkData.user(i + 1);
+            users[i].setId(i + 1L);
+        }
+        for (long i = 1; i <= size; i++) {
+            repository.save(BenchmarkData.item(i, users[(int) (i % owners)]));
+        }
+    }
+
+    @Benchmark
+    public List<Item> findByOwnerId() {
+        long ownerId = ThreadLocalRandom.current().nextLong(1, owners + 1);
+        return repository.findByOwnerId(ownerId, PAGE).toList();
+    }
+
+    @Benchmark
+    public List<Item> searchCommonWordFirstPage() {
+        return repository.searchByText(BenchmarkData.COMMON_WORD, PAGE).items().toList();
+    }
+
+    /**
+     * Те же совпадения, что у searchCommonWordFirstPage, но 20 самых релевантных через ограниченную кучу.
+     */
+    @Benchmark
+    public List<Item> searchCommonWordTop() {
+        return repository.searchTopByText(BenchmarkData.COMMON_WORD, PAGE.size()).items().toList();
+    }
+
+    @Benchmark
+    public List<Item> searchRareWord() {
+        long id = ThreadLocalRandom.current().nextLong(1, size + 1);
+        return repository.searchByText(BenchmarkData.uniqueWord(id), PAGE).items().toList();
+    }
+
+    @Benchmark
+    public List<Item> searchShortQuery() {
+        return repository.searchByText("др", PAGE).items().toList();
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.booking.InMemoryBookingRepository;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.feed.ItemChangeFeed;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.UserServiceImpl;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полные вызовы ItemServiceImpl поверх хранилищ в памяти: проверки, маппинг и инвалидация кэша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemServiceBenchmark {
+
+    private static final int ITEMS_PER_OWNER = 10;
+    private static final Pagination PAGE = Pagination.of(null, 0, 20);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private ItemServiceImpl itemService;
+    private User[] owners;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonResponseCache<Long> itemCache = new JsonResponseCache<>("items", objectMapper, 10_000, Duration.ofMinutes(5));
+        JsonResponseCache<Long> userCache = new JsonResponseCache<>("users", objectMapper, 10_000, Duration.ofMinutes(5));
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        InMemoryItemRepository itemRepository = new InMemoryItemRepository();
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ItemChangeFeed itemChangeFeed = new ItemChangeFeed(256, Duration.ofMinutes(30), meterRegistry);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, itemRepository, userCache, itemCache,
+                itemChangeFeed, validator);
+        itemService = new ItemServiceImpl(itemRepository, new InMemoryItemRequestRepository(),
+                new InMemoryBookingRepository(), userService, itemCache, itemChangeFeed, meterRegistry, validator);
+
+        owners = new User[Math.max(1, size / ITEMS_PER_OWNER)];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = userRepository.save(BenchmarkData.user(i + 1));
+        }
+        for (long i = 1; i <= size; i++) {
+            itemRepository.save(BenchmarkData.item(i, owners[(int) (i % owners.length)]));
+        }
+    }
+
+    @Benchmark
+    public ItemDto getItemById() {
+        return itemService.getItemById(randomItemId());
+    }
+
+    @Benchmark
+    public Collection<ItemDto> getUserItems() {
+        return itemService.getUserItems(randomOwner().getId(), PAGE);
+    }
+
+    @Benchmark
+    public Collection<ItemDto> searchItems() {
+        return itemService.searchItems(BenchmarkData.uniqueWord(randomItemId()), PAGE);
+    }
+
+    @Benchmark
+    public ItemDto updateItem() {
+        long itemId = randomItemId();
+        Long ownerId = owners[(int) (itemId % owners.length)].getId();
+        return itemService.updateItem(ownerId, itemId, new ItemDto(null, null, "Описание " + itemId, true, null),
+                null);
+    }
+
+    private long randomItemId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1);
+    }
+
+    private User randomOwner() {
+        return owners[ThreadLocalRandom.current().nextInt(owners.length)];
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по шардированному индексу в зависимости от числа шардов (и потоков пула) без бюджета времени.
+ * Ускорение ограничено числом ядер машины:
+ * mvn -Pjmh -DskipTests verify -Djmh.args="ShardedSearch -p shards=1,2,4,8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShardedSearchBenchmark {
+
+    private static final int OWNERS = 1000;
+    private static final Pagination PAGE = Pagination.of(null, 0, 20);
+
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    @Param({"200000"})
+    private int size;
+
+    private ItemSearchExecutor executor;
+    private InMemoryItemRepository repository;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        executor = new ItemSearchExecutor(shards, Duration.ZERO);
+        repository = new InMemoryItemRepository(Journal.DISABLED, executor, IdGenerator.sequential());
+        User[] users = new User[OWNERS];
+        for (int i = 0; i < OWNERS; i++) {
+            users[i] = BenchmarkData.user(i + 1);
+            users[i].setId(i + 1L);
+        }
+        for (long i = 1; i <= size; i++) {
+            repository.save(BenchmarkData.item(i, users[(int) (i % OWNERS)]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Короткий запрос просматривает все тексты каждого шарда.
+     */
+    @Benchmark
+    public List<Item> shortQueryScan() {
+        return repository.searchByText("др", PAGE).items().toList();
+    }
+
+    /**
+     * Слово из каждой вещи: пересечение триграмм по всему каталогу.
+     */
+    @Benchmark
+    public List<Item> commonWord() {
+        return repository.searchByText(BenchmarkData.COMMON_WORD, PAGE).items().toList();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.journal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.booking.InMemoryBookingRepository;
+import ru.practicum.shareit.item.InMemoryItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время старта: восстановление журнала из records записей и снимка того же состояния.
+ * Каждая вещь записана и затем обновлена UPDATES раз, поэтому снимок короче журнала; пользователи — десятая часть.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class JournalRecoveryBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final int UPDATES = 3;
+
+    @Param({"100000", "1000000"})
+    private int records;
+
+    @Param({"log", "snapshot"})
+    private String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        directory = Files.createTempDirectory("wal-recovery");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory);
+        InMemoryUserRepository users = new InMemoryUserRepository(writeAheadLog);
+        InMemoryItemRepository items = new InMemoryItemRepository(writeAheadLog);
+        JournalManager manager = new JournalManager(writeAheadLog, users, items, new InMemoryItemRequestRepository(),
+                new InMemoryBookingRepository(), Long.MAX_VALUE, Duration.ofDays(1));
+        writeAheadLog.start(manager.recover());
+        int entities = records / (UPDATES + 1);
+        int userCount = entities / 10;
+        List<User> owners = new ArrayList<>();
+        for (long i = 1; i <= userCount; i += BATCH) {
+            List<User> batch = new ArrayList<>(BATCH);
+            for (long j = i; j < i + BATCH && j <= userCount; j++) {
+                batch.add(BenchmarkData.user(j));
+            }
+            owners.addAll(users.saveAll(batch));
+        }
+        List<Item> saved = new ArrayList<>();
+        for (long i = 1; i <= entities - userCount; i += BATCH) {
+            List<Item> batch = new ArrayList<>(BATCH);
+            for (long j = i; j < i + BATCH && j <= entities - userCount; j++) {
+                batch.add(BenchmarkData.item(j, owners.get((int) (j % owners.size()))));
+            }
+            saved.addAll(items.saveAll(batch));
+        }
+        for (int round = 0; round < UPDATES; round++) {
+            for (int i = 0; i < saved.size(); i += BATCH) {
+                List<Item> batch = saved.subList(i, Math.min(i + BATCH, saved.size()));
+                batch.replaceAll(item -> ItemMapper.toUpdatedItem(item,
+                        new ItemDto(null, null, null, !item.isAvailable(), null)));
+                items.saveAll(batch);
+            }
+        }
+        if ("snapshot".equals(source)) {
+            manager.snapshot();
+        }
+        writeAheadLog.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        JournalBenchmarkFiles.delete(directory);
+    }
+
+    @Benchmark
+    public long recover() throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(directory);
+        InMemoryUserRepository users = new InMemoryUserRepository(writeAheadLog);
+        InMemoryItemRepository items = new InMemoryItemRepository(writeAheadLog);
+        new JournalManager(writeAheadLog, users, items, new InMemoryItemRequestRepository(),
+                new InMemoryBookingRepository(), Long.MAX_VALUE, Duration.ofDays(1)).recover();
+        return users.count() + items.count();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.journal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.BenchmarkData;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Цена журнала на запись: создание пользователей без журнала и с журналом при разном числе писателей.
+ * Запуск: mvn -Pjmh -DskipTests verify -Djmh.args="JournalWriteBenchmark -t 1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JournalWriteBenchmark {
+
+    @Param({"false", "true"})
+    private boolean journal;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Path directory;
+    private WriteAheadLog writeAheadLog;
+    private InMemoryUserRepository repository;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        if (journal) {
+            directory = Files.createTempDirectory("wal-bench");
+            writeAheadLog = new WriteAheadLog(directory);
+            writeAheadLog.start(1);
+            repository = new InMemoryUserRepository(writeAheadLog);
+        } else {
+            repository = new InMemoryUserRepository();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+            JournalBenchmarkFiles.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public User saveUser() {
+        return repository.save(BenchmarkData.user(sequence.incrementAndGet()));
+    }
+}
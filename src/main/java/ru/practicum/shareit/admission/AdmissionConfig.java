@@ -0,0 +1,48 @@
+package ru.practicum.shareit.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+
+/**
+ * Ограничение запросов к /users и /items; включается свойством shareit.admission.enabled=true.
+ * Сумма лимитов поиска, чтения и записи по умолчанию меньше пула потоков Tomcat (200); подписки на ленту
+ * асинхронны и потоков не занимают.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    /**
+     * Сразу после фильтра наблюдения за HTTP-запросами, чтобы отказы попадали в http.server.requests.
+     */
+    private static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${shareit.admission.requests-per-second:20}") double requestsPerSecond,
+            @Value("${shareit.admission.burst:40}") int burst,
+            @Value("${shareit.admission.concurrency.search:32}") int searchConcurrency,
+            @Value("${shareit.admission.concurrency.feed:10000}") int feedConcurrency,
+            @Value("${shareit.admission.concurrency.read:64}") int readConcurrency,
+            @Value("${shareit.admission.concurrency.write:32}") int writeConcurrency,
+            @Value("${shareit.admission.max-tracked-clients:100000}") int maxTrackedClients) {
+        Map<EndpointClass, Integer> concurrency = Map.of(EndpointClass.SEARCH, searchConcurrency,
+                EndpointClass.FEED, feedConcurrency, EndpointClass.READ, readConcurrency,
+                EndpointClass.WRITE, writeConcurrency);
+        AdmissionFilter filter = new AdmissionFilter(requestsPerSecond, burst, concurrency, maxTrackedClients,
+                objectMapper, meterRegistry, System::nanoTime);
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/users", "/users/*", "/items", "/items/*");
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Допускает запрос к контроллерам, только если у клиента есть токен в его корзине и у класса эндпоинта
+ * есть свободное место. Иначе сразу отвечает 429 с Retry-After, не ставя запрос в очередь,
+ * так что один клиент не может занять все рабочие потоки.
+ * Клиент определяется заголовком X-Sharer-User-Id, который выставляет шлюз, а без него - адресом.
+ */
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final long OVERLOAD_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, Semaphore> permits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rateRejections = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> overloadRejections = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> untrackedRejections = new EnumMap<>(EndpointClass.class);
+    private final AtomicLong nextEvictionAt = new AtomicLong(Long.MIN_VALUE);
+    private final long intervalNanos;
+    private final int burst;
+    private final int maxTrackedClients;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+
+    /**
+     * @param requestsPerSecond средняя частота запросов одного клиента
+     * @param burst             сколько запросов клиент может сделать подряд
+     * @param concurrency       лимит одновременных запросов для каждого класса эндпоинтов
+     * @param maxTrackedClients сколько клиентов отслеживается одновременно; новым клиентам сверх лимита - 429
+     */
+    public AdmissionFilter(double requestsPerSecond, int burst, Map<EndpointClass, Integer> concurrency,
+                           int maxTrackedClients, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           LongSupplier clock) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.burst = burst;
+        this.maxTrackedClients = maxTrackedClients;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        for (EndpointClass endpoint : EndpointClass.values()) {
+            permits.put(endpoint, new Semaphore(concurrency.get(endpoint)));
+            rateRejections.put(endpoint, rejectionCounter(meterRegistry, endpoint, "rate"));
+            overloadRejections.put(endpoint, rejectionCounter(meterRegistry, endpoint, "concurrency"));
+            untrackedRejections.put(endpoint, rejectionCounter(meterRegistry, endpoint, "clients"));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpoint = EndpointClass.of(request);
+        long now = clock.getAsLong();
+        TokenBucket bucket = bucketFor(clientKey(request), now);
+        if (bucket == null) {
+            untrackedRejections.get(endpoint).increment();
+            reject(response, EVICTION_INTERVAL_NANOS, "Слишком много клиентов, повторите запрос позже");
+            return;
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            rateRejections.get(endpoint).increment();
+            reject(response, waitNanos, "Превышен лимит запросов, повторите позже");
+            return;
+        }
+        Semaphore semaphore = permits.get(endpoint);
+        if (!semaphore.tryAcquire()) {
+            overloadRejections.get(endpoint).increment();
+            reject(response, OVERLOAD_RETRY_NANOS, "Сервер перегружен, повторите запрос позже");
+            return;
+        }
+        Permit permit = new Permit(semaphore);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Корзина клиента или null, если и после удаления простаивающих корзин клиентов не меньше
+     * maxTrackedClients. Новому клиенту тогда отказывают, а уже известные клиенты работают как обычно:
+     * поток новых ключей не ест их токены, а его корзины простаивают и удаляются при следующей очистке.
+     */
+    private TokenBucket bucketFor(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        evictIdleBuckets(now);
+        if (buckets.size() >= maxTrackedClients) {
+            return null;
+        }
+        return buckets.computeIfAbsent(client, key -> new TokenBucket(intervalNanos, burst));
+    }
+
+    /**
+     * Не чаще раза в секунду удаляет полные корзины: клиент с полной корзиной давно не обращался,
+     * а новая корзина для него ничем не отличается от удалённой.
+     */
+    private void evictIdleBuckets(long now) {
+        long evictionAt = nextEvictionAt.get();
+        if (now < evictionAt || !nextEvictionAt.compareAndSet(evictionAt, now + EVICTION_INTERVAL_NANOS)) {
+            return;
+        }
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        log.debug("Удалено {} простаивающих корзин из {}", before - buckets.size(), before);
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                        / TimeUnit.SECONDS.toNanos(1))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        String userId = request.getHeader(USER_HEADER);
+        return userId != null ? userId : "addr:" + request.getRemoteAddr();
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, EndpointClass endpoint, String reason) {
+        return Counter.builder("shareit.admission.rejected")
+                .description("Запросы, отклонённые с 429")
+                .tag("endpoint", endpoint.name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Место в классе эндпоинтов. Для асинхронных ответов (потоковая запись) возвращается,
+     * когда ответ дописан, а не когда контроллер вернул управление.
+     */
+    private static final class Permit implements AsyncListener {
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Класс эндпоинта с собственным лимитом одновременных запросов: поиск не может занять потоки чтения и записи.
+ * Подписка на ленту изменений держит своё место всё время, пока открыта, поэтому её лимит - число подписок,
+ * и она не занимает места обычных чтений.
+ */
+public enum EndpointClass {
+    SEARCH,
+    FEED,
+    READ,
+    WRITE;
+
+    static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/items/search")) {
+            return SEARCH;
+        }
+        if (path.startsWith("/items/feed")) {
+            return FEED;
+        }
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()) ? READ : WRITE;
+    }
+}
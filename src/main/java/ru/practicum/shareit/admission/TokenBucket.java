@@ -0,0 +1,44 @@
+package ru.practicum.shareit.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Корзина токенов по алгоритму GCRA: всё состояние - теоретическое время прихода следующего запроса,
+ * которое меняется одним CAS без блокировок. Корзина пропускает burst запросов подряд и дальше
+ * по одному запросу в intervalNanos.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    TokenBucket(long intervalNanos, int burst) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = intervalNanos * (burst - 1);
+    }
+
+    /**
+     * @return 0, если запрос пропущен, иначе через сколько наносекунд появится токен
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = Math.max(arrival, now);
+            long waitNanos = start - now - toleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Полная корзина ничем не отличается от новой, поэтому её можно удалить.
+     */
+    boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.booking;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Дни, занятые подтверждёнными бронированиями одной вещи, битовой картой: бит i - день firstDay + i
+ * (номер дня от 1970-01-01). День занят, если бронирование задевает хотя бы его часть.
+ * Карта покрывает окно фиксированного размера DAYS (около 11 лет) от первого подтверждённого бронирования,
+ * поэтому её размер не зависит от дат в запросах; о днях вне окна карта не знает, их проверяет
+ * {@link ItemSchedule} по самим бронированиям. Слова меняются на месте под блокировкой вещи,
+ * а читаются без неё; диапазон дней проверяется словами по 64 дня.
+ */
+final class BookedDays {
+    static final int WORDS = 64;
+    static final int DAYS = WORDS * Long.SIZE;
+
+    private final long firstDay;
+    private final AtomicLongArray words = new AtomicLongArray(WORDS);
+
+    /**
+     * Окно начинается за одно слово до anchorDay, чтобы вместить и чуть более ранние бронирования.
+     */
+    BookedDays(long anchorDay) {
+        this.firstDay = Math.floorDiv(anchorDay, Long.SIZE) * Long.SIZE - Long.SIZE;
+    }
+
+    /**
+     * Лежит ли диапазон дней целиком в окне карты.
+     */
+    boolean covers(long fromDay, long toDay) {
+        return fromDay >= firstDay && toDay - firstDay < DAYS;
+    }
+
+    /**
+     * Помечает дни с fromDay по toDay включительно; дни вне окна пропускаются.
+     */
+    void set(long fromDay, long toDay) {
+        update(fromDay, toDay, true);
+    }
+
+    /**
+     * Снимает отметку с дней с fromDay по toDay включительно; дни вне окна пропускаются.
+     */
+    void clear(long fromDay, long toDay) {
+        update(fromDay, toDay, false);
+    }
+
+    /**
+     * Проверяет, занят ли хотя бы один день с fromDay по toDay включительно. Дни вне окна считаются свободными.
+     */
+    boolean anyBooked(long fromDay, long toDay) {
+        long from = Math.max(fromDay, firstDay) - firstDay;
+        long to = Math.min(toDay - firstDay, DAYS - 1);
+        if (from > to) {
+            return false;
+        }
+        int fromWord = (int) (from >>> 6);
+        int toWord = (int) (to >>> 6);
+        for (int i = fromWord; i <= toWord; i++) {
+            if ((words.get(i) & mask(i, fromWord, toWord, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(long fromDay, long toDay, boolean booked) {
+        long from = Math.max(fromDay, firstDay) - firstDay;
+        long to = Math.min(toDay - firstDay, DAYS - 1);
+        if (from > to) {
+            return;
+        }
+        int fromWord = (int) (from >>> 6);
+        int toWord = (int) (to >>> 6);
+        for (int i = fromWord; i <= toWord; i++) {
+            long mask = mask(i, fromWord, toWord, from, to);
+            words.set(i, booked ? words.get(i) | mask : words.get(i) & ~mask);
+        }
+    }
+
+    /**
+     * Биты слова i, попадающие в диапазон [from, to]; средние слова диапазона берутся целиком.
+     */
+    private static long mask(int i, int fromWord, int toWord, long from, long to) {
+        long mask = -1L;
+        if (i == fromWord) {
+            mask &= -1L << from;
+        }
+        if (i == toWord) {
+            mask &= -1L >>> (Long.SIZE - 1 - (to & (Long.SIZE - 1)));
+        }
+        return mask;
+    }
+}
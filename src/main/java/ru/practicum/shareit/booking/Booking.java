@@ -1,19 +1,21 @@
 package ru.practicum.shareit.booking;
 
 import lombok.Data;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
- * TODO Sprint add-bookings.
+ * Sprint add-bookings.
  */
 @Data
 public class Booking {
-    private long id;
-    private LocalDate start;
-    private LocalDate end;
-    private long item;
-    private long booker;
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Item item;
+    private User booker;
     private BookingStatus status;
 
     public enum BookingStatus {
@@ -1,12 +1,74 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.common.Pagination;
+
+import java.util.List;
 
 /**
- * TODO Sprint add-bookings.
+ * Sprint add-bookings.
  */
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    private final BookingService bookingService;
+
+    @Autowired
+    public BookingController(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    @PostMapping
+    public ResponseEntity<BookingDto> createBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                    @Valid
+                                                    @RequestBody NewBookingDto bookingDto) {
+        BookingDto createdBooking = bookingService.createBooking(userId, bookingDto);
+        return new ResponseEntity<>(createdBooking, HttpStatus.OK);
+    }
+
+    @PatchMapping("/{bookingId}")
+    public ResponseEntity<BookingDto> approveBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                     @PathVariable Long bookingId,
+                                                     @RequestParam boolean approved) {
+        BookingDto bookingDto = bookingService.approveBooking(userId, bookingId, approved);
+        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+    }
+
+    @PatchMapping("/{bookingId}/cancel")
+    public ResponseEntity<BookingDto> cancelBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                    @PathVariable Long bookingId) {
+        BookingDto bookingDto = bookingService.cancelBooking(userId, bookingId);
+        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+    }
+
+    @GetMapping
+    public List<BookingDto> getBookerBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                              @RequestParam(defaultValue = "ALL") String state,
+                                              @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                              @Positive @RequestParam(required = false) Integer size) {
+        return bookingService.getBookerBookings(userId, BookingState.from(state), Pagination.of(null, from, size));
+    }
+
+    @GetMapping("/owner")
+    public List<BookingDto> getOwnerBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                             @RequestParam(defaultValue = "ALL") String state,
+                                             @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                             @Positive @RequestParam(required = false) Integer size) {
+        return bookingService.getOwnerBookings(userId, BookingState.from(state), Pagination.of(null, from, size));
+    }
+
+    @GetMapping("/{bookingId}")
+    public ResponseEntity<BookingDto> getBookingById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                     @PathVariable Long bookingId) {
+        BookingDto bookingDto = bookingService.getBookingById(userId, bookingId);
+        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.common.Pagination;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface BookingRepository {
+
+    /**
+     * Сохраняет бронирование. Для ожидающих и подтверждённых бронирований атомарно (под блокировкой вещи)
+     * проверяет, что интервал не пересекается с уже подтверждёнными бронированиями этой вещи.
+     *
+     * @throws ru.practicum.shareit.exception.ConflictException если интервал уже занят
+     */
+    Booking save(Booking booking);
+
+    /**
+     * Переводит бронирование в статус status, только если его текущий статус входит в expected.
+     * Статус перечитывается и сверяется под той же блокировкой вещи, под которой проверяется пересечение,
+     * поэтому параллельные подтверждение и отмена не перезаписывают друг друга.
+     *
+     * @return бронирование с новым статусом; пусто, если бронирования нет или его статус уже другой
+     * @throws ru.practicum.shareit.exception.ConflictException если подтверждаемый интервал уже занят
+     */
+    Optional<Booking> updateStatus(Long id, Set<Booking.BookingStatus> expected, Booking.BookingStatus status);
+
+    Optional<Booking> findById(Long id);
+
+    /**
+     * Проверяет, занята ли вещь подтверждённым бронированием хотя бы в один из дней с from по to включительно.
+     */
+    boolean isBooked(Long itemId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает бронирования автора в состоянии state на момент now, от новых к старым.
+     */
+    Stream<Booking> findByBookerId(Long bookerId, BookingState state, LocalDateTime now, Pagination pagination);
+
+    /**
+     * Возвращает бронирования вещей владельца в состоянии state на момент now, от новых к старым.
+     */
+    Stream<Booking> findByOwnerId(Long ownerId, BookingState state, LocalDateTime now, Pagination pagination);
+}
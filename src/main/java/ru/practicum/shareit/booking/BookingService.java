@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.common.Pagination;
+
+import java.util.List;
+
+public interface BookingService {
+
+    BookingDto createBooking(Long userId, NewBookingDto bookingDto);
+
+    BookingDto approveBooking(Long userId, Long bookingId, boolean approved);
+
+    BookingDto cancelBooking(Long userId, Long bookingId);
+
+    BookingDto getBookingById(Long userId, Long bookingId);
+
+    List<BookingDto> getBookerBookings(Long userId, BookingState state, Pagination pagination);
+
+    List<BookingDto> getOwnerBookings(Long userId, BookingState state, Pagination pagination);
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.AccessDeniedException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@Timed("shareit.service")
+@Slf4j
+public class BookingServiceImpl implements BookingService {
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserService userService;
+
+    @Autowired
+    public BookingServiceImpl(BookingRepository bookingRepository, ItemRepository itemRepository,
+                              UserService userService) {
+        this.bookingRepository = bookingRepository;
+        this.itemRepository = itemRepository;
+        this.userService = userService;
+    }
+
+    @Override
+    public BookingDto createBooking(Long userId, NewBookingDto bookingDto) {
+        log.debug("Бронирование вещи пользователем с id: {}, бронирование {}", userId, bookingDto);
+        User booker = getUser(userId);
+        Item item = itemRepository.findById(bookingDto.getItemId())
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+        if (item.getOwner().getId().equals(userId)) {
+            throw new NotFoundException("Владелец не может забронировать свою вещь");
+        }
+        if (!item.isAvailable()) {
+            throw new ValidationException("Вещь недоступна для бронирования");
+        }
+        if (!bookingDto.getEnd().isAfter(bookingDto.getStart())) {
+            throw new ValidationException("Дата окончания бронирования должна быть позже даты начала");
+        }
+        Booking booking = bookingRepository.save(BookingMapper.toBooking(bookingDto, item, booker));
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    @Override
+    public BookingDto approveBooking(Long userId, Long bookingId, boolean approved) {
+        log.debug("Подтверждение бронирования с id: {} пользователем с id: {}: {}", bookingId, userId, approved);
+        Booking booking = getBooking(bookingId);
+        if (!booking.getItem().getOwner().getId().equals(userId)) {
+            throw new AccessDeniedException("Подтвердить бронирование может только владелец вещи");
+        }
+        Booking.BookingStatus status = approved ? Booking.BookingStatus.APPROVED : Booking.BookingStatus.REJECTED;
+        Booking updated = bookingRepository.updateStatus(bookingId, EnumSet.of(Booking.BookingStatus.WAITING), status)
+                .orElseThrow(() -> new ValidationException("Бронирование уже рассмотрено"));
+        return BookingMapper.toBookingDto(updated);
+    }
+
+    @Override
+    public BookingDto cancelBooking(Long userId, Long bookingId) {
+        log.debug("Отмена бронирования с id: {} пользователем с id: {}", bookingId, userId);
+        Booking booking = getBooking(bookingId);
+        if (!booking.getBooker().getId().equals(userId)) {
+            throw new AccessDeniedException("Отменить бронирование может только автор бронирования");
+        }
+        Booking canceled = bookingRepository.updateStatus(bookingId,
+                        EnumSet.of(Booking.BookingStatus.WAITING, Booking.BookingStatus.APPROVED),
+                        Booking.BookingStatus.CANCELED)
+                .orElseThrow(() -> new ValidationException("Бронирование уже отклонено или отменено"));
+        return BookingMapper.toBookingDto(canceled);
+    }
+
+    @Override
+    public BookingDto getBookingById(Long userId, Long bookingId) {
+        log.debug("Поиск бронирования с id: {} пользователем с id: {}", bookingId, userId);
+        Booking booking = getBooking(bookingId);
+        if (!booking.getBooker().getId().equals(userId) && !booking.getItem().getOwner().getId().equals(userId)) {
+            throw new NotFoundException("Бронирование не найдено");
+        }
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    @Override
+    public List<BookingDto> getBookerBookings(Long userId, BookingState state, Pagination pagination) {
+        log.debug("Поиск бронирований пользователя с id: {} в состоянии {}, {}", userId, state, pagination);
+        getUser(userId);
+        try (Stream<Booking> bookings = bookingRepository.findByBookerId(userId, state, LocalDateTime.now(), pagination)) {
+            return bookings.map(BookingMapper::toBookingDto).toList();
+        }
+    }
+
+    @Override
+    public List<BookingDto> getOwnerBookings(Long userId, BookingState state, Pagination pagination) {
+        log.debug("Поиск бронирований вещей владельца с id: {} в состоянии {}, {}", userId, state, pagination);
+        getUser(userId);
+        try (Stream<Booking> bookings = bookingRepository.findByOwnerId(userId, state, LocalDateTime.now(), pagination)) {
+            return bookings.map(BookingMapper::toBookingDto).toList();
+        }
+    }
+
+    private User getUser(Long userId) {
+        return userService.getUserById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    }
+
+    private Booking getBooking(Long bookingId) {
+        return bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
+    }
+}
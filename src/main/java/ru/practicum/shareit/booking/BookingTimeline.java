@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Бронирования одного пользователя (как автора или как владельца вещей), упорядоченные
+ * от новых к старым по началу, плюс такие же индексы по статусам.
+ * FUTURE и PAST выбираются диапазоном по началу относительно "сейчас", WAITING и REJECTED - индексом статуса,
+ * поэтому постраничный запрос читает только свою страницу. CURRENT - тоже диапазон по началу: начавшиеся
+ * бронирования не раньше now минус самое длинное бронирование пользователя, в уже нужном порядке.
+ */
+class BookingTimeline {
+    private static final Comparator<Key> NEWEST_FIRST = Comparator.comparing(Key::start)
+            .thenComparingLong(Key::id)
+            .reversed();
+
+    private final ConcurrentNavigableMap<Key, Booking> all = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+    private final AtomicLong longestSeconds = new AtomicLong();
+    private final Map<Booking.BookingStatus, ConcurrentNavigableMap<Key, Booking>> byStatus =
+            new EnumMap<>(Booking.BookingStatus.class);
+
+    BookingTimeline() {
+        for (Booking.BookingStatus status : Booking.BookingStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>(NEWEST_FIRST));
+        }
+    }
+
+    /**
+     * Обновляет индексы. Вызывается под блокировкой вещи, к которой относится бронирование.
+     */
+    void put(Booking previous, Booking current) {
+        Key key = new Key(current.getStart(), current.getId());
+        longestSeconds.accumulateAndGet(Duration.between(current.getStart(), current.getEnd()).toSeconds() + 1,
+                Math::max);
+        if (previous != null) {
+            Key previousKey = new Key(previous.getStart(), previous.getId());
+            if (!previousKey.equals(key)) {
+                all.remove(previousKey);
+            }
+            if (previous.getStatus() != current.getStatus() || !previousKey.equals(key)) {
+                byStatus.get(previous.getStatus()).remove(previousKey);
+            }
+        }
+        all.put(key, current);
+        byStatus.get(current.getStatus()).put(key, current);
+    }
+
+    Stream<Booking> find(BookingState state, LocalDateTime now) {
+        Key nowKey = new Key(now, Long.MAX_VALUE);
+        return switch (state) {
+            case ALL -> all.values().stream();
+            case FUTURE -> all.headMap(nowKey, false).values().stream();
+            case PAST -> past(nowKey, now);
+            case CURRENT -> current(nowKey, now);
+            case WAITING -> byStatus.get(Booking.BookingStatus.WAITING).values().stream();
+            case REJECTED -> byStatus.get(Booking.BookingStatus.REJECTED).values().stream();
+        };
+    }
+
+    /**
+     * Начавшиеся бронирования по убыванию начала, ленивым диапазоном до конца страницы. Пропускаются
+     * только ещё не закончившиеся, а их не больше, чем текущих, поэтому страница не зависит от длины истории.
+     */
+    private Stream<Booking> past(Key nowKey, LocalDateTime now) {
+        return all.tailMap(nowKey, true).values().stream()
+                .filter(booking -> booking.getEnd().isBefore(now));
+    }
+
+    /**
+     * Начавшиеся бронирования от новых к старым, ленивым диапазоном до конца страницы. Бронирование, начавшееся
+     * раньше now минус самое длинное из бронирований, уже закончилось, поэтому дальше диапазон не идёт,
+     * а будущие бронирования не просматриваются вовсе.
+     */
+    private Stream<Booking> current(Key nowKey, LocalDateTime now) {
+        long seconds = Math.min(longestSeconds.get(), ChronoUnit.SECONDS.between(LocalDateTime.MIN, now));
+        Key earliest = new Key(now.minusSeconds(seconds), Long.MIN_VALUE);
+        return all.subMap(nowKey, true, earliest, true).values().stream()
+                .filter(booking -> booking.getEnd().isAfter(now));
+    }
+
+    private record Key(LocalDateTime start, long id) {
+    }
+}
@@ -0,0 +1,163 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище бронирований. Записи по одной вещи упорядочены её собственной блокировкой,
+ * поэтому бронирования разных вещей не мешают друг другу. Для списков по автору и по владельцу
+ * поддерживаются отсортированные по началу индексы, для поиска свободных вещей - карты занятых дней.
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("!jdbc")
+public class InMemoryBookingRepository implements BookingRepository {
+
+    private final ConcurrentNavigableMap<Long, Booking> bookings = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, ItemSchedule> schedules = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, BookingTimeline> bookerTimelines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, BookingTimeline> ownerTimelines = new ConcurrentHashMap<>();
+    private final Journal journal;
+    private final IdGenerator idGenerator;
+
+    public InMemoryBookingRepository() {
+        this(Journal.DISABLED, IdGenerator.sequential());
+    }
+
+    /**
+     * @param journal     журнал, в который под блокировкой вещи записывается каждое изменение
+     * @param idGenerator источник id новых бронирований
+     */
+    @Autowired
+    public InMemoryBookingRepository(Journal journal, IdGenerator idGenerator) {
+        this.journal = journal;
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public Booking save(Booking booking) {
+        ItemSchedule schedule = scheduleOf(booking);
+        ReentrantLock lock = schedule.lock();
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            if (booking.getId() == null) {
+                booking.setId(idGenerator.nextId());
+            } else {
+                idGenerator.observe(booking.getId());
+            }
+            commit = saveLocked(schedule, booking);
+        } finally {
+            lock.unlock();
+        }
+        Journal.awaitCommitted(commit);
+        return booking;
+    }
+
+    @Override
+    public Optional<Booking> updateStatus(Long id, Set<Booking.BookingStatus> expected, Booking.BookingStatus status) {
+        Booking found = bookings.get(id);
+        if (found == null) {
+            return Optional.empty();
+        }
+        ItemSchedule schedule = scheduleOf(found);
+        ReentrantLock lock = schedule.lock();
+        Booking updated;
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            Booking stored = bookings.get(id);
+            if (!expected.contains(stored.getStatus())) {
+                return Optional.empty();
+            }
+            updated = BookingMapper.withStatus(stored, status);
+            commit = saveLocked(schedule, updated);
+        } finally {
+            lock.unlock();
+        }
+        Journal.awaitCommitted(commit);
+        return Optional.of(updated);
+    }
+
+    @Override
+    public Optional<Booking> findById(Long id) {
+        return Optional.ofNullable(bookings.get(id));
+    }
+
+    /**
+     * Для дней в окне карты занятых дней читает её без блокировки.
+     */
+    @Override
+    public boolean isBooked(Long itemId, LocalDate from, LocalDate to) {
+        ItemSchedule schedule = schedules.get(itemId);
+        return schedule != null && schedule.anyBooked(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Все бронирования в порядке id — для снимка журнала.
+     */
+    public Stream<Booking> findAll() {
+        return bookings.values().stream();
+    }
+
+    @Override
+    public Stream<Booking> findByBookerId(Long bookerId, BookingState state, LocalDateTime now,
+                                          Pagination pagination) {
+        return find(bookerTimelines.get(bookerId), state, now, pagination);
+    }
+
+    @Override
+    public Stream<Booking> findByOwnerId(Long ownerId, BookingState state, LocalDateTime now, Pagination pagination) {
+        return find(ownerTimelines.get(ownerId), state, now, pagination);
+    }
+
+    private static Stream<Booking> find(BookingTimeline timeline, BookingState state, LocalDateTime now,
+                                        Pagination pagination) {
+        if (timeline == null) {
+            return Stream.empty();
+        }
+        return pagination.apply(timeline.find(state, now));
+    }
+
+    private ItemSchedule scheduleOf(Booking booking) {
+        return schedules.computeIfAbsent(booking.getItem().getId(), id -> new ItemSchedule());
+    }
+
+    private CompletableFuture<Void> saveLocked(ItemSchedule schedule, Booking booking) {
+        if (isActive(booking) && schedule.overlaps(booking)) {
+            throw new ConflictException("Вещь уже забронирована на это время");
+        }
+        Booking previous = bookings.put(booking.getId(), booking);
+        schedule.put(booking);
+        bookerTimelines.computeIfAbsent(booking.getBooker().getId(), id -> new BookingTimeline())
+                .put(previous, booking);
+        ownerTimelines.computeIfAbsent(booking.getItem().getOwner().getId(), id -> new BookingTimeline())
+                .put(previous, booking);
+        return journal.append(new JournalRecord.BookingSaved(booking));
+    }
+
+    private static boolean isActive(Booking booking) {
+        return booking.getStatus() == Booking.BookingStatus.WAITING
+                || booking.getStatus() == Booking.BookingStatus.APPROVED;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Расписание одной вещи: подтверждённые бронирования, упорядоченные по началу.
+ * Подтверждённые интервалы не пересекаются, поэтому их концы тоже упорядочены, и проверка
+ * пересечения сводится к одному поиску в дереве за O(log n).
+ * Все обращения выполняются под блокировкой {@link #lock()} этой вещи, кроме {@link #anyBooked}
+ * по дням внутри окна карты занятых дней.
+ */
+class ItemSchedule {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableMap<LocalDateTime, Booking> approved = new TreeMap<>();
+    private volatile BookedDays bookedDays;
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Проверяет, пересекается ли интервал [start, end) с подтверждённым бронированием, кроме самого себя.
+     */
+    boolean overlaps(Booking booking) {
+        Map.Entry<LocalDateTime, Booking> latestBefore = approved.lowerEntry(booking.getEnd());
+        while (latestBefore != null && latestBefore.getValue().getId().equals(booking.getId())) {
+            latestBefore = approved.lowerEntry(latestBefore.getKey());
+        }
+        return latestBefore != null && latestBefore.getValue().getEnd().isAfter(booking.getStart());
+    }
+
+    /**
+     * Меняет в карте занятых дней только дни этого бронирования, не пересобирая карту.
+     * Внутренние дни бронирования принадлежат только ему, а граничный день при отмене остаётся занятым,
+     * если его задевает соседнее бронирование.
+     */
+    void put(Booking booking) {
+        if (booking.getStatus() == Booking.BookingStatus.APPROVED) {
+            approved.put(booking.getStart(), booking);
+            if (bookedDays == null) {
+                bookedDays = new BookedDays(startDay(booking));
+            }
+            bookedDays.set(startDay(booking), endDay(booking));
+            return;
+        }
+        Booking current = approved.get(booking.getStart());
+        if (current == null || !current.getId().equals(booking.getId())) {
+            return;
+        }
+        approved.remove(booking.getStart());
+        long fromDay = startDay(current);
+        long toDay = endDay(current);
+        Map.Entry<LocalDateTime, Booking> before = approved.lowerEntry(current.getStart());
+        if (before != null && endDay(before.getValue()) == fromDay) {
+            fromDay++;
+        }
+        Map.Entry<LocalDateTime, Booking> after = approved.higherEntry(current.getStart());
+        if (after != null && startDay(after.getValue()) == toDay) {
+            toDay--;
+        }
+        bookedDays.clear(fromDay, toDay);
+    }
+
+    /**
+     * Проверяет, занят ли хотя бы один день с fromDay по toDay включительно. Внутри окна карты
+     * читает её без блокировки, за пределами окна ищет бронирование в дереве под блокировкой.
+     */
+    boolean anyBooked(long fromDay, long toDay) {
+        BookedDays days = bookedDays;
+        if (days == null) {
+            return false;
+        }
+        if (days.covers(fromDay, toDay)) {
+            return days.anyBooked(fromDay, toDay);
+        }
+        lock.lock();
+        try {
+            Map.Entry<LocalDateTime, Booking> latestBefore = approved.floorEntry(
+                    LocalDate.ofEpochDay(toDay).atTime(LocalTime.MAX));
+            return latestBefore != null
+                    && latestBefore.getValue().getEnd().isAfter(LocalDate.ofEpochDay(fromDay).atStartOfDay());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long startDay(Booking booking) {
+        return booking.getStart().toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Конец бронирования не входит в интервал, поэтому бронирование до полуночи не занимает следующий день.
+     */
+    private static long endDay(Booking booking) {
+        return booking.getEnd().minusNanos(1).toLocalDate().toEpochDay();
+    }
+}
@@ -0,0 +1,197 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище бронирований в БД. Записи по одной вещи упорядочивает блокировка строки вещи (SELECT ... FOR UPDATE),
+ * под которой проверяется пересечение с подтверждёнными бронированиями, как блокировка вещи в хранилище в памяти.
+ * Списки автора идут по индексу (booker_id, start_date, id), списки владельца - через его вещи.
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("jdbc")
+public class JdbcBookingRepository implements BookingRepository {
+
+    private static final String SELECT = "SELECT b.id, b.start_date, b.end_date, b.status, "
+            + "i.id AS item_id, i.name AS item_name, i.description AS item_description, "
+            + "i.is_available AS item_available, i.request_id AS item_request_id, i.version AS item_version, "
+            + "o.id AS owner_id, o.name AS owner_name, o.email AS owner_email, "
+            + "u.id AS booker_id, u.name AS booker_name, u.email AS booker_email "
+            + "FROM bookings b JOIN items i ON i.id = b.item_id JOIN users o ON o.id = i.owner_id "
+            + "JOIN users u ON u.id = b.booker_id";
+    private static final String PAGE = " ORDER BY b.start_date DESC, b.id DESC LIMIT ? OFFSET ?";
+    private static final String OVERLAPS = "SELECT COUNT(*) FROM bookings WHERE item_id = ? AND status = 'APPROVED' "
+            + "AND id <> ? AND start_date < ? AND end_date > ?";
+
+    private static final RowMapper<Booking> BOOKING_ROW_MAPPER = (rs, rowNum) -> {
+        User owner = new User();
+        owner.setId(rs.getLong("owner_id"));
+        owner.setName(rs.getString("owner_name"));
+        owner.setEmail(rs.getString("owner_email"));
+
+        Item item = new Item();
+        item.setId(rs.getLong("item_id"));
+        item.setName(rs.getString("item_name"));
+        item.setDescription(rs.getString("item_description"));
+        item.setAvailable(rs.getBoolean("item_available"));
+        item.setOwner(owner);
+        item.setVersion(rs.getLong("item_version"));
+        long requestId = rs.getLong("item_request_id");
+        if (!rs.wasNull()) {
+            ItemRequest request = new ItemRequest();
+            request.setId(requestId);
+            item.setRequest(request);
+        }
+
+        User booker = new User();
+        booker.setId(rs.getLong("booker_id"));
+        booker.setName(rs.getString("booker_name"));
+        booker.setEmail(rs.getString("booker_email"));
+
+        Booking booking = new Booking();
+        booking.setId(rs.getLong("id"));
+        booking.setStart(rs.getObject("start_date", LocalDateTime.class));
+        booking.setEnd(rs.getObject("end_date", LocalDateTime.class));
+        booking.setStatus(Booking.BookingStatus.valueOf(rs.getString("status")));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return booking;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcBookingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public Booking save(Booking booking) {
+        lockItem(booking.getItem().getId());
+        checkOverlap(booking);
+        if (booking.getId() != null && jdbcTemplate.update(
+                "UPDATE bookings SET start_date = ?, end_date = ?, item_id = ?, booker_id = ?, status = ? WHERE id = ?",
+                booking.getStart(), booking.getEnd(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStatus().name(), booking.getId()) > 0) {
+            return booking;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO bookings "
+                    + "(start_date, end_date, item_id, booker_id, status) VALUES (?, ?, ?, ?, ?)", new String[]{"id"});
+            ps.setObject(1, booking.getStart());
+            ps.setObject(2, booking.getEnd());
+            ps.setLong(3, booking.getItem().getId());
+            ps.setLong(4, booking.getBooker().getId());
+            ps.setString(5, booking.getStatus().name());
+            return ps;
+        }, keyHolder);
+        booking.setId(keyHolder.getKeyAs(Long.class));
+        return booking;
+    }
+
+    /**
+     * Статус перечитывается после блокировки строки вещи, поэтому параллельные подтверждение и отмена
+     * не перезаписывают друг друга.
+     */
+    @Override
+    @Transactional
+    public Optional<Booking> updateStatus(Long id, Set<Booking.BookingStatus> expected, Booking.BookingStatus status) {
+        Optional<Long> itemId = jdbcTemplate.queryForList("SELECT item_id FROM bookings WHERE id = ?", Long.class, id)
+                .stream().findFirst();
+        if (itemId.isEmpty()) {
+            return Optional.empty();
+        }
+        lockItem(itemId.get());
+        Optional<Booking> stored = findById(id);
+        if (stored.isEmpty() || !expected.contains(stored.get().getStatus())) {
+            return Optional.empty();
+        }
+        Booking updated = BookingMapper.withStatus(stored.get(), status);
+        checkOverlap(updated);
+        jdbcTemplate.update("UPDATE bookings SET status = ? WHERE id = ?", status.name(), id);
+        return Optional.of(updated);
+    }
+
+    @Override
+    public Optional<Booking> findById(Long id) {
+        return jdbcTemplate.query(SELECT + " WHERE b.id = ?", BOOKING_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Конец бронирования не входит в интервал, поэтому бронирование до полуночи не занимает следующий день.
+     */
+    @Override
+    public boolean isBooked(Long itemId, LocalDate from, LocalDate to) {
+        return !jdbcTemplate.queryForList("SELECT id FROM bookings WHERE item_id = ? AND status = 'APPROVED' "
+                        + "AND start_date < ? AND end_date > ? LIMIT 1", Long.class, itemId,
+                to.plusDays(1).atStartOfDay(), from.atStartOfDay()).isEmpty();
+    }
+
+    @Override
+    public Stream<Booking> findByBookerId(Long bookerId, BookingState state, LocalDateTime now,
+                                          Pagination pagination) {
+        return find("b.booker_id = ?", bookerId, state, now, pagination);
+    }
+
+    @Override
+    public Stream<Booking> findByOwnerId(Long ownerId, BookingState state, LocalDateTime now, Pagination pagination) {
+        return find("i.owner_id = ?", ownerId, state, now, pagination);
+    }
+
+    private Stream<Booking> find(String userCondition, Long userId, BookingState state, LocalDateTime now,
+                                 Pagination pagination) {
+        String sql = SELECT + " WHERE " + userCondition + switch (state) {
+            case ALL -> "";
+            case CURRENT -> " AND b.start_date <= ? AND b.end_date > ?";
+            case PAST -> " AND b.end_date < ?";
+            case FUTURE -> " AND b.start_date > ?";
+            case WAITING, REJECTED -> " AND b.status = ?";
+        } + PAGE;
+        Object[] args = switch (state) {
+            case ALL -> new Object[]{userId, pagination.size(), pagination.from()};
+            case CURRENT -> new Object[]{userId, now, now, pagination.size(), pagination.from()};
+            case PAST, FUTURE -> new Object[]{userId, now, pagination.size(), pagination.from()};
+            case WAITING, REJECTED -> new Object[]{userId, state.name(), pagination.size(), pagination.from()};
+        };
+        return jdbcTemplate.queryForStream(sql, BOOKING_ROW_MAPPER, args);
+    }
+
+    private void lockItem(Long itemId) {
+        jdbcTemplate.queryForList("SELECT id FROM items WHERE id = ? FOR UPDATE", Long.class, itemId);
+    }
+
+    private void checkOverlap(Booking booking) {
+        if (booking.getStatus() != Booking.BookingStatus.WAITING
+                && booking.getStatus() != Booking.BookingStatus.APPROVED) {
+            return;
+        }
+        Long overlapping = jdbcTemplate.queryForObject(OVERLAPS, Long.class, booking.getItem().getId(),
+                booking.getId() != null ? booking.getId() : 0L, booking.getEnd(), booking.getStart());
+        if (overlapping != null && overlapping > 0) {
+            throw new ConflictException("Вещь уже забронирована на это время");
+        }
+    }
+}
@@ -1,7 +1,31 @@
 package ru.practicum.shareit.booking.dto;
 
+import lombok.Data;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+
 /**
- * TODO Sprint add-bookings.
+ * Sprint add-bookings.
  */
+@Data
 public class BookingDto {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Booking.BookingStatus status;
+    private UserDto booker;
+    private ItemDto item;
+
+    public BookingDto(Long id, LocalDateTime start, LocalDateTime end, Booking.BookingStatus status, UserDto booker,
+                      ItemDto item) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.booker = booker;
+        this.item = item;
+    }
 }
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.mapper;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NewBookingDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+public class BookingMapper {
+    public static Booking toBooking(NewBookingDto bookingDto, Item item, User booker) {
+        Booking booking = new Booking();
+        booking.setStart(bookingDto.getStart());
+        booking.setEnd(bookingDto.getEnd());
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(Booking.BookingStatus.WAITING);
+        return booking;
+    }
+
+    public static BookingDto toBookingDto(Booking booking) {
+        return new BookingDto(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                UserMapper.toUserDto(booking.getBooker()),
+                ItemMapper.toItemDto(booking.getItem())
+        );
+    }
+
+    /**
+     * Возвращает новую копию бронирования с другим статусом, не изменяя объект, который лежит в хранилище.
+     */
+    public static Booking withStatus(Booking booking, Booking.BookingStatus status) {
+        Booking updatedBooking = new Booking();
+        updatedBooking.setId(booking.getId());
+        updatedBooking.setStart(booking.getStart());
+        updatedBooking.setEnd(booking.getEnd());
+        updatedBooking.setItem(booking.getItem());
+        updatedBooking.setBooker(booking.getBooker());
+        updatedBooking.setStatus(status);
+        return updatedBooking;
+    }
+}
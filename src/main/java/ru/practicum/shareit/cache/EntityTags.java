@@ -0,0 +1,46 @@
+package ru.practicum.shareit.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Сильные ETag вида "id-версия" и разбор заголовка If-Match к ним.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Object key, long version) {
+        return "\"" + key + "-" + version + "\"";
+    }
+
+    /**
+     * Переводит If-Match в условие на версию сущности с данным ключом. Слабые теги и теги других сущностей
+     * не совпадают ни с какой версией, "*" совпадает с любой.
+     *
+     * @return null, если заголовка нет и версию проверять не нужно
+     */
+    public static LongPredicate versionCondition(String ifMatch, Object key) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String prefix = "\"" + key + "-";
+        List<Long> versions = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return version -> true;
+            }
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(prefix.length(), tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // чужой формат тега ни с чем не совпадает
+                }
+            }
+        }
+        return versions::contains;
+    }
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш сериализованных JSON-ответов (read-through).
+ * Чтение попавшей в кэш записи идёт без блокировок; при переполнении вытесняются
+ * самые давно загруженные записи. ETag строится из ключа и версии загруженной сущности.
+ * Загрузка, начатая до инвалидации, в кэш не попадает: инвалидация увеличивает счётчик страйпа ключа,
+ * и загрузка кладёт ответ, только если счётчик её страйпа не изменился. Счётчиков фиксированное число,
+ * поэтому память не растёт с числом когда-либо инвалидированных ключей; цена - лишний промах,
+ * если одновременно инвалидирован другой ключ того же страйпа.
+ */
+public class JsonResponseCache<K> {
+    private static final int GENERATION_STRIPES = 64;
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final ConcurrentMap<K, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Set<K> insertionOrder = new LinkedHashSet<>();
+    private final ReentrantLock insertionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder serializationNanos = new LongAdder();
+
+    public JsonResponseCache(String name, ObjectMapper objectMapper, int maxSize, Duration ttl) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Возвращает ответ из кэша или загружает значение через loader и сериализует его.
+     * ETag строится из версии загруженного значения (см. EntityTags), поэтому его можно передать в If-Match
+     * при изменении этого значения. Исключения loader пробрасываются как есть и не кэшируются.
+     */
+    public <T> CachedResponse get(K key, Supplier<T> loader, ToLongFunction<? super T> valueVersion) {
+        long now = System.nanoTime();
+        CachedResponse cached = entries.get(key);
+        if (cached != null && !cached.isExpired(now)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        int stripe = stripeOf(key);
+        long generation = generations.get(stripe);
+        T value = loader.get();
+        long serializationStartedAt = System.nanoTime();
+        byte[] body = serialize(value);
+        serializationNanos.add(System.nanoTime() - serializationStartedAt);
+        CachedResponse loaded = new CachedResponse(body, EntityTags.of(key, valueVersion.applyAsLong(value)),
+                now + ttlNanos);
+        insertionLock.lock();
+        try {
+            if (generation == generations.get(stripe)) {
+                entries.put(key, loaded);
+                puts.increment();
+                insertionOrder.remove(key);
+                insertionOrder.add(key);
+                evictOverflow();
+            }
+        } finally {
+            insertionLock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(K key) {
+        insertionLock.lock();
+        try {
+            generations.incrementAndGet(stripeOf(key));
+            entries.remove(key);
+            insertionOrder.remove(key);
+        } finally {
+            insertionLock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Суммарное время сериализации загруженных значений; число сериализаций равно missCount().
+     */
+    public long serializationNanos() {
+        return serializationNanos.sum();
+    }
+
+    private void evictOverflow() {
+        Iterator<K> oldest = insertionOrder.iterator();
+        while (insertionOrder.size() > maxSize) {
+            entries.remove(oldest.next());
+            oldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripeOf(Object key) {
+        return (key.hashCode() ^ (key.hashCode() >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ для кэша " + name, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует статистику кэша ответов в стандартных метриках cache.gets, cache.puts, cache.evictions, cache.size
+ * и время сериализации в cache.serialization.
+ */
+public class JsonResponseCacheMetrics extends CacheMeterBinder<JsonResponseCache<?>> {
+
+    public JsonResponseCacheMetrics(JsonResponseCache<?> cache) {
+        super(cache, cache.getName(), Tags.empty());
+    }
+
+    @Override
+    protected Long size() {
+        JsonResponseCache<?> cache = getCache();
+        return cache != null ? (long) cache.size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        JsonResponseCache<?> cache = getCache();
+        return cache != null ? cache.hitCount() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        JsonResponseCache<?> cache = getCache();
+        return cache != null ? cache.missCount() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        JsonResponseCache<?> cache = getCache();
+        return cache != null ? cache.evictionCount() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        JsonResponseCache<?> cache = getCache();
+        return cache != null ? cache.putCount() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionTimer.builder("cache.serialization", getCache(),
+                        JsonResponseCache::missCount, JsonResponseCache::serializationNanos, TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("Сериализация ответов при промахе кэша")
+                .register(registry);
+    }
+}
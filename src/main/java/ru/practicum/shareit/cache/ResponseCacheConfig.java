@@ -0,0 +1,37 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ResponseCacheConfig {
+
+    @Bean
+    public JsonResponseCache<Long> itemResponseCache(ObjectMapper objectMapper,
+                                                     @Value("${shareit.cache.max-size:10000}") int maxSize,
+                                                     @Value("${shareit.cache.ttl:5m}") Duration ttl) {
+        return new JsonResponseCache<>("items", objectMapper, maxSize, ttl);
+    }
+
+    @Bean
+    public JsonResponseCache<Long> userResponseCache(ObjectMapper objectMapper,
+                                                     @Value("${shareit.cache.max-size:10000}") int maxSize,
+                                                     @Value("${shareit.cache.ttl:5m}") Duration ttl) {
+        return new JsonResponseCache<>("users", objectMapper, maxSize, ttl);
+    }
+
+    @Bean
+    public MeterBinder itemResponseCacheMetrics(JsonResponseCache<Long> itemResponseCache) {
+        return new JsonResponseCacheMetrics(itemResponseCache);
+    }
+
+    @Bean
+    public MeterBinder userResponseCacheMetrics(JsonResponseCache<Long> userResponseCache) {
+        return new JsonResponseCacheMetrics(userResponseCache);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.ConstraintViolation;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Результат обработки одного элемента пакетного запроса: индекс в запросе, HTTP-статус и тело или ошибка.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult<T> {
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final int index;
+    private final int status;
+    private final T body;
+    private final String error;
+
+    public static <T> BatchResult<T> ok(int index, T body) {
+        return new BatchResult<>(index, HttpStatus.OK.value(), body, null);
+    }
+
+    public static <T> BatchResult<T> failed(int index, HttpStatus status, String error) {
+        return new BatchResult<>(index, status.value(), null, error);
+    }
+
+    public static <T> BatchResult<T> invalid(int index, Set<? extends ConstraintViolation<?>> violations) {
+        String error = violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        return failed(index, HttpStatus.BAD_REQUEST, error);
+    }
+}
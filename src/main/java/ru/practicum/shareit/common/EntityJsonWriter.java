@@ -0,0 +1,14 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Пишет сущность в JSON напрямую, без промежуточного dto и без рефлексии.
+ */
+@FunctionalInterface
+public interface EntityJsonWriter<T> {
+
+    void write(JsonGenerator generator, T value) throws IOException;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Тело ответа, которое пишется прямо в поток ответа на потоке запроса, см. {@link JsonStreamBodyConverter}.
+ */
+@FunctionalInterface
+public interface JsonStreamBody {
+
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Пишет {@link JsonStreamBody} синхронно, в отличие от StreamingResponseBody, который Spring MVC передаёт
+ * асинхронному исполнителю: списки не ждут свободного потока исполнителя и не ограничены тайм-аутом
+ * асинхронного запроса.
+ */
+@Component
+public class JsonStreamBodyConverter extends AbstractHttpMessageConverter<JsonStreamBody> {
+
+    public JsonStreamBodyConverter() {
+        super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return JsonStreamBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected JsonStreamBody readInternal(Class<? extends JsonStreamBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("JsonStreamBody только записывается", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(JsonStreamBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * Пишет сущности в ответ по мере чтения из хранилища - JSON-массивом или NDJSON, не собирая их в список
+ * и не создавая dto: каждая сущность сразу передаётся своему EntityJsonWriter. Ответ пишется на потоке
+ * запроса через {@link JsonStreamBodyConverter}.
+ */
+@Component
+public class JsonStreamWriter {
+
+    private final JsonFactory jsonFactory;
+    private final Timer arrayTimer;
+    private final Timer ndjsonTimer;
+
+    @Autowired
+    public JsonStreamWriter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.arrayTimer = Timer.builder("shareit.json.write")
+                .description("Чтение из хранилища и запись JSON-массива в ответ")
+                .register(meterRegistry);
+        this.ndjsonTimer = Timer.builder("shareit.ndjson.write")
+                .description("Чтение из хранилища и запись NDJSON-ответа")
+                .register(meterRegistry);
+    }
+
+    public <T> ResponseEntity<JsonStreamBody> array(Stream<T> elements, EntityJsonWriter<T> writer) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeArray(outputStream, elements, writer));
+    }
+
+    public <T> ResponseEntity<JsonStreamBody> ndjson(Stream<T> elements, EntityJsonWriter<T> writer) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> writeNdjson(outputStream, elements, writer));
+    }
+
+    <T> void writeArray(OutputStream outputStream, Stream<T> elements, EntityJsonWriter<T> writer)
+            throws IOException {
+        Timer.Sample sample = Timer.start();
+        try (elements; JsonGenerator generator = createGenerator(outputStream)) {
+            generator.writeStartArray();
+            elements.forEach(element -> write(generator, writer, element));
+            generator.writeEndArray();
+        } finally {
+            sample.stop(arrayTimer);
+        }
+    }
+
+    <T> void writeNdjson(OutputStream outputStream, Stream<T> elements, EntityJsonWriter<T> writer)
+            throws IOException {
+        Timer.Sample sample = Timer.start();
+        try (elements; JsonGenerator generator = createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            elements.forEach(element -> {
+                write(generator, writer, element);
+                try {
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            sample.stop(ndjsonTimer);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static <T> void write(JsonGenerator generator, EntityJsonWriter<T> writer, T element) {
+        try {
+            writer.write(generator, element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+/**
+ * Таймеры для классов с @Timed (сервисы и хранилища) и размеры хранилищ.
+ * Гистограммы и перцентили для метрик shareit.* и http.server.requests включаются в application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder storeSizeMetrics(UserRepository userRepository, ItemRepository itemRepository) {
+        return registry -> {
+            Gauge.builder("shareit.store.size", userRepository, UserRepository::count)
+                    .description("Число записей в хранилище")
+                    .tag("store", "users")
+                    .register(registry);
+            Gauge.builder("shareit.store.size", itemRepository, ItemRepository::count)
+                    .description("Число записей в хранилище")
+                    .tag("store", "items")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.common;
+
+import java.util.stream.Stream;
+
+/**
+ * Параметры постраничной выборки.
+ *
+ * @param after id последнего элемента предыдущей страницы (keyset-курсор), null - с начала
+ * @param from  сколько элементов пропустить после курсора
+ * @param size  максимальный размер страницы
+ */
+public record Pagination(Long after, int from, int size) {
+    public static final Pagination ALL = new Pagination(null, 0, Integer.MAX_VALUE);
+
+    public static Pagination of(Long after, int from, Integer size) {
+        return new Pagination(after, from, size != null ? size : Integer.MAX_VALUE);
+    }
+
+    public boolean isAfter(Long id) {
+        return after == null || id > after;
+    }
+
+    public <T> Stream<T> apply(Stream<T> stream) {
+        return stream.skip(from).limit(size);
+    }
+}
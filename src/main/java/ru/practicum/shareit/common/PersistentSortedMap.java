@@ -0,0 +1,241 @@
+package ru.practicum.shareit.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Неизменяемая отсортированная карта на AVL-дереве. Изменение возвращает новую версию, копируя только
+ * путь от корня до изменённого узла (O(log n) узлов), остальное дерево общее со старой версией.
+ * Поэтому версию можно читать из любого потока без блокировок, пока писатели строят следующую.
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedMap EMPTY = new PersistentSortedMap<>(null);
+
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Node<K, V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key());
+            if (cmp == 0) {
+                return node.value();
+            }
+            node = cmp < 0 ? node.left() : node.right();
+        }
+        return null;
+    }
+
+    /**
+     * Значение с наименьшим ключом не меньше key или null.
+     */
+    public V ceilingValue(K key) {
+        V ceiling = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key());
+            if (cmp == 0) {
+                return node.value();
+            }
+            if (cmp < 0) {
+                ceiling = node.value();
+                node = node.left();
+            } else {
+                node = node.right();
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Значение с наибольшим ключом или null, если карта пуста.
+     */
+    public V lastValue() {
+        Node<K, V> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right() != null) {
+            node = node.right();
+        }
+        return node.value();
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        Node<K, V> updated = put(root, key, value);
+        return updated == root ? this : new PersistentSortedMap<>(updated);
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> updated = remove(root, key);
+        return updated == root ? this : new PersistentSortedMap<>(updated);
+    }
+
+    /**
+     * Значения с ключами строго между after и before в порядке ключей; null - без границы.
+     */
+    public Stream<V> values(K after, K before) {
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        Iterator<V> cursor = new Cursor<>(root, after, before);
+        Spliterator<V> spliterator = after == null && before == null
+                ? Spliterators.spliterator(cursor, size(), characteristics)
+                : Spliterators.spliteratorUnknownSize(cursor, characteristics);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    public Stream<V> values() {
+        return values(null, null);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null, 1, 1);
+        }
+        int cmp = key.compareTo(node.key());
+        if (cmp < 0) {
+            Node<K, V> left = put(node.left(), key, value);
+            return left == node.left() ? node : balance(node.key(), node.value(), left, node.right());
+        }
+        if (cmp > 0) {
+            Node<K, V> right = put(node.right(), key, value);
+            return right == node.right() ? node : balance(node.key(), node.value(), node.left(), right);
+        }
+        if (node.value() == value) {
+            return node;
+        }
+        return new Node<>(key, value, node.left(), node.right(), node.height(), node.size());
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key());
+        if (cmp < 0) {
+            Node<K, V> left = remove(node.left(), key);
+            return left == node.left() ? node : balance(node.key(), node.value(), left, node.right());
+        }
+        if (cmp > 0) {
+            Node<K, V> right = remove(node.right(), key);
+            return right == node.right() ? node : balance(node.key(), node.value(), node.left(), right);
+        }
+        if (node.left() == null) {
+            return node.right();
+        }
+        if (node.right() == null) {
+            return node.left();
+        }
+        Node<K, V> successor = node.right();
+        while (successor.left() != null) {
+            successor = successor.left();
+        }
+        return balance(successor.key(), successor.value(), node.left(), removeMin(node.right()));
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left() == null) {
+            return node.right();
+        }
+        return balance(node.key(), node.value(), removeMin(node.left()), node.right());
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left()) < height(left.right())) {
+                left = rotateLeft(left.key(), left.value(), left.left(), left.right());
+            }
+            return rotateRight(key, value, left, right);
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right()) < height(right.left())) {
+                right = rotateRight(right.key(), right.value(), right.left(), right.right());
+            }
+            return rotateLeft(key, value, left, right);
+        }
+        return node(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return node(left.key(), left.value(), left.left(), node(key, value, left.right(), right));
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return node(right.key(), right.value(), node(key, value, left, right.left()), right.right());
+    }
+
+    private static <K, V> Node<K, V> node(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(key, value, left, right, Math.max(height(left), height(right)) + 1,
+                size(left) + size(right) + 1);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node != null ? node.height() : 0;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node != null ? node.size() : 0;
+    }
+
+    private record Node<K, V>(K key, V value, Node<K, V> left, Node<K, V> right, int height, int size) {
+    }
+
+    /**
+     * Обход по возрастанию ключа со стеком левых потомков, начиная с первого ключа больше after.
+     */
+    private static final class Cursor<K extends Comparable<? super K>, V> implements Iterator<V> {
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K before;
+
+        Cursor(Node<K, V> root, K after, K before) {
+            this.before = before;
+            Node<K, V> node = root;
+            while (node != null) {
+                if (after == null || node.key().compareTo(after) > 0) {
+                    stack.push(node);
+                    node = node.left();
+                } else {
+                    node = node.right();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (before == null || stack.peek().key().compareTo(before) < 0);
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = stack.pop();
+            for (Node<K, V> child = node.right(); child != null; child = child.left()) {
+                stack.push(child);
+            }
+            return node.value();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.feed;
+
+/**
+ * Какие изменения нужны подписчику; незаданные условия не проверяются, все заданные должны выполняться.
+ * Текст удалённой вещи не известен, поэтому удаление получают все, кому подходят id вещи и владельца.
+ *
+ * @param itemId  id вещи
+ * @param ownerId id владельца
+ * @param text    подстрока названия или описания в нижнем регистре
+ */
+public record FeedFilter(Long itemId, Long ownerId, String text) {
+
+    public static FeedFilter of(Long itemId, Long ownerId, String text) {
+        return new FeedFilter(itemId, ownerId, text == null || text.isBlank() ? null : text.toLowerCase());
+    }
+
+    boolean matches(ItemChange change) {
+        if (itemId != null && !itemId.equals(change.item().getId())) {
+            return false;
+        }
+        if (ownerId != null && !ownerId.equals(change.ownerId())) {
+            return false;
+        }
+        return text == null || change.deleted() || change.name().contains(text) || change.description().contains(text);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.feed;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Новое состояние вещи после создания или изменения либо её удаление. Название и описание в нижнем регистре
+ * считаются один раз на изменение, а не для каждого подписчика с фильтром по тексту.
+ *
+ * @param ownerId владелец вещи - для фильтра по владельцу
+ * @param item    состояние, которое получат подписчики; у удалённой вещи только id
+ * @param deleted вещь удалена; название и описание тогда не известны
+ */
+public record ItemChange(Long ownerId, ItemDto item, String name, String description, boolean deleted) {
+
+    public static ItemChange of(Item item) {
+        return new ItemChange(item.getOwner().getId(), ItemMapper.toItemDto(item),
+                item.getName().toLowerCase(), item.getDescription().toLowerCase(), false);
+    }
+
+    public static ItemChange deleted(Long itemId, Long ownerId) {
+        return new ItemChange(ownerId, new ItemDto(itemId, null, null, null, null), null, null, true);
+    }
+}
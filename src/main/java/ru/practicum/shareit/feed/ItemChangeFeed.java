@@ -0,0 +1,274 @@
+package ru.practicum.shareit.feed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.model.Item;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Лента изменений вещей для подписчиков по SSE вместо опроса /items/search и /items/{itemId}.
+ * Изменения склеиваются по вещи: пока диспетчер не разослал изменение, следующее его заменяет.
+ * Единственный поток-диспетчер раздаёт изменения подписчикам, чьи фильтры им соответствуют, а запись
+ * в ответ идёт в виртуальных потоках, только пока у подписчика есть неотправленные изменения, -
+ * поэтому ждущие подписчики не занимают потоков. У каждого подписчика буфер на bufferSize разных вещей;
+ * подписчик, который не успевает его разбирать, отключается, а не копит изменения без предела.
+ * <p>
+ * Подписчики разложены по индексам самого узкого условия фильтра: по id вещи, иначе по id владельца,
+ * иначе в общий список. Диспетчер проверяет только подписчиков вещи, её владельца и общего списка,
+ * а не всех открытых подписок.
+ */
+@Slf4j
+@Component
+public class ItemChangeFeed implements AutoCloseable {
+
+    private final ConcurrentMap<Long, ItemChange> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> changedIds = new LinkedBlockingQueue<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Long, Set<Subscriber>> byItem = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Subscriber>> byOwner = new ConcurrentHashMap<>();
+    private final Set<Subscriber> scanned = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private final Thread dispatcher;
+
+    /**
+     * @param bufferSize сколько разных вещей может ждать отправки одному подписчику
+     * @param timeout    через сколько подписка закрывается; клиент EventSource переподключится сам
+     */
+    @Autowired
+    public ItemChangeFeed(@Value("${shareit.feed.buffer-size:256}") int bufferSize,
+                          @Value("${shareit.feed.timeout:30m}") Duration timeout,
+                          MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.published = Counter.builder("shareit.feed.changes")
+                .description("Изменения вещей, переданные в ленту")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("shareit.feed.coalesced")
+                .description("Изменения, заменившие ещё не разосланное изменение той же вещи")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("shareit.feed.dropped")
+                .description("Подписчики, отключённые из-за переполнения буфера")
+                .register(meterRegistry);
+        Gauge.builder("shareit.feed.subscribers", subscribers, Set::size)
+                .description("Открытые подписки на ленту изменений")
+                .register(meterRegistry);
+        this.dispatcher = Thread.ofPlatform().name("item-feed-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    /**
+     * Передаёт новое состояние вещи в ленту; не блокируется и не зависит от числа подписчиков.
+     */
+    public void publish(Item item) {
+        enqueue(ItemChange.of(item));
+    }
+
+    /**
+     * Передаёт в ленту удаление вещи; заменяет ещё не разосланное изменение этой вещи.
+     */
+    public void publishDeleted(Long itemId, Long ownerId) {
+        enqueue(ItemChange.deleted(itemId, ownerId));
+    }
+
+    public SseEmitter subscribe(FeedFilter filter) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(filter, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        try {
+            // Заголовки ответа уходят с первой записью, поэтому клиент сразу получает комментарий.
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        subscribers.add(subscriber);
+        index(subscriber).add(subscriber);
+        log.debug("Новая подписка на ленту изменений: {}", filter);
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+        subscribers.forEach(Subscriber::disconnect);
+        senders.shutdown();
+    }
+
+    private void enqueue(ItemChange change) {
+        published.increment();
+        Long itemId = change.item().getId();
+        if (pending.put(itemId, change) == null) {
+            changedIds.add(itemId);
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Индекс, в котором лежит подписчик; пустые множества индексов не удаляются, их не больше, чем разных id
+     * в фильтрах.
+     */
+    private Set<Subscriber> index(Subscriber subscriber) {
+        FeedFilter filter = subscriber.filter;
+        if (filter.itemId() != null) {
+            return byItem.computeIfAbsent(filter.itemId(), id -> ConcurrentHashMap.newKeySet());
+        }
+        if (filter.ownerId() != null) {
+            return byOwner.computeIfAbsent(filter.ownerId(), id -> ConcurrentHashMap.newKeySet());
+        }
+        return scanned;
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ItemChange change = pending.remove(changedIds.take());
+                if (change != null) {
+                    dispatch(change);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(ItemChange change) {
+        dispatch(change, byItem.get(change.item().getId()));
+        dispatch(change, byOwner.get(change.ownerId()));
+        dispatch(change, scanned);
+    }
+
+    private void dispatch(ItemChange change, Set<Subscriber> candidates) {
+        if (candidates == null) {
+            return;
+        }
+        for (Subscriber subscriber : candidates) {
+            if (subscriber.filter.matches(change) && !subscriber.offer(change)) {
+                dropped.increment();
+                log.debug("Подписчик {} не успевает читать ленту и отключён", subscriber.filter);
+                subscriber.disconnect();
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final FeedFilter filter;
+        private final SseEmitter emitter;
+        private final Map<Long, ItemChange> queued = new LinkedHashMap<>();
+        // ReentrantLock, а не synchronized: в виртуальном потоке отправки монитор закрепляет его за несущим потоком.
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean sending;
+        private boolean closed;
+
+        Subscriber(FeedFilter filter, SseEmitter emitter) {
+            this.filter = filter;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Ставит изменение в очередь, заменяя неотправленное изменение той же вещи.
+         *
+         * @return false, если в буфере уже bufferSize других вещей
+         */
+        boolean offer(ItemChange change) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return true;
+                }
+                Long itemId = change.item().getId();
+                if (queued.size() >= bufferSize && !queued.containsKey(itemId)) {
+                    return false;
+                }
+                queued.put(itemId, change);
+                if (!sending) {
+                    sending = true;
+                    senders.execute(this::send);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send() {
+            while (true) {
+                List<ItemChange> batch;
+                lock.lock();
+                try {
+                    if (closed || queued.isEmpty()) {
+                        sending = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(queued.values());
+                    queued.clear();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    for (ItemChange change : batch) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.item().getId()))
+                                .name(change.deleted() ? "deleted" : "item")
+                                .data(change.deleted() ? Map.of("id", change.item().getId()) : change.item(),
+                                        MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Закрывает подписку; ответ завершается в потоке отправки, чтобы диспетчер не ждал блокированной записи.
+         */
+        void disconnect() {
+            close();
+            senders.execute(emitter::complete);
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queued.clear();
+                subscribers.remove(this);
+                index(this).remove(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
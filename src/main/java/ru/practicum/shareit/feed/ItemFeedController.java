@@ -0,0 +1,31 @@
+package ru.practicum.shareit.feed;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Подписка на изменения вещей: каждое изменение приходит событием item с id вещи и её состоянием в data,
+ * удаление вещи - событием deleted, в data которого только id.
+ */
+@RestController
+@RequestMapping("/items/feed")
+public class ItemFeedController {
+    private final ItemChangeFeed itemChangeFeed;
+
+    @Autowired
+    public ItemFeedController(ItemChangeFeed itemChangeFeed) {
+        this.itemChangeFeed = itemChangeFeed;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) Long itemId,
+                                @RequestParam(required = false) Long ownerId,
+                                @RequestParam(required = false) String text) {
+        return itemChangeFeed.subscribe(FeedFilter.of(itemId, ownerId, text));
+    }
+}
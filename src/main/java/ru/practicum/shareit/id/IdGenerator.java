@@ -0,0 +1,32 @@
+package ru.practicum.shareit.id;
+
+/**
+ * Источник id новых сущностей хранилища в памяти. Реализация выбирается свойством shareit.id.generator:
+ * sequential - счётчик 1, 2, 3... одного экземпляра приложения, snowflake - упорядоченные по времени id
+ * с номером узла, которые не пересекаются между экземплярами без общего хранилища и блокировок.
+ * Id обоих генераторов не превосходят 2^53 - 1 и точно представимы числом JSON в JavaScript.
+ */
+public interface IdGenerator {
+
+    long nextId();
+
+    /**
+     * Выдаёт count новых id одной операцией генератора, например для пачки сущностей.
+     */
+    default long[] nextIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+        return ids;
+    }
+
+    /**
+     * Учитывает уже выданный id (из журнала или переданный явно), чтобы не выдать его повторно.
+     */
+    void observe(long id);
+
+    static IdGenerator sequential() {
+        return new SequentialIdGenerator();
+    }
+}
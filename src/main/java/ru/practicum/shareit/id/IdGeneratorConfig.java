@@ -0,0 +1,27 @@
+package ru.practicum.shareit.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+/**
+ * Генератор id хранилищ в памяти: shareit.id.generator (sequential или snowflake) и номер узла shareit.id.node
+ * от 0 до SnowflakeIdGenerator.MAX_NODE.
+ * Каждое хранилище получает свой экземпляр, поэтому id разных сущностей выдаются независимо.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    public IdGenerator idGenerator(@Value("${shareit.id.generator:sequential}") String generator,
+                                   @Value("${shareit.id.node:0}") long node) {
+        return switch (generator) {
+            case "sequential" -> IdGenerator.sequential();
+            case "snowflake" -> new SnowflakeIdGenerator(node);
+            default -> throw new IllegalArgumentException("Неизвестный генератор id: " + generator);
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Атомарный счётчик: id уникальны только в пределах одного экземпляра приложения.
+ */
+public final class SequentialIdGenerator implements IdGenerator {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long first = sequence.getAndAdd(count) + 1;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Override
+    public void observe(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+}
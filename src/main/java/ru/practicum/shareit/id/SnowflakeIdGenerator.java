@@ -0,0 +1,99 @@
+package ru.practicum.shareit.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Id в духе Snowflake: 41 бит миллисекунд от EPOCH_MILLIS, 5 бит номера узла и 7 бит номера в миллисекунде.
+ * Узлы с разными номерами не могут выдать одинаковый id, поэтому экземпляры за балансировщиком
+ * не согласуют id ни друг с другом, ни с общим хранилищем.
+ * <p>
+ * Id занимает 53 бита и не превосходит 2^53 - 1 (Number.MAX_SAFE_INTEGER), поэтому остаётся числом в JSON
+ * и без потери точности читается клиентами на JavaScript. Время хватит до 2093 года, узлов - до 32,
+ * номеров - 128 на миллисекунду узла.
+ * <p>
+ * Время и номер в миллисекунде хранятся одним AtomicLong и продвигаются CAS: следующая метка - большая
+ * из текущего времени и предыдущей метки плюс один. Поэтому генератор не ждёт: если номера
+ * миллисекунды кончились или часы отстали, id берутся в счёт следующих миллисекунд и остаются возрастающими.
+ */
+public final class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final int ID_BITS = 53;
+    public static final int NODE_BITS = 5;
+    public static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    /**
+     * Начало отсчёта времени в id: 2024-01-01T00:00:00Z.
+     */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    static final int SEQUENCE_BITS = 7;
+    private static final int TIME_BITS = ID_BITS - NODE_BITS - SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong lastStamp = new AtomicLong(-1);
+
+    /**
+     * @param node номер узла от 0 до MAX_NODE, у каждого экземпляра приложения свой
+     */
+    public SnowflakeIdGenerator(long node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Номер узла должен быть от 0 до " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        return nextIds(1)[0];
+    }
+
+    /**
+     * Резервирует count подряд идущих меток одним CAS. Метка - миллисекунда и номер в ней, поэтому блок,
+     * не поместившийся в текущую миллисекунду, продолжается номерами следующих.
+     */
+    @Override
+    public long[] nextIds(int count) {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        if (now < 0) {
+            throw new IllegalStateException("Часы узла показывают время раньше начала отсчёта id");
+        }
+        long last = lastStamp.updateAndGet(previous -> Math.max(previous + count, (now << SEQUENCE_BITS) + count - 1));
+        if (last >>> SEQUENCE_BITS >= 1L << TIME_BITS) {
+            throw new IllegalStateException("Время в id вышло за " + TIME_BITS + " бит");
+        }
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            long stamp = last - count + 1 + i;
+            ids[i] = (stamp >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS
+                    | stamp & SEQUENCE_MASK;
+        }
+        return ids;
+    }
+
+    /**
+     * Продвигает метку до id своего узла: после перезапуска с отставшими часами новые id не совпадут
+     * с восстановленными из журнала. Id других узлов с id этого узла совпасть не могут.
+     */
+    @Override
+    public void observe(long id) {
+        if ((id >>> SEQUENCE_BITS & MAX_NODE) == node) {
+            long stamp = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | id & SEQUENCE_MASK;
+            lastStamp.accumulateAndGet(stamp, Math::max);
+        }
+    }
+
+    static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    static long node(long id) {
+        return id >>> SEQUENCE_BITS & MAX_NODE;
+    }
+}
@@ -0,0 +1,297 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Неизменяемый кусок колоночного хранилища: до CAPACITY вещей подряд по id. Id, владелец, запрос и версия
+ * лежат в long[], доступность - битами в long[], название и описание - ссылками в блок текстов куска.
+ * Изменение не трогает кусок, а собирает новые на его месте (O(CAPACITY)), поэтому опубликованный кусок
+ * читается без блокировок.
+ */
+final class ColumnChunk {
+    static final int CAPACITY = 128;
+
+    private static final long NO_REQUEST = Long.MIN_VALUE;
+
+    private final long[] ids;
+    private final long[] owners;
+    private final long[] requests;
+    private final long[] versions;
+    private final long[] available;
+    private final int[] names;
+    private final int[] descriptions;
+    private final Utf8TextBlock texts;
+
+    private ColumnChunk(long[] ids, long[] owners, long[] requests, long[] versions, long[] available,
+                        int[] names, int[] descriptions, Utf8TextBlock texts) {
+        this.ids = ids;
+        this.owners = owners;
+        this.requests = requests;
+        this.versions = versions;
+        this.available = available;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.texts = texts;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long lastId() {
+        return ids[ids.length - 1];
+    }
+
+    /**
+     * @return место вещи в куске или -1
+     */
+    int slotOf(long id) {
+        int slot = Arrays.binarySearch(ids, id);
+        return slot >= 0 ? slot : -1;
+    }
+
+    long ownerAt(int slot) {
+        return owners[slot];
+    }
+
+    long versionAt(int slot) {
+        return versions[slot];
+    }
+
+    Item itemAt(int slot) {
+        User owner = new User();
+        owner.setId(owners[slot]);
+        Item item = new Item();
+        item.setId(ids[slot]);
+        item.setName(texts.get(names[slot]));
+        item.setDescription(texts.get(descriptions[slot]));
+        item.setAvailable(isAvailable(slot));
+        item.setOwner(owner);
+        item.setVersion(versions[slot]);
+        if (requests[slot] != NO_REQUEST) {
+            ItemRequest request = new ItemRequest();
+            request.setId(requests[slot]);
+            item.setRequest(request);
+        }
+        return item;
+    }
+
+    Stream<Item> items() {
+        return IntStream.range(0, ids.length).mapToObj(this::itemAt);
+    }
+
+    /**
+     * Доступные вещи с id больше after, в названии или описании которых есть текст, в порядке id.
+     *
+     * @param query кодовые точки искомого текста в нижнем регистре
+     * @param limit сколько вещей ещё нужно найти
+     */
+    void search(int[] query, long after, int limit, List<Item> found) {
+        int start = upperBound(after);
+        for (int slot = nextAvailable(start); slot >= 0 && limit > 0; slot = nextAvailable(slot + 1)) {
+            if (texts.indexOfIgnoreCase(names[slot], query) >= 0
+                    || texts.indexOfIgnoreCase(descriptions[slot], query) >= 0) {
+                found.add(itemAt(slot));
+                limit--;
+            }
+        }
+    }
+
+    /**
+     * Место совпадения определяется по байтам блока текстов; строки в нижнем регистре и вещь создаются,
+     * только если совпадение по месту может попасть в отобранные.
+     */
+    void searchTop(int[] query, String text, ItemRanking.TopK top) {
+        for (int slot = nextAvailable(0); slot >= 0; slot = nextAvailable(slot + 1)) {
+            int nameIndex = texts.indexOfIgnoreCase(names[slot], query);
+            boolean inName = nameIndex >= 0;
+            int position = inName ? nameIndex : texts.indexOfIgnoreCase(descriptions[slot], query);
+            if (position >= 0 && top.admits(inName, position)) {
+                Item item = itemAt(slot);
+                top.offer(item, item.getName().toLowerCase(), item.getDescription().toLowerCase(), text,
+                        found -> true);
+            }
+        }
+    }
+
+    /**
+     * Байты колонок и блока текстов без заголовков массивов.
+     */
+    long footprintBytes() {
+        return (long) ids.length * (4 * Long.BYTES + 2 * Integer.BYTES) + (long) available.length * Long.BYTES
+                + texts.capacity();
+    }
+
+    /**
+     * Байты блока текстов куска.
+     */
+    long textBytes() {
+        return texts.capacity();
+    }
+
+    /**
+     * Собирает куски, которые заменяют chunk после изменений: вещи из changes с непустым значением
+     * добавляются или заменяют прежние, с null - удаляются. Если вещей больше CAPACITY, они делятся
+     * на равные куски, а дописанные в конец новые id - на полные куски и остаток, чтобы последовательная
+     * вставка не оставляла за собой полупустых кусков.
+     *
+     * @param chunk   прежний кусок или null, если кусков ещё нет
+     * @param changes изменения по id вещи, все в диапазоне этого куска
+     * @param arena   арена для блоков текстов вне кучи или null, если тексты в куче
+     * @return новые куски по возрастанию id; пустой список, если вещей не осталось
+     */
+    static List<ColumnChunk> merge(ColumnChunk chunk, NavigableMap<Long, Item> changes, OffHeapTextArena arena) {
+        if (chunk != null && changes.size() == 1) {
+            Map.Entry<Long, Item> change = changes.firstEntry();
+            int slot = chunk.slotOf(change.getKey());
+            if (slot >= 0 && change.getValue() != null && chunk.sameTexts(slot, change.getValue())) {
+                return List.of(chunk.withColumns(slot, change.getValue()));
+            }
+        }
+        int oldSize = chunk != null ? chunk.size() : 0;
+        int[] sources = new int[oldSize + changes.size()];
+        Item[] replacements = new Item[sources.length];
+        int rows = 0;
+        int slot = 0;
+        for (Map.Entry<Long, Item> change : changes.entrySet()) {
+            long id = change.getKey();
+            while (slot < oldSize && chunk.ids[slot] < id) {
+                sources[rows++] = slot++;
+            }
+            if (slot < oldSize && chunk.ids[slot] == id) {
+                slot++;
+            }
+            if (change.getValue() != null) {
+                sources[rows] = -1;
+                replacements[rows++] = change.getValue();
+            }
+        }
+        while (slot < oldSize) {
+            sources[rows++] = slot++;
+        }
+        List<ColumnChunk> merged = new ArrayList<>();
+        boolean appended = chunk == null || changes.firstKey() > chunk.lastId();
+        int pieces = (rows + CAPACITY - 1) / CAPACITY;
+        for (int piece = 0, from = 0; piece < pieces; piece++) {
+            int to = appended ? Math.min(rows, from + CAPACITY) : (int) ((long) rows * (piece + 1) / pieces);
+            merged.add(build(chunk, sources, replacements, from, to, arena));
+            from = to;
+        }
+        return merged;
+    }
+
+    /**
+     * Следующее место доступной вещи начиная с from или -1.
+     */
+    private int nextAvailable(int from) {
+        int word = from >>> 6;
+        if (word >= available.length) {
+            return -1;
+        }
+        long bits = available[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return slot < ids.length ? slot : -1;
+            }
+            if (++word == available.length) {
+                return -1;
+            }
+            bits = available[word];
+        }
+    }
+
+    private boolean isAvailable(int slot) {
+        return (available[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private int upperBound(long after) {
+        int position = Arrays.binarySearch(ids, after);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private boolean sameTexts(int slot, Item item) {
+        return texts.textEquals(names[slot], item.getName()) && texts.textEquals(descriptions[slot], item.getDescription());
+    }
+
+    /**
+     * Тот же кусок с блоком текстов, скопированным в новое поколение арены; колонки общие с прежним.
+     */
+    ColumnChunk copyTexts(OffHeapTextArena arena) {
+        Utf8TextBlock copied = texts.copyTo(arena);
+        return new ColumnChunk(ids, owners, requests, versions, available, names, descriptions, copied);
+    }
+
+    /**
+     * Копия куска, в которой у одной вещи изменились только примитивные колонки; id и тексты общие с прежним.
+     */
+    private ColumnChunk withColumns(int slot, Item item) {
+        long[] newOwners = owners.clone();
+        long[] newRequests = requests.clone();
+        long[] newVersions = versions.clone();
+        long[] newAvailable = available.clone();
+        newOwners[slot] = item.getOwner().getId();
+        newRequests[slot] = requestOf(item);
+        newVersions[slot] = item.getVersion();
+        setAvailable(newAvailable, slot, item.isAvailable());
+        return new ColumnChunk(ids, newOwners, newRequests, newVersions, newAvailable, names, descriptions, texts);
+    }
+
+    private static ColumnChunk build(ColumnChunk chunk, int[] sources, Item[] replacements, int from, int to,
+                                     OffHeapTextArena arena) {
+        int size = to - from;
+        long[] ids = new long[size];
+        long[] owners = new long[size];
+        long[] requests = new long[size];
+        long[] versions = new long[size];
+        long[] available = new long[(size + 63) >>> 6];
+        int[] names = new int[size];
+        int[] descriptions = new int[size];
+        Utf8TextBlock.Builder texts = new Utf8TextBlock.Builder(arena, 2 * size);
+        for (int row = from; row < to; row++) {
+            int target = row - from;
+            int source = sources[row];
+            if (source >= 0) {
+                ids[target] = chunk.ids[source];
+                owners[target] = chunk.owners[source];
+                requests[target] = chunk.requests[source];
+                versions[target] = chunk.versions[source];
+                setAvailable(available, target, chunk.isAvailable(source));
+                names[target] = texts.add(chunk.texts, chunk.names[source]);
+                descriptions[target] = texts.add(chunk.texts, chunk.descriptions[source]);
+            } else {
+                Item item = replacements[row];
+                ids[target] = item.getId();
+                owners[target] = item.getOwner().getId();
+                requests[target] = requestOf(item);
+                versions[target] = item.getVersion();
+                setAvailable(available, target, item.isAvailable());
+                names[target] = texts.add(item.getName());
+                descriptions[target] = texts.add(item.getDescription());
+            }
+        }
+        return new ColumnChunk(ids, owners, requests, versions, available, names, descriptions, texts.build());
+    }
+
+    private static long requestOf(Item item) {
+        return item.getRequest() != null ? item.getRequest().getId() : NO_REQUEST;
+    }
+
+    private static void setAvailable(long[] available, int slot, boolean value) {
+        if (value) {
+            available[slot >>> 6] |= 1L << slot;
+        } else {
+            available[slot >>> 6] &= ~(1L << slot);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.common.PersistentSortedMap;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Компактное хранилище вещей в памяти: вместо объекта Item со ссылками на User и ItemRequest на каждую вещь
+ * хранятся колонки примитивов кусками по ColumnChunk.CAPACITY вещей подряд по id, а название и описание -
+ * в блоке текстов UTF-8 куска без повторов.
+ * <p>
+ * Как и в InMemoryItemRepository, записи одной вещи идут под блокировкой её страйпа, а куски и индекс
+ * по владельцам лежат в неизменяемой версии, которую писатель заменяет, пересобирая только затронутые куски.
+ * Чтение и поиск идут по одной версии без блокировок и не мешают писателям. Поиск просматривает тексты
+ * кусков без индекса триграмм частями в пуле ItemSearchExecutor и в пределах его бюджета времени.
+ * Блоки текстов вне кучи берутся из общей OffHeapTextArena, а не отдельным прямым буфером на каждую пересборку.
+ */
+@Slf4j
+@Repository
+@Timed("shareit.repository")
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "shareit.items.storage", havingValue = "columnar")
+public class ColumnarItemRepository implements SnapshotItemRepository {
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicReference<Version> current = new AtomicReference<>(Version.EMPTY);
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ItemSearchExecutor searchExecutor;
+    private final IdGenerator idGenerator;
+    private final Journal journal;
+    private final OffHeapTextArena textArena;
+
+    public ColumnarItemRepository() {
+        this(Journal.DISABLED, false, IdGenerator.sequential());
+    }
+
+    public ColumnarItemRepository(Journal journal, boolean offHeap, IdGenerator idGenerator) {
+        this(journal, ItemSearchExecutor.SEQUENTIAL, offHeap, idGenerator);
+    }
+
+    /**
+     * @param journal        журнал, в который записывается каждое изменение; ожидание fsync идёт после снятия блокировки
+     * @param searchExecutor число частей просмотра, пул для них и бюджет времени поиска
+     * @param offHeap        хранить блоки текстов вне кучи, в общей арене с уплотнением
+     * @param idGenerator    источник id новых вещей
+     */
+    @Autowired
+    public ColumnarItemRepository(Journal journal, ItemSearchExecutor searchExecutor,
+                                  @Value("${shareit.items.off-heap-text:false}") boolean offHeap,
+                                  IdGenerator idGenerator) {
+        this.journal = journal;
+        this.searchExecutor = searchExecutor;
+        this.textArena = offHeap ? new OffHeapTextArena() : null;
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Item save(Item item) {
+        assignId(item);
+        ReentrantLock lock = lockFor(item.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            commit = saveLocked(item);
+        } finally {
+            lock.unlock();
+        }
+        compactTextsIfDue();
+        Journal.awaitCommitted(commit);
+        return item;
+    }
+
+    /**
+     * Публикует пачку одной версией под всеми блокировками; версии сверяются под ними же.
+     */
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        assignIds(items);
+        List<Item> saved = new ArrayList<>(items.size());
+        List<CompletableFuture<Void>> commits = new ArrayList<>(items.size());
+        lockAll();
+        try {
+            Version version = current.get();
+            TreeMap<Long, Item> changes = new TreeMap<>();
+            for (Item item : items) {
+                Item accepted = isNextVersion(version.versionOf(item.getId()), item) ? item : null;
+                saved.add(accepted);
+                if (accepted != null) {
+                    changes.put(item.getId(), item);
+                }
+            }
+            current.getAndUpdate(next -> next.apply(changes, textArena));
+            for (Item item : saved) {
+                if (item != null) {
+                    commits.add(journal.append(new JournalRecord.ItemSaved(item)));
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+        compactTextsIfDue();
+        commits.forEach(Journal::awaitCommitted);
+        return saved;
+    }
+
+    @Override
+    public boolean saveIfVersion(Item item, long expectedVersion) {
+        ReentrantLock lock = lockFor(item.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            Long stored = current.get().versionOf(item.getId());
+            if (stored == null || stored != expectedVersion) {
+                return false;
+            }
+            commit = saveLocked(item);
+        } finally {
+            lock.unlock();
+        }
+        compactTextsIfDue();
+        Journal.awaitCommitted(commit);
+        return true;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return Optional.ofNullable(current.get().find(id));
+    }
+
+    /**
+     * Страница отбирается по отсортированным id вещей владельца в одной версии; id, которые уже
+     * не принадлежат владельцу, пропускаются.
+     */
+    @Override
+    public Stream<Item> findByOwnerId(Long ownerId, Pagination pagination) {
+        Version version = current.get();
+        OwnerItemIds itemIds = version.owners().get(ownerId);
+        if (itemIds == null) {
+            return Stream.empty();
+        }
+        int start = pagination.after() != null ? itemIds.upperBound(pagination.after()) : 0;
+        return pagination.apply(IntStream.range(start, itemIds.length())
+                .mapToObj(itemIds::idAt)
+                .filter(id -> ownerId.equals(version.ownerOf(id))))
+                .map(version::find);
+    }
+
+    /**
+     * Просматривает доступные вещи после курсора по возрастанию id частями, каждая из которых
+     * останавливается, набрав from + size вещей или исчерпав бюджет времени.
+     */
+    @Override
+    public ItemSearchResult searchByText(String text, Pagination pagination) {
+        int[] query = text.codePoints().toArray();
+        long after = pagination.after() != null ? pagination.after() : Long.MIN_VALUE;
+        int wanted = (int) Math.min((long) pagination.from() + pagination.size(), Integer.MAX_VALUE);
+        List<List<Item>> found = new ArrayList<>();
+        boolean partial = searchExecutor.run(parts(current.get().chunks().values(after, null).toList()),
+                (chunks, expired) -> search(chunks, query, after, wanted, expired), found);
+        if (partial) {
+            log.debug("Поиск по тексту '{}' не уложился в бюджет времени, результат неполный", text);
+        }
+        return new ItemSearchResult(pagination.apply(found.stream().flatMap(List::stream)), partial);
+    }
+
+    /**
+     * Каждая часть отбирает limit лучших вещей своей кучей, затем кучи частей сливаются в одну.
+     */
+    @Override
+    public ItemSearchResult searchTopByText(String text, int limit) {
+        int[] query = text.codePoints().toArray();
+        List<ItemRanking.TopK> found = new ArrayList<>();
+        boolean partial = searchExecutor.run(parts(current.get().chunks().values().toList()),
+                (chunks, expired) -> searchTop(chunks, query, text, limit, expired), found);
+        if (partial) {
+            log.debug("Поиск по тексту '{}' не уложился в бюджет времени, результат неполный", text);
+        }
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        found.forEach(top::addAll);
+        return new ItemSearchResult(top.items().stream(), partial);
+    }
+
+    @Override
+    public void delete(Long id) {
+        CompletableFuture<Void> commit = deleteAndLog(id);
+        compactTextsIfDue();
+        Journal.awaitCommitted(commit);
+    }
+
+    /**
+     * Удаляет вещи через индекс владельцев, не просматривая остальной каталог.
+     */
+    @Override
+    public Collection<Long> deleteByOwnerId(Long ownerId) {
+        List<Long> deletedIds = findByOwnerId(ownerId, Pagination.ALL).map(Item::getId).toList();
+        List<CompletableFuture<Void>> commits = deletedIds.stream().map(this::deleteAndLog).toList();
+        compactTextsIfDue();
+        commits.forEach(Journal::awaitCommitted);
+        return deletedIds;
+    }
+
+    /**
+     * Все вещи одной версии в порядке id — для снимка журнала.
+     */
+    @Override
+    public Stream<Item> findAll() {
+        return current.get().chunks().values().flatMap(ColumnChunk::items);
+    }
+
+    @Override
+    public long count() {
+        return current.get().count();
+    }
+
+    /**
+     * Байты колонок, блоков текстов (в куче или вне её) и списков id владельцев без заголовков объектов.
+     */
+    long footprintBytes() {
+        Version version = current.get();
+        long columns = version.chunks().values().mapToLong(ColumnChunk::footprintBytes).sum();
+        long owned = version.owners().values().mapToLong(itemIds -> (long) itemIds.length() * Long.BYTES).sum();
+        return columns + owned;
+    }
+
+    /**
+     * Байты, выданные арене текстов в текущем поколении, или 0, если тексты в куче.
+     */
+    long textArenaBytes() {
+        return textArena != null ? textArena.usedBytes() : 0;
+    }
+
+    /**
+     * Когда арена заняла новый буфер, сверяет выделенное с живыми блоками текущей версии и при избытке мусора
+     * переносит тексты всех кусков в новое поколение. Под всеми блокировками, поэтому ни одна запись
+     * не выделяет блок в старом поколении после его сброса; читатели дочитывают прежнюю версию.
+     */
+    private void compactTextsIfDue() {
+        if (textArena == null || !textArena.compactionDue()) {
+            return;
+        }
+        lockAll();
+        try {
+            Version version = current.get();
+            long liveBytes = version.chunks().values().mapToLong(ColumnChunk::textBytes).sum();
+            if (textArena.startGenerationIfSparse(liveBytes)) {
+                current.set(version.copyTexts(textArena));
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private CompletableFuture<Void> saveLocked(Item item) {
+        TreeMap<Long, Item> changes = new TreeMap<>();
+        changes.put(item.getId(), item);
+        current.getAndUpdate(version -> version.apply(changes, textArena));
+        return journal.append(new JournalRecord.ItemSaved(item));
+    }
+
+    private CompletableFuture<Void> deleteAndLog(Long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (current.get().versionOf(id) == null) {
+                return Journal.COMMITTED;
+            }
+            TreeMap<Long, Item> changes = new TreeMap<>();
+            changes.put(id, null);
+            current.getAndUpdate(version -> version.apply(changes, textArena));
+            return journal.append(new JournalRecord.ItemDeleted(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Делит куски на соседние части по числу шардов ItemSearchExecutor, но не больше числа кусков.
+     */
+    private List<List<ColumnChunk>> parts(List<ColumnChunk> chunks) {
+        int count = Math.max(1, Math.min(searchExecutor.shards(), chunks.size()));
+        List<List<ColumnChunk>> parts = new ArrayList<>(count);
+        for (int part = 0; part < count; part++) {
+            parts.add(chunks.subList(chunks.size() * part / count, chunks.size() * (part + 1) / count));
+        }
+        return parts;
+    }
+
+    private static List<Item> search(List<ColumnChunk> chunks, int[] query, long after, int wanted,
+                                     BooleanSupplier expired) {
+        List<Item> found = new ArrayList<>();
+        for (ColumnChunk chunk : chunks) {
+            if (found.size() >= wanted) {
+                break;
+            }
+            if (expired.getAsBoolean()) {
+                return null;
+            }
+            chunk.search(query, after, wanted - found.size(), found);
+        }
+        return found;
+    }
+
+    private static ItemRanking.TopK searchTop(List<ColumnChunk> chunks, int[] query, String text, int limit,
+                                              BooleanSupplier expired) {
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        for (ColumnChunk chunk : chunks) {
+            if (expired.getAsBoolean()) {
+                return null;
+            }
+            chunk.searchTop(query, text, top);
+        }
+        return top;
+    }
+
+    /**
+     * Новым сущностям пачки id выдаются одним блоком генератора, уже выданные id учитываются до этого.
+     */
+    private void assignIds(List<Item> items) {
+        int fresh = 0;
+        for (Item item : items) {
+            if (item.getId() == null) {
+                fresh++;
+            } else {
+                idGenerator.observe(item.getId());
+            }
+        }
+        long[] ids = idGenerator.nextIds(fresh);
+        int next = 0;
+        for (Item item : items) {
+            if (item.getId() == null) {
+                item.setId(ids[next++]);
+            }
+        }
+    }
+
+    private void assignId(Item item) {
+        if (item.getId() == null) {
+            item.setId(idGenerator.nextId());
+        } else {
+            idGenerator.observe(item.getId());
+        }
+    }
+
+    private static boolean isNextVersion(Long stored, Item item) {
+        return stored != null ? stored == item.getVersion() - 1 : item.getVersion() == 0;
+    }
+
+    private ReentrantLock lockFor(Long id) {
+        return locks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Неизменяемая версия хранилища: куски по id последней вещи куска, списки id вещей по владельцу
+     * и число вещей.
+     */
+    private record Version(PersistentSortedMap<Long, ColumnChunk> chunks,
+                           PersistentSortedMap<Long, OwnerItemIds> owners, long count) {
+        static final Version EMPTY = new Version(PersistentSortedMap.empty(), PersistentSortedMap.empty(), 0);
+
+        Item find(long id) {
+            ColumnChunk chunk = chunks.ceilingValue(id);
+            int slot = chunk != null ? chunk.slotOf(id) : -1;
+            return slot >= 0 ? chunk.itemAt(slot) : null;
+        }
+
+        Long versionOf(long id) {
+            ColumnChunk chunk = chunks.ceilingValue(id);
+            int slot = chunk != null ? chunk.slotOf(id) : -1;
+            return slot >= 0 ? chunk.versionAt(slot) : null;
+        }
+
+        Long ownerOf(long id) {
+            ColumnChunk chunk = chunks.ceilingValue(id);
+            int slot = chunk != null ? chunk.slotOf(id) : -1;
+            return slot >= 0 ? chunk.ownerAt(slot) : null;
+        }
+
+        /**
+         * Пересобирает куски, в которые попадают изменения, и переносит id между списками владельцев.
+         * Новые id больше всех прежних попадают в последний кусок.
+         *
+         * @param changes вещи по id; null - удалить вещь
+         */
+        Version apply(TreeMap<Long, Item> changes, OffHeapTextArena arena) {
+            Map<Long, Long> previousOwners = new HashMap<>();
+            long newCount = count;
+            for (Map.Entry<Long, Item> change : changes.entrySet()) {
+                Long owner = ownerOf(change.getKey());
+                if (owner != null) {
+                    previousOwners.put(change.getKey(), owner);
+                }
+                newCount += (change.getValue() != null ? 1 : 0) - (owner != null ? 1 : 0);
+            }
+            PersistentSortedMap<Long, ColumnChunk> newChunks = chunks;
+            Map.Entry<Long, Item> first = changes.firstEntry();
+            while (first != null) {
+                ColumnChunk chunk = newChunks.ceilingValue(first.getKey());
+                if (chunk == null) {
+                    chunk = newChunks.lastValue();
+                }
+                TreeMap<Long, Item> group = new TreeMap<>(chunk != null && chunk.lastId() >= first.getKey()
+                        ? changes.subMap(first.getKey(), true, chunk.lastId(), true)
+                        : changes.tailMap(first.getKey(), true));
+                newChunks = replace(newChunks, chunk, ColumnChunk.merge(chunk, group, arena), arena);
+                first = changes.higherEntry(group.lastKey());
+            }
+            PersistentSortedMap<Long, OwnerItemIds> newOwners = owners;
+            for (Map.Entry<Long, Item> change : changes.entrySet()) {
+                long id = change.getKey();
+                Long previous = previousOwners.get(id);
+                Long owner = change.getValue() != null ? change.getValue().getOwner().getId() : null;
+                if (previous != null && !previous.equals(owner)) {
+                    OwnerItemIds itemIds = newOwners.get(previous).markStale();
+                    newOwners = itemIds != null ? newOwners.put(previous, itemIds) : newOwners.remove(previous);
+                }
+                if (owner != null && !owner.equals(previous)) {
+                    OwnerItemIds itemIds = newOwners.get(owner);
+                    newOwners = newOwners.put(owner, itemIds != null ? itemIds.add(id) : OwnerItemIds.of(id));
+                }
+            }
+            // Уплотнять можно только после всех изменений пачки: живость id проверяется по новым кускам.
+            Version next = new Version(newChunks, newOwners, newCount);
+            for (Long previous : new HashSet<>(previousOwners.values())) {
+                OwnerItemIds itemIds = newOwners.get(previous);
+                if (itemIds != null) {
+                    newOwners = newOwners.put(previous,
+                            itemIds.compactIfSparse(itemId -> previous.equals(next.ownerOf(itemId))));
+                }
+            }
+            return new Version(newChunks, newOwners, newCount);
+        }
+
+        /**
+         * Та же версия с блоками текстов всех кусков, скопированными в арену.
+         */
+        Version copyTexts(OffHeapTextArena arena) {
+            PersistentSortedMap<Long, ColumnChunk> copied = PersistentSortedMap.empty();
+            for (ColumnChunk chunk : chunks.values().toList()) {
+                copied = copied.put(chunk.lastId(), chunk.copyTexts(arena));
+            }
+            return new Version(copied, owners, count);
+        }
+
+        /**
+         * Заменяет кусок собранными на его месте. Кусок, оставшийся меньше четверти CAPACITY, сливается
+         * со следующим, чтобы удаления не оставляли за собой россыпь мелких кусков.
+         */
+        private static PersistentSortedMap<Long, ColumnChunk> replace(PersistentSortedMap<Long, ColumnChunk> chunks,
+                                                                      ColumnChunk old, List<ColumnChunk> merged,
+                                                                      OffHeapTextArena arena) {
+            PersistentSortedMap<Long, ColumnChunk> result = old != null ? chunks.remove(old.lastId()) : chunks;
+            if (merged.size() == 1 && merged.get(0).size() < ColumnChunk.CAPACITY / 4) {
+                ColumnChunk small = merged.get(0);
+                ColumnChunk following = result.values(small.lastId(), null).findFirst().orElse(null);
+                if (following != null && small.size() + following.size() <= ColumnChunk.CAPACITY) {
+                    TreeMap<Long, Item> moved = new TreeMap<>();
+                    small.items().forEach(item -> moved.put(item.getId(), item));
+                    result = result.remove(following.lastId());
+                    merged = ColumnChunk.merge(following, moved, arena);
+                }
+            }
+            for (ColumnChunk chunk : merged) {
+                result = result.put(chunk.lastId(), chunk);
+            }
+            return result;
+        }
+    }
+}
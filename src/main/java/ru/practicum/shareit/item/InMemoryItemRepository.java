@@ -1,55 +1,367 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.common.PersistentSortedMap;
+import ru.practicum.shareit.id.IdGenerator;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище вещей: id выдаёт IdGenerator, вещи и индекс по владельцу
+ * хранятся в неизменяемой версии, которую писатели заменяют целиком, а списки читают без блокировок.
+ * Поисковый индекс разбит на шарды, которые просматриваются параллельно, и обновляется вместе с записью
+ * под блокировкой страйпа id вещи; выборки возвращаются в порядке возрастания id.
+ */
 @Slf4j
 @Repository
-public class InMemoryItemRepository {
-    private final Map<Long, Item> items = new HashMap<>();
+@Timed("shareit.repository")
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "shareit.items.storage", havingValue = "objects", matchIfMissing = true)
+public class InMemoryItemRepository implements SnapshotItemRepository {
+    private static final int LOCK_STRIPES = 64;
 
+    private final AtomicReference<Version> current = new AtomicReference<>(Version.EMPTY);
+    private final ShardedItemSearchIndex searchIndex;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final IdGenerator idGenerator;
+    private final Journal journal;
+
+    public InMemoryItemRepository() {
+        this(Journal.DISABLED);
+    }
+
+    public InMemoryItemRepository(Journal journal) {
+        this(journal, ItemSearchExecutor.SEQUENTIAL, IdGenerator.sequential());
+    }
+
+    /**
+     * @param journal        журнал, в который записывается каждое изменение; ожидание fsync идёт после снятия блокировки
+     * @param searchExecutor число шардов поискового индекса, пул для их просмотра и бюджет времени поиска
+     * @param idGenerator    источник id новых вещей
+     */
+    @Autowired
+    public InMemoryItemRepository(Journal journal, ItemSearchExecutor searchExecutor, IdGenerator idGenerator) {
+        this.journal = journal;
+        this.idGenerator = idGenerator;
+        this.searchIndex = new ShardedItemSearchIndex(searchExecutor);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
     public Item save(Item item) {
-        if (item.getId() == null) {
-            item.setId(getNextId());
+        assignId(item);
+        ReentrantLock lock = lockFor(item.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            commit = saveLocked(item);
+        } finally {
+            lock.unlock();
         }
-        items.put(item.getId(), item);
+        Journal.awaitCommitted(commit);
         return item;
     }
 
+    /**
+     * Версия сверяется под блокировкой страйпа, под которой идут все записи этой вещи.
+     */
+    @Override
+    public boolean saveIfVersion(Item item, long expectedVersion) {
+        ReentrantLock lock = lockFor(item.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            Item stored = current.get().items().get(item.getId());
+            if (stored == null || stored.getVersion() != expectedVersion) {
+                return false;
+            }
+            commit = saveLocked(item);
+        } finally {
+            lock.unlock();
+        }
+        Journal.awaitCommitted(commit);
+        return true;
+    }
+
+    /**
+     * Публикует всю пачку одной версией под всеми блокировками, вместо захвата блокировки на каждую вещь.
+     * Версии сверяются под теми же блокировками, поэтому параллельный saveIfVersion не теряется.
+     */
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        assignIds(items);
+        List<Item> saved = new ArrayList<>(items.size());
+        List<CompletableFuture<Void>> commits = new ArrayList<>(items.size());
+        lockAll();
+        try {
+            PersistentSortedMap<Long, Item> stored = current.get().items();
+            for (Item item : items) {
+                saved.add(isNextVersion(stored.get(item.getId()), item) ? item : null);
+            }
+            current.getAndUpdate(version -> {
+                Version next = version;
+                for (Item item : saved) {
+                    if (item != null) {
+                        next = next.with(item);
+                    }
+                }
+                return next;
+            });
+            for (Item item : saved) {
+                if (item != null) {
+                    searchIndex.put(item);
+                    commits.add(journal.append(new JournalRecord.ItemSaved(item)));
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+        commits.forEach(Journal::awaitCommitted);
+        return saved;
+    }
+
+    @Override
     public Optional<Item> findById(Long id) {
-        return Optional.ofNullable(items.get(id));
+        return Optional.ofNullable(current.get().items().get(id));
     }
 
-    public Collection<Item> findByOwnerId(Long ownerId) {
-        return items.values().stream()
-                .filter(item -> item.getOwner().getId().equals(ownerId))
-                .collect(Collectors.toList());
+    /**
+     * Страница берётся из одной версии хранилища диапазоном ключей (ownerId, id).
+     */
+    @Override
+    public Stream<Item> findByOwnerId(Long ownerId, Pagination pagination) {
+        long after = pagination.after() != null ? pagination.after() : Long.MIN_VALUE;
+        return pagination.apply(current.get().byOwner()
+                .values(new OwnerKey(ownerId, after), new OwnerKey(ownerId, Long.MAX_VALUE)));
     }
 
-    public Collection<Item> searchByText(String text) {
-        return items.values().stream()
-                .filter(item -> item.isAvailable() &&
-                        (item.getName().toLowerCase().contains(text) || item.getDescription().toLowerCase().contains(text)))
-                .collect(Collectors.toList());
+    /**
+     * Ищет через индекс триграмм, не просматривая весь каталог. Индекс обновляется после публикации версии,
+     * поэтому состояние найденной вещи в индексе может отличаться от прочитанной версии: тогда в результат
+     * идёт вещь из версии, если её собственный текст подходит под запрос.
+     */
+    @Override
+    public ItemSearchResult searchByText(String text, Pagination pagination) {
+        PersistentSortedMap<Long, Item> items = current.get().items();
+        ShardedItemSearchIndex.Hits hits = searchIndex.search(text);
+        if (hits.partial()) {
+            log.debug("Поиск по тексту '{}' не уложился в бюджет времени, результат неполный", text);
+        }
+        return new ItemSearchResult(pagination.apply(hits.items().stream()
+                .filter(item -> pagination.isAfter(item.getId()))
+                .map(item -> inVersion(items, item, text))
+                .filter(Objects::nonNull)), hits.partial());
     }
 
+    /**
+     * Каждый шард индекса отбирает limit лучших вещей ограниченной кучей по своим текстам в нижнем регистре.
+     * Вещи, проиндексированное состояние которых разошлось с прочитанной версией, откладываются
+     * и оцениваются заново по тексту из версии.
+     */
+    @Override
+    public ItemSearchResult searchTopByText(String text, int limit) {
+        PersistentSortedMap<Long, Item> items = current.get().items();
+        Queue<Item> changed = new ConcurrentLinkedQueue<>();
+        ShardedItemSearchIndex.Hits hits = searchIndex.searchTop(text, limit, item -> {
+            if (items.get(item.getId()) == item) {
+                return true;
+            }
+            changed.add(item);
+            return false;
+        });
+        if (hits.partial()) {
+            log.debug("Поиск по тексту '{}' не уложился в бюджет времени, результат неполный", text);
+        }
+        if (changed.isEmpty()) {
+            return new ItemSearchResult(hits.items().stream(), hits.partial());
+        }
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        for (Item item : hits.items()) {
+            offer(top, item, text);
+        }
+        for (Item item : changed) {
+            Item stored = inVersion(items, item, text);
+            if (stored != null) {
+                offer(top, stored, text);
+            }
+        }
+        return new ItemSearchResult(top.items().stream(), hits.partial());
+    }
+
+    @Override
     public void delete(Long id) {
-        items.remove(id);
+        Journal.awaitCommitted(deleteAndLog(id));
+    }
+
+    /**
+     * Удаляет вещи через индекс владельцев, не просматривая остальной каталог.
+     */
+    @Override
+    public Collection<Long> deleteByOwnerId(Long ownerId) {
+        List<Long> deletedIds = findByOwnerId(ownerId, Pagination.ALL).map(Item::getId).toList();
+        List<CompletableFuture<Void>> commits = deletedIds.stream().map(this::deleteAndLog).toList();
+        commits.forEach(Journal::awaitCommitted);
+        return deletedIds;
+    }
+
+    /**
+     * Все вещи одной версии в порядке id — для снимка журнала.
+     */
+    @Override
+    public Stream<Item> findAll() {
+        return current.get().items().values();
+    }
+
+    /**
+     * Размер хранится в корне дерева текущей версии.
+     */
+    @Override
+    public long count() {
+        return current.get().items().size();
+    }
+
+    private CompletableFuture<Void> deleteAndLog(Long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Item removed = current.getAndUpdate(version -> version.without(id)).items().get(id);
+            if (removed == null) {
+                return Journal.COMMITTED;
+            }
+            searchIndex.remove(id);
+            return journal.append(new JournalRecord.ItemDeleted(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Новым сущностям пачки id выдаются одним блоком генератора, уже выданные id учитываются до этого.
+     */
+    private void assignIds(List<Item> items) {
+        int fresh = 0;
+        for (Item item : items) {
+            if (item.getId() == null) {
+                fresh++;
+            } else {
+                idGenerator.observe(item.getId());
+            }
+        }
+        long[] ids = idGenerator.nextIds(fresh);
+        int next = 0;
+        for (Item item : items) {
+            if (item.getId() == null) {
+                item.setId(ids[next++]);
+            }
+        }
+    }
+
+    private void assignId(Item item) {
+        if (item.getId() == null) {
+            item.setId(idGenerator.nextId());
+        } else {
+            idGenerator.observe(item.getId());
+        }
+    }
+
+    /**
+     * Состояние найденной в индексе вещи в прочитанной версии или null, если в версии вещи нет
+     * или она там не подходит под запрос.
+     */
+    private static Item inVersion(PersistentSortedMap<Long, Item> items, Item indexed, String text) {
+        Item stored = items.get(indexed.getId());
+        if (stored == indexed) {
+            return stored;
+        }
+        return stored != null && stored.isAvailable() && (stored.getName().toLowerCase().contains(text)
+                || stored.getDescription().toLowerCase().contains(text)) ? stored : null;
+    }
+
+    private static void offer(ItemRanking.TopK top, Item item, String text) {
+        top.offer(item, item.getName().toLowerCase(), item.getDescription().toLowerCase(), text, found -> true);
+    }
+
+    private static boolean isNextVersion(Item stored, Item item) {
+        return stored != null ? stored.getVersion() == item.getVersion() - 1 : item.getVersion() == 0;
+    }
+
+    private CompletableFuture<Void> saveLocked(Item item) {
+        current.getAndUpdate(version -> version.with(item));
+        searchIndex.put(item);
+        return journal.append(new JournalRecord.ItemSaved(item));
+    }
+
+    private ReentrantLock lockFor(Long id) {
+        return locks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
     }
 
-    private long getNextId() {
-        long currentMaxId = items.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Ключ индекса по владельцу: вещи одного владельца идут подряд в порядке id.
+     */
+    private record OwnerKey(long ownerId, long itemId) implements Comparable<OwnerKey> {
+
+        @Override
+        public int compareTo(OwnerKey other) {
+            int byOwner = Long.compare(ownerId, other.ownerId);
+            return byOwner != 0 ? byOwner : Long.compare(itemId, other.itemId);
+        }
+    }
+
+    /**
+     * Неизменяемая версия хранилища: вещи по id и те же вещи по (ownerId, id).
+     */
+    private record Version(PersistentSortedMap<Long, Item> items, PersistentSortedMap<OwnerKey, Item> byOwner) {
+        static final Version EMPTY = new Version(PersistentSortedMap.empty(), PersistentSortedMap.empty());
+
+        Version with(Item item) {
+            Item previous = items.get(item.getId());
+            PersistentSortedMap<OwnerKey, Item> owners = byOwner;
+            if (previous != null && !previous.getOwner().getId().equals(item.getOwner().getId())) {
+                owners = owners.remove(ownerKey(previous));
+            }
+            return new Version(items.put(item.getId(), item), owners.put(ownerKey(item), item));
+        }
+
+        Version without(Long id) {
+            Item previous = items.get(id);
+            return previous != null ? new Version(items.remove(id), byOwner.remove(ownerKey(previous))) : this;
+        }
+
+        private static OwnerKey ownerKey(Item item) {
+            return new OwnerKey(item.getOwner().getId(), item.getId());
+        }
     }
 }
@@ -1,13 +1,30 @@
 package ru.practicum.shareit.item;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.cache.EntityTags;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.JsonStreamBody;
+import ru.practicum.shareit.common.JsonStreamWriter;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemJsonWriter;
 
-import java.util.Collection;
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Sprint add-controllers.
@@ -15,11 +32,18 @@ import java.util.Collection;
 @RestController
 @RequestMapping("/items")
 public class ItemController {
+    static final String SEARCH_PARTIAL_HEADER = "X-Search-Partial";
+
     private final ItemService itemService;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final JsonResponseCache<Long> itemResponseCache;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, JsonStreamWriter jsonStreamWriter,
+                          @Qualifier("itemResponseCache") JsonResponseCache<Long> itemResponseCache) {
         this.itemService = itemService;
+        this.jsonStreamWriter = jsonStreamWriter;
+        this.itemResponseCache = itemResponseCache;
     }
 
     @PostMapping
@@ -30,27 +54,129 @@ public class ItemController {
         return new ResponseEntity<>(createdItem, HttpStatus.OK);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResult<ItemDto>>> createItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                  @NotEmpty
+                                                                  @Size(max = BatchResult.MAX_BATCH_SIZE)
+                                                                  @RequestBody List<ItemDto> itemDtos) {
+        return new ResponseEntity<>(itemService.createItems(userId, itemDtos), HttpStatus.OK);
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<List<BatchResult<ItemDto>>> updateItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                  @NotEmpty
+                                                                  @Size(max = BatchResult.MAX_BATCH_SIZE)
+                                                                  @RequestBody List<ItemDto> itemDtos) {
+        return new ResponseEntity<>(itemService.updateItems(userId, itemDtos), HttpStatus.OK);
+    }
+
+    /**
+     * С If-Match вещь обновляется, только если её ETag не изменился, иначе 412. В ответе - ETag новой версии.
+     */
     @PatchMapping("/{itemId}")
     public ResponseEntity<ItemDto> updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                                               @PathVariable Long itemId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch,
                                               @RequestBody ItemDto itemDto) {
-        ItemDto updatedItemDto = itemService.updateItem(userId, itemId, itemDto);
-        return new ResponseEntity<>(updatedItemDto, HttpStatus.OK);
+        ItemDto updatedItemDto = itemService.updateItem(userId, itemId, itemDto,
+                EntityTags.versionCondition(ifMatch, itemId));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(itemId, updatedItemDto.getVersion()))
+                .body(updatedItemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<ItemDto> getItemById(@PathVariable Long itemId) {
-        ItemDto itemDto = itemService.getItemById(itemId);
-        return new ResponseEntity<>(itemDto, HttpStatus.OK);
+    public ResponseEntity<byte[]> getItemById(@PathVariable Long itemId,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        return itemResponseCache.get(itemId, () -> itemService.getItemById(itemId), ItemDto::getVersion)
+                .toResponseEntity(ifNoneMatch);
     }
 
     @GetMapping
-    public Collection<ItemDto> getUserItems(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getUserItems(userId);
+    public ResponseEntity<JsonStreamBody> getUserItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                       @RequestParam(required = false) Long after,
+                                                       @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                       @Positive @RequestParam(required = false) Integer size) {
+        return jsonStreamWriter.array(itemService.streamUserItems(userId, Pagination.of(after, from, size)),
+                ItemJsonWriter::write);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<JsonStreamBody> streamUserItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                          @RequestParam(required = false) Long after,
+                                                          @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                          @Positive @RequestParam(required = false) Integer size) {
+        return jsonStreamWriter.ndjson(itemService.streamUserItems(userId, Pagination.of(after, from, size)),
+                ItemJsonWriter::write);
     }
 
     @GetMapping("/search")
-    public Collection<ItemDto> searchItems(@RequestParam String text) {
-        return itemService.searchItems(text);
+    public ResponseEntity<JsonStreamBody> searchItems(@RequestParam String text,
+                                                      @RequestParam(required = false) Long after,
+                                                      @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                      @Positive @RequestParam(required = false) Integer size,
+                                                      @Positive @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                      LocalDate availableFrom,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                      LocalDate availableTo) {
+        ItemSearchResult result = search(text, after, from, size, limit, availableFrom, availableTo);
+        return markPartial(result, jsonStreamWriter.array(result.items(), ItemJsonWriter::write));
+    }
+
+    @GetMapping(path = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<JsonStreamBody> streamSearchItems(@RequestParam String text,
+                                                            @RequestParam(required = false) Long after,
+                                                            @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                            @Positive @RequestParam(required = false) Integer size,
+                                                            @Positive @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                            LocalDate availableFrom,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                            LocalDate availableTo) {
+        ItemSearchResult result = search(text, after, from, size, limit, availableFrom, availableTo);
+        return markPartial(result, jsonStreamWriter.ndjson(result.items(), ItemJsonWriter::write));
+    }
+
+    /**
+     * С параметром limit вещи ранжируются по релевантности, и страницы по id к ним неприменимы.
+     * Параметры availableFrom и availableTo (from уже занят под смещение страницы) задают дни,
+     * в которые вещь должна быть свободна; с limit они не совмещаются.
+     */
+    private ItemSearchResult search(String text, Long after, int from, Integer size, Integer limit,
+                                    LocalDate availableFrom, LocalDate availableTo) {
+        if ((availableFrom == null) != (availableTo == null)) {
+            throw new ValidationException("Параметры availableFrom и availableTo указываются вместе");
+        }
+        if (limit == null) {
+            return availableFrom == null
+                    ? itemService.streamSearchItems(text, Pagination.of(after, from, size))
+                    : itemService.streamAvailableSearchItems(text, Pagination.of(after, from, size),
+                    availableFrom, availableTo);
+        }
+        if (after != null || from != 0 || size != null) {
+            throw new ValidationException("Параметр limit нельзя совмещать с after, from и size");
+        }
+        if (availableFrom != null) {
+            throw new ValidationException("Параметр limit нельзя совмещать с availableFrom и availableTo");
+        }
+        return itemService.streamTopSearchItems(text, limit);
+    }
+
+    /**
+     * Заголовок X-Search-Partial сообщает, что поиск не уложился в бюджет времени и просмотрел не весь каталог.
+     */
+    private static ResponseEntity<JsonStreamBody> markPartial(ItemSearchResult result,
+                                                              ResponseEntity<JsonStreamBody> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(SEARCH_PARTIAL_HEADER, String.valueOf(result.partial()))
+                .body(response.getBody());
     }
 }
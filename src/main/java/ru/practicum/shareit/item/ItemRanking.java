@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Релевантность найденной вещи: совпадение в названии выше совпадения в описании, затем более раннее
+ * вхождение, затем больше вхождений в названии и описании; при равенстве выше вещь с меньшим id.
+ */
+final class ItemRanking {
+
+    private ItemRanking() {
+    }
+
+    private static int occurrences(String source, String text) {
+        int count = 0;
+        for (int i = source.indexOf(text); i >= 0; i = source.indexOf(text, i + text.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Оценка вещи; меньшая по compareTo оценка релевантнее.
+     */
+    record Ranked(Item item, boolean inName, int position, int frequency) implements Comparable<Ranked> {
+
+        @Override
+        public int compareTo(Ranked other) {
+            if (inName != other.inName) {
+                return inName ? -1 : 1;
+            }
+            int byPosition = Integer.compare(position, other.position);
+            if (byPosition != 0) {
+                return byPosition;
+            }
+            int byFrequency = Integer.compare(other.frequency, frequency);
+            return byFrequency != 0 ? byFrequency : Long.compare(item.getId(), other.item.getId());
+        }
+    }
+
+    /**
+     * Ограниченная куча из limit лучших оценок: в голове худшая из отобранных, и новая оценка
+     * либо отбрасывается сравнением с ней, либо вытесняет её. Память и сортировка - O(limit),
+     * а не O(число совпадений).
+     */
+    static final class TopK {
+        private static final int MAX_INITIAL_CAPACITY = 64;
+
+        private final int limit;
+        private final PriorityQueue<Ranked> heap;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, MAX_INITIAL_CAPACITY) + 1, Collections.reverseOrder());
+        }
+
+        /**
+         * Оценивает вещь и добавляет её, если она лучше худшей из отобранных. Вещь, которая проигрывает
+         * уже по месту совпадения, отбрасывается без подсчёта вхождений, проверки visible и создания оценки.
+         *
+         * @param name        название вещи в нижнем регистре
+         * @param description описание вещи в нижнем регистре
+         * @param text        искомый текст в нижнем регистре
+         */
+        void offer(Item item, String name, String description, String text, Predicate<Item> visible) {
+            int nameIndex = name.indexOf(text);
+            boolean inName = nameIndex >= 0;
+            int position = inName ? nameIndex : description.indexOf(text);
+            if (position < 0 || !admits(inName, position)) {
+                return;
+            }
+            Ranked worst = heap.size() < limit ? null : heap.peek();
+            Ranked ranked = new Ranked(item, inName, position, occurrences(name, text) + occurrences(description, text));
+            if ((worst == null || ranked.compareTo(worst) < 0) && visible.test(item)) {
+                if (worst != null) {
+                    heap.poll();
+                }
+                heap.add(ranked);
+            }
+        }
+
+        /**
+         * Может ли совпадение с таким местом попасть в отобранные: false, если оно хуже худшего из них
+         * уже по месту, и считать вхождения не нужно.
+         */
+        boolean admits(boolean inName, int position) {
+            if (limit == 0) {
+                return false;
+            }
+            Ranked worst = heap.size() < limit ? null : heap.peek();
+            return worst == null || !(worst.inName && !inName || worst.inName == inName && worst.position < position);
+        }
+
+        private void offer(Ranked ranked) {
+            if (heap.size() < limit) {
+                heap.add(ranked);
+            } else if (ranked.compareTo(heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+
+        void addAll(TopK other) {
+            other.heap.forEach(this::offer);
+        }
+
+        /**
+         * Отобранные вещи от самой релевантной.
+         */
+        List<Item> items() {
+            List<Ranked> ranked = new ArrayList<>(heap);
+            Collections.sort(ranked);
+            return ranked.stream().map(Ranked::item).toList();
+        }
+    }
+}
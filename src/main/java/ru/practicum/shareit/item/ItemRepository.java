@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище вещей. Реализация выбирается профилем: в памяти по умолчанию, JDBC в профиле jdbc;
+ * раскладка в памяти - свойством shareit.items.storage (objects или columnar).
+ * Выборки возвращают вещи в порядке возрастания id; потоки нужно закрыть после чтения.
+ */
+public interface ItemRepository {
+
+    Item save(Item item);
+
+    /**
+     * Сохраняет вещи одной пачкой: новые получают id, а вещь с id записывается, только если в хранилище
+     * лежит её предыдущая версия (version - 1, для ещё не сохранённой вещи - version 0). Это та же проверка
+     * compare-and-set, что в saveIfVersion, сделанная для каждого элемента пачки.
+     *
+     * @return список той же длины, что и items; на месте вещей, не прошедших проверку версии, - null
+     */
+    List<Item> saveAll(List<Item> items);
+
+    /**
+     * Сохраняет вещь, только если версия в хранилище всё ещё равна expectedVersion (compare-and-set).
+     *
+     * @return false, если вещь за это время изменили или удалили
+     */
+    boolean saveIfVersion(Item item, long expectedVersion);
+
+    Optional<Item> findById(Long id);
+
+    Stream<Item> findByOwnerId(Long ownerId, Pagination pagination);
+
+    /**
+     * Ищет доступные вещи по подстроке в названии или описании без учёта регистра.
+     * Реализация может вернуть неполный результат, если поиск не уложился в отведённое время.
+     *
+     * @param text искомый текст в нижнем регистре
+     */
+    ItemSearchResult searchByText(String text, Pagination pagination);
+
+    /**
+     * Ищет как searchByText, но возвращает не больше limit самых релевантных вещей: совпадение в названии
+     * выше совпадения в описании, затем более раннее вхождение, затем больше вхождений.
+     *
+     * @param text искомый текст в нижнем регистре
+     */
+    ItemSearchResult searchTopByText(String text, int limit);
+
+    void delete(Long id);
+
+    /**
+     * Удаляет все вещи владельца.
+     *
+     * @return id удалённых вещей
+     */
+    Collection<Long> deleteByOwnerId(Long ownerId);
+
+    /**
+     * Возвращает число вещей в хранилище.
+     */
+    long count();
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Параллельный поиск хранилища в памяти: shareit.search.shards шардов (0 - по числу ядер)
+ * и бюджет времени shareit.search.budget на один запрос.
+ */
+@Configuration
+@Profile("!jdbc")
+public class ItemSearchConfig {
+
+    @Bean
+    public ItemSearchExecutor itemSearchExecutor(@Value("${shareit.search.shards:0}") int shards,
+                                                 @Value("${shareit.search.budget:200ms}") Duration budget) {
+        return new ItemSearchExecutor(shards > 0 ? shards : Runtime.getRuntime().availableProcessors(), budget);
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Настройки параллельного поиска: число шардов индекса, отдельный пул для их просмотра
+ * и бюджет времени на один запрос. При одном шарде пул не создаётся и поиск идёт в потоке запроса.
+ */
+public final class ItemSearchExecutor implements AutoCloseable {
+
+    /**
+     * Один шард без ограничения по времени - прежний последовательный поиск.
+     */
+    public static final ItemSearchExecutor SEQUENTIAL = new ItemSearchExecutor(1, Duration.ZERO);
+
+    private final int shards;
+    private final long budgetNanos;
+    private final ExecutorService pool;
+
+    /**
+     * @param shards число шардов и потоков пула
+     * @param budget сколько ждать шарды, прежде чем вернуть неполный результат; ноль - ждать все
+     */
+    public ItemSearchExecutor(int shards, Duration budget) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Число шардов поиска должно быть положительным: " + shards);
+        }
+        this.shards = shards;
+        this.budgetNanos = budget.toNanos();
+        this.pool = shards > 1 ? Executors.newFixedThreadPool(shards, new SearchThreadFactory()) : null;
+    }
+
+    int shards() {
+        return shards;
+    }
+
+    ExecutorService pool() {
+        return pool;
+    }
+
+    /**
+     * Запускает поиск по всем частям (при одной части - в текущем потоке) и ждёт их не дольше бюджета.
+     * Часть, заметившая истечение срока, бросает просмотр и возвращает null.
+     *
+     * @param found сюда в порядке частей добавляются результаты успевших частей
+     * @return true, если какая-то часть не успела
+     */
+    <P, T> boolean run(List<P> parts, BiFunction<P, BooleanSupplier, T> search, List<T> found) {
+        BooleanSupplier expired = deadline();
+        if (parts.size() == 1 || pool == null) {
+            boolean partial = false;
+            for (P part : parts) {
+                T result = partial ? null : search.apply(part, expired);
+                if (result != null) {
+                    found.add(result);
+                }
+                partial |= result == null;
+            }
+            return partial;
+        }
+        List<CompletableFuture<T>> running = new ArrayList<>(parts.size());
+        for (P part : parts) {
+            running.add(CompletableFuture.supplyAsync(() -> search.apply(part, expired), pool));
+        }
+        awaitWithinBudget(CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)));
+        int finished = 0;
+        for (CompletableFuture<T> part : running) {
+            T result = part.isDone() ? part.join() : null;
+            if (result != null) {
+                found.add(result);
+                finished++;
+            }
+        }
+        return finished < running.size();
+    }
+
+    private void awaitWithinBudget(CompletableFuture<Void> all) {
+        try {
+            if (budgetNanos > 0) {
+                all.get(budgetNanos, TimeUnit.NANOSECONDS);
+            } else {
+                all.get();
+            }
+        } catch (TimeoutException e) {
+            // Неуспевшие части сами прекратят просмотр по истечении срока.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка параллельного поиска вещей", e.getCause());
+        }
+    }
+
+    private BooleanSupplier deadline() {
+        if (budgetNanos <= 0) {
+            return () -> false;
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        return () -> System.nanoTime() - deadline >= 0;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class SearchThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "item-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Инвертированный индекс триграмм по названию и описанию доступных вещей.
+ * Хранит тексты в нижнем регистре, поэтому поиск не создаёт новых строк для каждой вещи.
+ * Обновления одной вещи должны быть упорядочены вызывающим кодом (блокировкой в репозитории).
+ */
+class ItemSearchIndex {
+    static final int GRAM_LENGTH = 3;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final ConcurrentMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, IndexedText> texts = new ConcurrentHashMap<>();
+
+    /**
+     * Индексирует текущее состояние вещи: недоступные вещи из индекса убираются.
+     */
+    void put(Item item) {
+        IndexedText text = item.isAvailable()
+                ? new IndexedText(item.getName().toLowerCase(), item.getDescription().toLowerCase(), item)
+                : null;
+        IndexedText previous = text != null ? texts.put(item.getId(), text) : texts.remove(item.getId());
+        updatePostings(item.getId(), previous, text);
+    }
+
+    void remove(Long itemId) {
+        updatePostings(itemId, texts.remove(itemId), null);
+    }
+
+    /**
+     * Возвращает проиндексированные состояния доступных вещей, в названии или описании которых есть
+     * подстрока text, в порядке возрастания id. Текст должен быть уже приведён к нижнему регистру.
+     */
+    List<Item> search(String text) {
+        return search(text, () -> false);
+    }
+
+    /**
+     * То же, но прекращает просмотр, как только expired вернёт true.
+     *
+     * @return найденные вещи или null, если время истекло раньше, чем просмотр закончился
+     */
+    List<Item> search(String text, BooleanSupplier expired) {
+        List<Item> result = new ArrayList<>();
+        if (!forEachMatch(text, expired, indexed -> result.add(indexed.item()))) {
+            return null;
+        }
+        result.sort(Comparator.comparing(Item::getId));
+        return result;
+    }
+
+    /**
+     * Отбирает limit самых релевантных из найденных вещей, для которых visible вернёт true.
+     *
+     * @return отобранные вещи или null, если время истекло раньше, чем просмотр закончился
+     */
+    ItemRanking.TopK searchTop(String text, int limit, Predicate<Item> visible, BooleanSupplier expired) {
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        boolean completed = forEachMatch(text, expired,
+                indexed -> top.offer(indexed.item(), indexed.name(), indexed.description(), text, visible));
+        return completed ? top : null;
+    }
+
+    /**
+     * Передаёт action каждую вещь, содержащую text: короткий текст ищется просмотром всех текстов,
+     * длинный - пересечением списков его триграмм.
+     *
+     * @return false, если время истекло раньше, чем просмотр закончился
+     */
+    private boolean forEachMatch(String text, BooleanSupplier expired, Consumer<IndexedText> action) {
+        if (expired.getAsBoolean()) {
+            return false;
+        }
+        int checked = 0;
+        if (text.length() < GRAM_LENGTH) {
+            for (IndexedText indexed : texts.values()) {
+                if (++checked % DEADLINE_CHECK_INTERVAL == 0 && expired.getAsBoolean()) {
+                    return false;
+                }
+                if (indexed.contains(text)) {
+                    action.accept(indexed);
+                }
+            }
+            return true;
+        }
+        List<Set<Long>> candidates = new ArrayList<>();
+        for (String gram : grams(text)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return true;
+            }
+            candidates.add(ids);
+        }
+        candidates.sort(Comparator.comparingInt(Set::size));
+        for (Long id : candidates.get(0)) {
+            if (++checked % DEADLINE_CHECK_INTERVAL == 0 && expired.getAsBoolean()) {
+                return false;
+            }
+            if (containsInAll(candidates, id)) {
+                IndexedText indexed = texts.get(id);
+                if (indexed != null && indexed.contains(text)) {
+                    action.accept(indexed);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void updatePostings(Long itemId, IndexedText previous, IndexedText current) {
+        Set<String> oldGrams = previous != null ? previous.grams() : Set.of();
+        Set<String> newGrams = current != null ? current.grams() : Set.of();
+        for (String gram : oldGrams) {
+            if (!newGrams.contains(gram)) {
+                postings.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(itemId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        for (String gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                postings.compute(gram, (key, ids) -> {
+                    Set<Long> gramIds = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    gramIds.add(itemId);
+                    return gramIds;
+                });
+            }
+        }
+    }
+
+    private static boolean containsInAll(List<Set<Long>> candidates, Long id) {
+        for (int i = 1; i < candidates.size(); i++) {
+            if (!candidates.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private record IndexedText(String name, String description, Item item) {
+
+        boolean contains(String text) {
+            return name.contains(text) || description.contains(text);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.stream.Stream;
+
+/**
+ * Результат поиска вещей. Поток нужно закрыть после чтения.
+ *
+ * @param items   найденные вещи в порядке возрастания id
+ * @param partial true, если поиск не уложился в бюджет времени и часть каталога не просмотрена
+ */
+public record ItemSearchResult(Stream<Item> items, boolean partial) {
+
+    public static ItemSearchResult complete(Stream<Item> items) {
+        return new ItemSearchResult(items, false);
+    }
+}
@@ -1,18 +1,71 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Pagination;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
 
 public interface ItemService {
 
-    Collection<ItemDto> getUserItems(Long userId);
+    Collection<ItemDto> getUserItems(Long userId, Pagination pagination);
 
-    Collection<ItemDto> searchItems(String text);
+    /**
+     * Вещи пользователя без преобразования в dto - для потоковой записи ответа.
+     */
+    Stream<Item> streamUserItems(Long userId, Pagination pagination);
+
+    Collection<ItemDto> searchItems(String text, Pagination pagination);
+
+    /**
+     * Найденные вещи без преобразования в dto и признак неполного результата.
+     */
+    ItemSearchResult streamSearchItems(String text, Pagination pagination);
+
+    /**
+     * Как streamSearchItems, но только вещи, не занятые подтверждёнными бронированиями
+     * ни в один день с availableFrom по availableTo включительно.
+     */
+    ItemSearchResult streamAvailableSearchItems(String text, Pagination pagination,
+                                                LocalDate availableFrom, LocalDate availableTo);
+
+    /**
+     * Не больше limit самых релевантных из найденных вещей.
+     */
+    Collection<ItemDto> searchTopItems(String text, int limit);
+
+    ItemSearchResult streamTopSearchItems(String text, int limit);
 
     ItemDto getItemById(Long id);
 
     ItemDto createItem(Long userId, ItemDto itemDto);
 
-    ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto);
+    /**
+     * Обновляет вещь сравнением версий: изменение применяется к той версии, которая была прочитана.
+     *
+     * @param versionCondition условие на текущую версию из If-Match; null - без условия, при гонке
+     *                         с другим изменением обновление повторяется на свежей версии
+     * @throws ru.practicum.shareit.exception.PreconditionFailedException если версия не удовлетворяет условию
+     * @throws ru.practicum.shareit.exception.ConflictException           если гонку не удалось пройти за несколько попыток
+     */
+    ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto, LongPredicate versionCondition);
+
+    /**
+     * Создаёт вещи пользователя пачкой. Ошибка в одном элементе не отменяет остальные.
+     *
+     * @return результат для каждого элемента в порядке запроса
+     */
+    List<BatchResult<ItemDto>> createItems(Long userId, List<ItemDto> itemDtos);
+
+    /**
+     * Обновляет вещи пользователя пачкой; id вещи передаётся в каждом элементе.
+     *
+     * @return результат для каждого элемента в порядке запроса
+     */
+    List<BatchResult<ItemDto>> updateItems(Long userId, List<ItemDto> itemDtos);
 }
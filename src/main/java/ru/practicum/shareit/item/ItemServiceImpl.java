@@ -1,88 +1,307 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Pagination;
 import ru.practicum.shareit.exception.AccessDeniedException;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.feed.ItemChangeFeed;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("shareit.service")
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    static final int UPDATE_ATTEMPTS = 3;
 
-    private final InMemoryItemRepository itemRepository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final BookingRepository bookingRepository;
     private final UserService userService;
+    private final JsonResponseCache<Long> itemResponseCache;
+    private final ItemChangeFeed itemChangeFeed;
+    private final DistributionSummary ownerItemsSize;
+    private final DistributionSummary searchResultsSize;
+    private final Counter partialSearches;
+    private final Validator validator;
 
     @Autowired
-    public ItemServiceImpl(InMemoryItemRepository itemRepository, UserService userService) {
+    public ItemServiceImpl(ItemRepository itemRepository, ItemRequestRepository itemRequestRepository,
+                           BookingRepository bookingRepository, UserService userService,
+                           @Qualifier("itemResponseCache") JsonResponseCache<Long> itemResponseCache,
+                           ItemChangeFeed itemChangeFeed, MeterRegistry meterRegistry, Validator validator) {
         this.itemRepository = itemRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.bookingRepository = bookingRepository;
         this.userService = userService;
+        this.itemResponseCache = itemResponseCache;
+        this.itemChangeFeed = itemChangeFeed;
+        this.validator = validator;
+        this.ownerItemsSize = DistributionSummary.builder("shareit.items.results")
+                .description("Число вещей в ответе")
+                .tag("query", "owner")
+                .register(meterRegistry);
+        this.searchResultsSize = DistributionSummary.builder("shareit.items.results")
+                .description("Число вещей в ответе")
+                .tag("query", "search")
+                .register(meterRegistry);
+        this.partialSearches = Counter.builder("shareit.items.search.partial")
+                .description("Поиски, не уложившиеся в бюджет времени и вернувшие неполный результат")
+                .register(meterRegistry);
     }
 
     @Override
-    public Collection<ItemDto> getUserItems(Long userId) {
-        log.info("Поиск вещей пользователя с id: {}", userId);
-        return itemRepository.findByOwnerId(userId).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+    public Collection<ItemDto> getUserItems(Long userId, Pagination pagination) {
+        try (Stream<Item> items = streamUserItems(userId, pagination)) {
+            return items.map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Item> streamUserItems(Long userId, Pagination pagination) {
+        log.debug("Поиск вещей пользователя с id: {}, {}", userId, pagination);
+        return recordSize(itemRepository.findByOwnerId(userId, pagination), ownerItemsSize);
+    }
+
+    @Override
+    public Collection<ItemDto> searchItems(String text, Pagination pagination) {
+        try (Stream<Item> items = streamSearchItems(text, pagination).items()) {
+            return items.map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
     }
 
     @Override
-    public Collection<ItemDto> searchItems(String text) {
-        log.info("Поиск вещей по тексту: {}", text);
+    public ItemSearchResult streamSearchItems(String text, Pagination pagination) {
+        log.debug("Поиск вещей по тексту: {}, {}", text, pagination);
         if (text == null || text.trim().isEmpty()) {
-            return Collections.emptyList();
+            return ItemSearchResult.complete(recordSize(Stream.empty(), searchResultsSize));
         }
-        return itemRepository.searchByText(text.toLowerCase()).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return recordSearch(itemRepository.searchByText(text.toLowerCase(), pagination));
+    }
+
+    /**
+     * Хранилище ищет по тексту без страницы, занятость каждой найденной вещи проверяется по её карте
+     * занятых дней, и страница отсчитывается уже среди свободных вещей.
+     */
+    @Override
+    public ItemSearchResult streamAvailableSearchItems(String text, Pagination pagination,
+                                                       LocalDate availableFrom, LocalDate availableTo) {
+        log.debug("Поиск вещей по тексту: {}, свободных с {} по {}, {}", text, availableFrom, availableTo, pagination);
+        if (availableTo.isBefore(availableFrom)) {
+            throw new ValidationException("Дата availableTo не может быть раньше availableFrom");
+        }
+        if (text == null || text.trim().isEmpty()) {
+            return ItemSearchResult.complete(recordSize(Stream.empty(), searchResultsSize));
+        }
+        ItemSearchResult found = itemRepository.searchByText(text.toLowerCase(),
+                new Pagination(pagination.after(), 0, Integer.MAX_VALUE));
+        Stream<Item> available = found.items()
+                .filter(item -> !bookingRepository.isBooked(item.getId(), availableFrom, availableTo));
+        return recordSearch(new ItemSearchResult(pagination.apply(available), found.partial()));
+    }
+
+    @Override
+    public Collection<ItemDto> searchTopItems(String text, int limit) {
+        try (Stream<Item> items = streamTopSearchItems(text, limit).items()) {
+            return items.map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public ItemSearchResult streamTopSearchItems(String text, int limit) {
+        log.debug("Поиск {} самых релевантных вещей по тексту: {}", limit, text);
+        if (text == null || text.trim().isEmpty()) {
+            return ItemSearchResult.complete(recordSize(Stream.empty(), searchResultsSize));
+        }
+        return recordSearch(itemRepository.searchTopByText(text.toLowerCase(), limit));
     }
 
     @Override
     public ItemDto getItemById(Long itemId) {
-        log.info("Поиск вещи с id: {}", itemId);
+        log.debug("Поиск вещи с id: {}", itemId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена"));
         return ItemMapper.toItemDto(item);
     }
 
     @Override
     public ItemDto createItem(Long userId, ItemDto itemDto) {
-        log.info("Добавление вещи пользователем с id: {}, вещь {}", userId, itemDto);
+        log.debug("Добавление вещи пользователем с id: {}, вещь {}", userId, itemDto);
         User owner = userService.getUserById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
         Item item = ItemMapper.toItem(itemDto);
         item.setOwner(owner);
+        if (itemDto.getRequestId() != null) {
+            item.setRequest(itemRequestRepository.findById(itemDto.getRequestId())
+                    .orElseThrow(() -> new NotFoundException("Запрос не найден")));
+        }
         Item createdItem = itemRepository.save(item);
+        if (createdItem.getRequest() != null) {
+            itemRequestRepository.addAnswer(createdItem.getRequest().getId(), createdItem.getId());
+        }
+        itemChangeFeed.publish(createdItem);
         return ItemMapper.toItemDto(createdItem);
     }
 
     @Override
-    public ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto) {
-        log.info("Обновление вещи пользователем с id: {}, вещь {}", userId, itemDto);
-        Item existingItem = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+    public ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto, LongPredicate versionCondition) {
+        log.debug("Обновление вещи пользователем с id: {}, вещь {}", userId, itemDto);
+        for (int attempt = 1; ; attempt++) {
+            Item existingItem = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+
+            if (!existingItem.getOwner().getId().equals(userId)) {
+                throw new AccessDeniedException("У пользователя нет прав на изменение этой вещи");
+            }
+            if (versionCondition != null && !versionCondition.test(existingItem.getVersion())) {
+                throw new PreconditionFailedException("Вещь изменилась, текущая версия " + existingItem.getVersion());
+            }
+
+            Item updatedItem = ItemMapper.toUpdatedItem(existingItem, itemDto);
+            if (itemRepository.saveIfVersion(updatedItem, existingItem.getVersion())) {
+                itemResponseCache.invalidate(itemId);
+                itemChangeFeed.publish(updatedItem);
+                return ItemMapper.toItemDto(updatedItem);
+            }
+            if (versionCondition != null) {
+                throw new PreconditionFailedException("Вещь изменили параллельным запросом");
+            }
+            if (attempt == UPDATE_ATTEMPTS) {
+                throw new ConflictException("Вещь одновременно изменяют другие запросы, повторите обновление");
+            }
+            log.debug("Вещь {} изменили параллельно, попытка {}", itemId, attempt);
+        }
+    }
 
-        if (!existingItem.getOwner().getId().equals(userId)) {
-            throw new AccessDeniedException("У пользователя нет прав на изменение этой вещи");
+    /**
+     * Проверяет всю пачку, затем сохраняет прошедшие проверку вещи одним вызовом saveAll.
+     */
+    @Override
+    public List<BatchResult<ItemDto>> createItems(Long userId, List<ItemDto> itemDtos) {
+        log.debug("Пакетное добавление вещей пользователем с id: {}, вещей {}", userId, itemDtos.size());
+        User owner = userService.getUserById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        List<BatchResult<ItemDto>> results = new ArrayList<>(Collections.nCopies(itemDtos.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+            if (!violations.isEmpty()) {
+                results.set(i, BatchResult.invalid(i, violations));
+                continue;
+            }
+            Item item = ItemMapper.toItem(itemDto);
+            item.setOwner(owner);
+            if (itemDto.getRequestId() != null) {
+                Optional<ItemRequest> request = itemRequestRepository.findById(itemDto.getRequestId());
+                if (request.isEmpty()) {
+                    results.set(i, BatchResult.failed(i, HttpStatus.NOT_FOUND, "Запрос не найден"));
+                    continue;
+                }
+                item.setRequest(request.get());
+            }
+            indexes.add(i);
+            items.add(item);
         }
+        List<Item> createdItems = itemRepository.saveAll(items);
+        for (int k = 0; k < indexes.size(); k++) {
+            Item createdItem = createdItems.get(k);
+            if (createdItem.getRequest() != null) {
+                itemRequestRepository.addAnswer(createdItem.getRequest().getId(), createdItem.getId());
+            }
+            itemChangeFeed.publish(createdItem);
+            results.set(indexes.get(k), BatchResult.ok(indexes.get(k), ItemMapper.toItemDto(createdItem)));
+        }
+        return results;
+    }
 
-        if (itemDto.getName() != null) {
-            existingItem.setName(itemDto.getName());
+    /**
+     * Проверяет права на каждую вещь, затем сохраняет изменённые копии одним вызовом saveAll. Вещь, которую
+     * после чтения изменил параллельный запрос, не перезаписывается и получает в пачке статус 409.
+     */
+    @Override
+    public List<BatchResult<ItemDto>> updateItems(Long userId, List<ItemDto> itemDtos) {
+        log.debug("Пакетное обновление вещей пользователем с id: {}, вещей {}", userId, itemDtos.size());
+        List<BatchResult<ItemDto>> results = new ArrayList<>(Collections.nCopies(itemDtos.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        Set<Long> itemIds = new HashSet<>();
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            if (itemDto.getId() == null) {
+                results.set(i, BatchResult.failed(i, HttpStatus.BAD_REQUEST, "Не указан id вещи"));
+                continue;
+            }
+            if (!itemIds.add(itemDto.getId())) {
+                results.set(i, BatchResult.failed(i, HttpStatus.BAD_REQUEST,
+                        "Вещь с id " + itemDto.getId() + " уже есть в пакете"));
+                continue;
+            }
+            Optional<Item> existingItem = itemRepository.findById(itemDto.getId());
+            if (existingItem.isEmpty()) {
+                results.set(i, BatchResult.failed(i, HttpStatus.NOT_FOUND, "Вещь не найдена"));
+            } else if (!existingItem.get().getOwner().getId().equals(userId)) {
+                results.set(i, BatchResult.failed(i, HttpStatus.FORBIDDEN,
+                        "У пользователя нет прав на изменение этой вещи"));
+            } else {
+                indexes.add(i);
+                items.add(ItemMapper.toUpdatedItem(existingItem.get(), itemDto));
+            }
         }
-        if (itemDto.getDescription() != null) {
-            existingItem.setDescription(itemDto.getDescription());
+        List<Item> updatedItems = itemRepository.saveAll(items);
+        for (int k = 0; k < indexes.size(); k++) {
+            Item updatedItem = updatedItems.get(k);
+            if (updatedItem == null) {
+                results.set(indexes.get(k), BatchResult.failed(indexes.get(k), HttpStatus.CONFLICT,
+                        "Вещь изменили параллельным запросом, повторите обновление"));
+                continue;
+            }
+            itemResponseCache.invalidate(updatedItem.getId());
+            itemChangeFeed.publish(updatedItem);
+            results.set(indexes.get(k), BatchResult.ok(indexes.get(k), ItemMapper.toItemDto(updatedItem)));
         }
-        if (itemDto.getAvailable() != null) {
-            existingItem.setAvailable(itemDto.getAvailable());
+        return results;
+    }
+
+    /**
+     * Записывает число прочитанных элементов при закрытии потока, так что учитываются
+     * и списки, и NDJSON-ответы.
+     */
+    private ItemSearchResult recordSearch(ItemSearchResult result) {
+        if (result.partial()) {
+            partialSearches.increment();
         }
+        return new ItemSearchResult(recordSize(result.items(), searchResultsSize), result.partial());
+    }
 
-        Item updatedItem = itemRepository.save(existingItem);
-        return ItemMapper.toItemDto(updatedItem);
+    private static <T> Stream<T> recordSize(Stream<T> stream, DistributionSummary summary) {
+        AtomicInteger count = new AtomicInteger();
+        return stream.peek(element -> count.incrementAndGet())
+                .onClose(() -> summary.record(count.get()));
     }
 }
@@ -0,0 +1,339 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище вещей в БД. Выборка по владельцу идёт по индексу (owner_id, id),
+ * владелец подтягивается тем же запросом.
+ * <p>
+ * Для поиска по подстроке хранилище само поддерживает таблицу триграмм item_trigrams (триграмма, id вещи):
+ * она одинаково работает в PostgreSQL и H2, в отличие от pg_trgm. Запрос из трёх и более символов сначала
+ * отбирает по первичному ключу таблицы вещи, у которых есть все его триграммы (не больше MAX_QUERY_TRIGRAMS),
+ * и только их проверяет LIKE. Запрос короче триграммы индекс не сужает, и такой поиск просматривает таблицу.
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("jdbc")
+public class JdbcItemRepository implements ItemRepository, SmartInitializingSingleton {
+
+    private static final String INSERT =
+            "INSERT INTO items (name, description, is_available, owner_id, request_id, version) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE items SET name = ?, description = ?, is_available = ?, owner_id = ?, "
+            + "request_id = ?, version = ? WHERE id = ?";
+    private static final String SELECT = "SELECT i.id, i.name, i.description, i.is_available, i.request_id, i.version, "
+            + "u.id AS owner_id, u.name AS owner_name, u.email AS owner_email "
+            + "FROM items i JOIN users u ON u.id = i.owner_id";
+    private static final String PAGE = " ORDER BY i.id LIMIT ? OFFSET ?";
+    private static final String TEXT_MATCH =
+            " AND (LOWER(i.name) LIKE ? ESCAPE '\\' OR LOWER(i.description) LIKE ? ESCAPE '\\')";
+    private static final int TRIGRAM = 3;
+    private static final int MAX_QUERY_TRIGRAMS = 8;
+    private static final int INDEX_BATCH = 1000;
+
+    private static final RowMapper<Item> ITEM_ROW_MAPPER = (rs, rowNum) -> {
+        User owner = new User();
+        owner.setId(rs.getLong("owner_id"));
+        owner.setName(rs.getString("owner_name"));
+        owner.setEmail(rs.getString("owner_email"));
+
+        Item item = new Item();
+        item.setId(rs.getLong("id"));
+        item.setName(rs.getString("name"));
+        item.setDescription(rs.getString("description"));
+        item.setAvailable(rs.getBoolean("is_available"));
+        item.setOwner(owner);
+        item.setVersion(rs.getLong("version"));
+        long requestId = rs.getLong("request_id");
+        if (!rs.wasNull()) {
+            ItemRequest request = new ItemRequest();
+            request.setId(requestId);
+            item.setRequest(request);
+        }
+        return item;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcItemRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Индексирует вещи, сохранённые до появления таблицы триграмм.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Item> batch = new ArrayList<>(INDEX_BATCH);
+        try (Stream<Item> unindexed = jdbcTemplate.queryForStream("SELECT i.id, i.name, i.description FROM items i "
+                + "WHERE NOT EXISTS (SELECT 1 FROM item_trigrams t WHERE t.item_id = i.id)", (rs, rowNum) -> {
+                    Item item = new Item();
+                    item.setId(rs.getLong("id"));
+                    item.setName(rs.getString("name"));
+                    item.setDescription(rs.getString("description"));
+                    return item;
+                })) {
+            unindexed.forEach(item -> {
+                batch.add(item);
+                if (batch.size() == INDEX_BATCH) {
+                    indexText(batch);
+                    batch.clear();
+                }
+            });
+        }
+        indexText(batch);
+    }
+
+    @Override
+    @Transactional
+    public Item save(Item item) {
+        if (item.getId() == null || jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE);
+            bind(ps, item);
+            ps.setLong(7, item.getId());
+            return ps;
+        }) == 0) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT, new String[]{"id"});
+                bind(ps, item);
+                return ps;
+            }, keyHolder);
+            item.setId(keyHolder.getKeyAs(Long.class));
+        }
+        indexText(List.of(item));
+        return item;
+    }
+
+    /**
+     * Версия сверяется в условии UPDATE, поэтому проверка и запись атомарны на стороне БД.
+     */
+    @Override
+    @Transactional
+    public boolean saveIfVersion(Item item, long expectedVersion) {
+        boolean saved = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE + " AND version = ?");
+            bind(ps, item);
+            ps.setLong(7, item.getId());
+            ps.setLong(8, expectedVersion);
+            return ps;
+        }) > 0;
+        if (saved) {
+            indexText(List.of(item));
+        }
+        return saved;
+    }
+
+    /**
+     * Новые вещи вставляются одним пакетом, существующие обновляются другим с проверкой версии в условии UPDATE,
+     * оба в одной транзакции.
+     */
+    @Override
+    @Transactional
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> saved = new ArrayList<>(items);
+        List<Item> created = items.stream().filter(item -> item.getId() == null).toList();
+        List<Integer> updatedIndexes = IntStream.range(0, items.size())
+                .filter(i -> items.get(i).getId() != null)
+                .boxed()
+                .toList();
+        if (!updatedIndexes.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE + " AND version = ?", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Item item = items.get(updatedIndexes.get(i));
+                    bind(ps, item);
+                    ps.setLong(7, item.getId());
+                    ps.setLong(8, item.getVersion() - 1);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return updatedIndexes.size();
+                }
+            });
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    saved.set(updatedIndexes.get(i), null);
+                }
+            }
+        }
+        if (!created.isEmpty()) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, created.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return created.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            }
+        }
+        indexText(saved.stream().filter(Objects::nonNull).toList());
+        return saved;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return jdbcTemplate.query(SELECT + " WHERE i.id = ?", ITEM_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public Stream<Item> findByOwnerId(Long ownerId, Pagination pagination) {
+        return jdbcTemplate.queryForStream(SELECT + " WHERE i.owner_id = ? AND i.id > ?" + PAGE, ITEM_ROW_MAPPER,
+                ownerId, after(pagination), pagination.size(), pagination.from());
+    }
+
+    /**
+     * Кандидатов отбирает таблица триграмм, а LIKE отсеивает вещи, у которых триграммы есть, но не подряд.
+     */
+    @Override
+    public ItemSearchResult searchByText(String text, Pagination pagination) {
+        String pattern = "%" + escapeLike(text) + "%";
+        List<String> trigrams = trigrams(text).stream().limit(MAX_QUERY_TRIGRAMS).toList();
+        if (trigrams.isEmpty()) {
+            return ItemSearchResult.complete(jdbcTemplate.queryForStream(SELECT
+                            + " WHERE i.is_available = TRUE AND i.id > ?" + TEXT_MATCH + PAGE,
+                    ITEM_ROW_MAPPER, after(pagination), pattern, pattern, pagination.size(), pagination.from()));
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(after(pagination));
+        args.add(after(pagination));
+        args.addAll(trigrams);
+        args.add(trigrams.size());
+        args.addAll(List.of(pattern, pattern, pagination.size(), pagination.from()));
+        return ItemSearchResult.complete(jdbcTemplate.queryForStream(SELECT
+                        + " WHERE i.is_available = TRUE AND i.id > ? AND i.id IN (SELECT t.item_id FROM item_trigrams t"
+                        + " WHERE t.item_id > ? AND t.trigram IN (" + String.join(", ", Collections.nCopies(
+                        trigrams.size(), "?")) + ") GROUP BY t.item_id HAVING COUNT(*) = ?)" + TEXT_MATCH + PAGE,
+                ITEM_ROW_MAPPER, args.toArray()));
+    }
+
+    /**
+     * Совпадения читаются потоком в порядке id, а ранжируются ограниченной кучей в памяти,
+     * так что в памяти не больше limit вещей.
+     */
+    @Override
+    public ItemSearchResult searchTopByText(String text, int limit) {
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        try (Stream<Item> found = searchByText(text, Pagination.ALL).items()) {
+            found.forEach(item -> top.offer(item, item.getName().toLowerCase(), item.getDescription().toLowerCase(),
+                    text, visible -> true));
+        }
+        return ItemSearchResult.complete(top.items().stream());
+    }
+
+    @Override
+    public void delete(Long id) {
+        jdbcTemplate.update("DELETE FROM items WHERE id = ?", id);
+    }
+
+    @Override
+    public Collection<Long> deleteByOwnerId(Long ownerId) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM items WHERE owner_id = ? ORDER BY id", Long.class,
+                ownerId);
+        jdbcTemplate.update("DELETE FROM items WHERE owner_id = ?", ownerId);
+        return ids;
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Заменяет триграммы вещей на триграммы их текущих названия и описания.
+     */
+    private void indexText(List<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM item_trigrams WHERE item_id = ?",
+                items.stream().map(item -> new Object[]{item.getId()}).toList());
+        List<Object[]> rows = new ArrayList<>();
+        for (Item item : items) {
+            Set<String> trigrams = trigrams(item.getName());
+            trigrams.addAll(trigrams(item.getDescription()));
+            for (String trigram : trigrams) {
+                rows.add(new Object[]{trigram, item.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO item_trigrams (trigram, item_id) VALUES (?, ?)", rows);
+    }
+
+    /**
+     * Различные триграммы текста в нижнем регистре в порядке вхождения. Режется по кодовым точкам,
+     * чтобы не разрывать суррогатные пары.
+     */
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if (text == null) {
+            return trigrams;
+        }
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        for (int i = 0; i + TRIGRAM <= codePoints.length; i++) {
+            trigrams.add(new String(codePoints, i, TRIGRAM));
+        }
+        return trigrams;
+    }
+
+    private static void bind(PreparedStatement ps, Item item) throws SQLException {
+        ps.setString(1, item.getName());
+        ps.setString(2, item.getDescription());
+        ps.setBoolean(3, item.isAvailable());
+        ps.setLong(4, item.getOwner().getId());
+        if (item.getRequest() != null) {
+            ps.setLong(5, item.getRequest().getId());
+        } else {
+            ps.setNull(5, Types.BIGINT);
+        }
+        ps.setLong(6, item.getVersion());
+    }
+
+    private static long after(Pagination pagination) {
+        return pagination.after() != null ? pagination.after() : 0L;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
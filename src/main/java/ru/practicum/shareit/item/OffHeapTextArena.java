@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общая память вне кучи для блоков текстов колоночного хранилища. Блоки нарезаются подряд из прямых буферов
+ * по SLAB_BYTES и не освобождаются по одному: пересобранный кусок оставляет прежний блок мусором в его слэбе.
+ * Когда мусора становится больше живых байтов, хранилище начинает новое поколение и копирует в него
+ * тексты текущих кусков, а старые слэбы освобождает GC целиком, когда их перестают читать.
+ */
+final class OffHeapTextArena {
+    static final int SLAB_BYTES = 1 << 20;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private ByteBuffer slab;
+    private int position;
+    private long usedBytes;
+    private volatile boolean compactionDue;
+
+    /**
+     * Блок больше четверти слэба получает собственный буфер, чтобы не оставлять в слэбах длинные хвосты.
+     *
+     * @return буфер ровно на bytes байт с позицией 0
+     */
+    ByteBuffer allocate(int bytes) {
+        lock.lock();
+        try {
+            usedBytes += bytes;
+            if (bytes > SLAB_BYTES / 4) {
+                compactionDue = true;
+                return ByteBuffer.allocateDirect(bytes);
+            }
+            if (slab == null || position + bytes > SLAB_BYTES) {
+                slab = ByteBuffer.allocateDirect(SLAB_BYTES);
+                position = 0;
+                compactionDue = true;
+            }
+            ByteBuffer block = slab.slice(position, bytes);
+            position += bytes;
+            return block;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Стоит ли проверить мусор: с прошлой проверки арена заняла новый прямой буфер.
+     */
+    boolean compactionDue() {
+        return compactionDue;
+    }
+
+    /**
+     * Начинает новое поколение, если выделено больше двух живых объёмов и ещё слэба сверху. Вызывается под
+     * блокировкой всех записей хранилища, и сразу после true живые тексты копируются в арену заново.
+     *
+     * @param liveBytes байты блоков текстов текущей версии хранилища
+     * @return начато ли новое поколение
+     */
+    boolean startGenerationIfSparse(long liveBytes) {
+        lock.lock();
+        try {
+            compactionDue = false;
+            if (usedBytes <= 2 * liveBytes + SLAB_BYTES) {
+                return false;
+            }
+            slab = null;
+            position = 0;
+            usedBytes = 0;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Байты, выданные блокам в текущем поколении, включая уже не нужные.
+     */
+    long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+/**
+ * Неизменяемый список id вещей одного владельца по возрастанию - первые length элементов массива.
+ * Новые id обычно больше прежних и дописываются в конец: версии списка делят один массив с запасом,
+ * а место под новый id занимается сдвигом общего счётчика claimed. Старые версии читают только свои
+ * length элементов и дописанного не видят, поэтому дописывание стоит O(1) в среднем, а не копию массива.
+ * Id удалённых и переданных другому владельцу вещей остаются в массиве, отсеиваются при чтении
+ * и вычищаются, когда их становится больше половины.
+ */
+final class OwnerItemIds {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final long[] ids;
+    private final int length;
+    private final int stale;
+    private final AtomicInteger claimed;
+
+    private OwnerItemIds(long[] ids, int length, int stale, AtomicInteger claimed) {
+        this.ids = ids;
+        this.length = length;
+        this.stale = stale;
+        this.claimed = claimed;
+    }
+
+    static OwnerItemIds of(long id) {
+        long[] ids = new long[INITIAL_CAPACITY];
+        ids[0] = id;
+        return new OwnerItemIds(ids, 1, 0, new AtomicInteger(1));
+    }
+
+    int length() {
+        return length;
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Сколько вещей у владельца на самом деле.
+     */
+    int live() {
+        return length - stale;
+    }
+
+    /**
+     * Первая позиция, id в которой больше after.
+     */
+    int upperBound(long after) {
+        int position = Arrays.binarySearch(ids, 0, length, after);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Добавляет вещь, которая только что перешла к владельцу. Если её id остался в списке от прежнего
+     * владения, он снова считается живым.
+     */
+    OwnerItemIds add(long id) {
+        int position = Arrays.binarySearch(ids, 0, length, id);
+        if (position >= 0) {
+            return new OwnerItemIds(ids, length, stale - 1, claimed);
+        }
+        position = -position - 1;
+        if (position == length && length < ids.length && claimed.compareAndSet(length, length + 1)) {
+            ids[length] = id;
+            return new OwnerItemIds(ids, length + 1, stale, claimed);
+        }
+        long[] grown = new long[Math.max(INITIAL_CAPACITY, length + (length >> 1) + 1)];
+        System.arraycopy(ids, 0, grown, 0, position);
+        grown[position] = id;
+        System.arraycopy(ids, position, grown, position + 1, length - position);
+        return new OwnerItemIds(grown, length + 1, stale, new AtomicInteger(length + 1));
+    }
+
+    /**
+     * Отмечает, что одна из вещей списка удалена или перешла к другому владельцу.
+     *
+     * @return список или null, если вещей у владельца не осталось
+     */
+    OwnerItemIds markStale() {
+        return stale + 1 < length ? new OwnerItemIds(ids, length, stale + 1, claimed) : null;
+    }
+
+    /**
+     * Вычищает устаревшие id, когда их больше половины списка.
+     *
+     * @param isLive принадлежит ли вещь с id владельцу
+     */
+    OwnerItemIds compactIfSparse(LongPredicate isLive) {
+        if (stale <= INITIAL_CAPACITY || stale * 2 <= length) {
+            return this;
+        }
+        long[] compacted = new long[Math.max(INITIAL_CAPACITY, length - stale + 1)];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            if (isLive.test(ids[i])) {
+                compacted[size++] = ids[i];
+            }
+        }
+        return new OwnerItemIds(compacted, size, 0, new AtomicInteger(size));
+    }
+}
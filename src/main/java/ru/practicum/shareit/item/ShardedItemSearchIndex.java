@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Индекс поиска, разбитый на шарды по id вещи. Шарды просматриваются параллельно в пуле ItemSearchExecutor,
+ * их отсортированные результаты сливаются. Шарды, не успевшие за бюджет времени, бросают просмотр,
+ * а результат помечается неполным.
+ */
+final class ShardedItemSearchIndex {
+
+    private final ItemSearchIndex[] shards;
+    private final ItemSearchExecutor executor;
+
+    ShardedItemSearchIndex(ItemSearchExecutor executor) {
+        this.executor = executor;
+        this.shards = new ItemSearchIndex[executor.shards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ItemSearchIndex();
+        }
+    }
+
+    void put(Item item) {
+        shardFor(item.getId()).put(item);
+    }
+
+    void remove(Long itemId) {
+        shardFor(itemId).remove(itemId);
+    }
+
+    /**
+     * @param text искомый текст в нижнем регистре
+     * @return вещи всех успевших шардов в порядке возрастания id
+     */
+    Hits search(String text) {
+        List<List<Item>> found = new ArrayList<>(shards.length);
+        boolean partial = executor.run(Arrays.asList(shards), (shard, expired) -> shard.search(text, expired), found);
+        int total = found.stream().mapToInt(List::size).sum();
+        List<Item> items = new ArrayList<>(total);
+        found.forEach(items::addAll);
+        // Результаты шардов уже отсортированы; TimSort сливает такие серии за O(n log k).
+        items.sort(Comparator.comparing(Item::getId));
+        return new Hits(items, partial);
+    }
+
+    /**
+     * Каждый шард отбирает limit лучших вещей своей кучей, затем кучи шардов сливаются в одну.
+     *
+     * @param visible какие из найденных вещей можно возвращать
+     * @return не больше limit вещей всех успевших шардов от самой релевантной
+     */
+    Hits searchTop(String text, int limit, Predicate<Item> visible) {
+        List<ItemRanking.TopK> found = new ArrayList<>(shards.length);
+        boolean partial = executor.run(Arrays.asList(shards),
+                (shard, expired) -> shard.searchTop(text, limit, visible, expired), found);
+        ItemRanking.TopK top = new ItemRanking.TopK(limit);
+        found.forEach(top::addAll);
+        return new Hits(top.items(), partial);
+    }
+
+    private ItemSearchIndex shardFor(Long itemId) {
+        return shards[Math.floorMod(Long.hashCode(itemId), shards.length)];
+    }
+
+    /**
+     * @param items   найденные вещи: по id для search, по релевантности для searchTop
+     * @param partial true, если часть шардов не успела за бюджет и их вещей в результате нет
+     */
+    record Hits(List<Item> items, boolean partial) {
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.stream.Stream;
+
+/**
+ * Хранилище вещей в памяти, которое журнал восстанавливает записями и выгружает в снимок целиком.
+ */
+public interface SnapshotItemRepository extends ItemRepository {
+
+    /**
+     * Все вещи в порядке id — для снимка журнала.
+     */
+    Stream<Item> findAll();
+}
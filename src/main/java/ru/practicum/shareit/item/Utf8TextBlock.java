@@ -0,0 +1,234 @@
+package ru.practicum.shareit.item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Неизменяемый блок текстов в UTF-8, в куче или в OffHeapTextArena. Одинаковые тексты блока хранятся один раз:
+ * ссылка на текст - смещение его записи (длина и байты) в буфере. Блок собирается целиком через Builder
+ * и после этого не меняется, поэтому его можно читать из любого потока без блокировок.
+ */
+final class Utf8TextBlock {
+    static final Utf8TextBlock EMPTY = new Utf8TextBlock(ByteBuffer.allocate(0));
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int EMPTY_SLOT = -1;
+
+    private final ByteBuffer buffer;
+
+    private Utf8TextBlock(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    String get(int ref) {
+        int length = buffer.getInt(ref);
+        int offset = ref + HEADER_BYTES;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Совпадает ли текст записи со строкой, без декодирования записи.
+     */
+    boolean textEquals(int ref, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return buffer.getInt(ref) == bytes.length
+                && buffer.slice(ref + HEADER_BYTES, bytes.length).mismatch(ByteBuffer.wrap(bytes)) < 0;
+    }
+
+    /**
+     * Ищет подстроку без учёта регистра, не декодируя текст в строку.
+     *
+     * @param text кодовые точки искомого текста в нижнем регистре
+     * @return индекс первого вхождения в символах UTF-16, как у String.indexOf, или -1
+     */
+    int indexOfIgnoreCase(int ref, int[] text) {
+        int end = ref + HEADER_BYTES + buffer.getInt(ref);
+        int index = 0;
+        for (int start = ref + HEADER_BYTES; start < end; start += sequenceLength(buffer.get(start))) {
+            if (matchesAt(start, end, text)) {
+                return index;
+            }
+            index += sequenceLength(buffer.get(start)) == 4 ? 2 : 1;
+        }
+        return text.length == 0 ? index : -1;
+    }
+
+    /**
+     * Байты, занятые буфером блока.
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Копия блока в арене вне кучи. Смещения записей не меняются, поэтому ссылки куска остаются верными.
+     */
+    Utf8TextBlock copyTo(OffHeapTextArena arena) {
+        ByteBuffer copy = arena.allocate(buffer.capacity());
+        copy.put(0, buffer, 0, buffer.capacity());
+        return new Utf8TextBlock(copy);
+    }
+
+    private boolean matchesAt(int start, int end, int[] text) {
+        int position = start;
+        for (int expected : text) {
+            if (position >= end) {
+                return false;
+            }
+            int length = sequenceLength(buffer.get(position));
+            if (Character.toLowerCase(decode(position, length)) != expected) {
+                return false;
+            }
+            position += length;
+        }
+        return true;
+    }
+
+    private int decode(int position, int length) {
+        int lead = buffer.get(position) & 0xFF;
+        if (length == 1) {
+            return lead;
+        }
+        int codePoint = lead & (0xFF >>> (length + 1));
+        for (int i = 1; i < length; i++) {
+            codePoint = (codePoint << 6) | (buffer.get(position + i) & 0x3F);
+        }
+        return codePoint;
+    }
+
+    private static int sequenceLength(byte lead) {
+        if (lead >= 0) {
+            return 1;
+        }
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        }
+        return (lead & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    /**
+     * Собирает блок в массиве в куче, убирая повторы открытой адресацией по хешу байтов,
+     * и в build() переносит его в буфер нужного вида.
+     */
+    static final class Builder {
+        private final OffHeapTextArena arena;
+        private byte[] bytes;
+        private int used;
+        private int entries;
+        private int[] table;
+
+        /**
+         * @param arena         арена, в которой собрать блок вне кучи, или null - собрать в куче
+         * @param expectedTexts сколько ссылок ожидается, для начального размера таблицы повторов
+         */
+        Builder(OffHeapTextArena arena, int expectedTexts) {
+            this.arena = arena;
+            this.bytes = new byte[Math.max(64, expectedTexts * 32)];
+            this.table = emptyTable(Integer.highestOneBit(Math.max(8, expectedTexts) * 2) * 2);
+        }
+
+        /**
+         * @return ссылка на запись текста в собираемом блоке
+         */
+        int add(String text) {
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            return add(encoded, 0, encoded.length);
+        }
+
+        /**
+         * Переносит текст из другого блока, не декодируя его.
+         *
+         * @return ссылка на запись текста в собираемом блоке
+         */
+        int add(Utf8TextBlock source, int ref) {
+            int length = source.buffer.getInt(ref);
+            byte[] copied = new byte[length];
+            source.buffer.get(ref + HEADER_BYTES, copied);
+            return add(copied, 0, length);
+        }
+
+        Utf8TextBlock build() {
+            ByteBuffer buffer = arena != null ? arena.allocate(used) : ByteBuffer.allocate(used);
+            buffer.put(0, bytes, 0, used);
+            return new Utf8TextBlock(buffer);
+        }
+
+        private int add(byte[] text, int offset, int length) {
+            int mask = table.length - 1;
+            int index = mix(hash(text, offset, length)) & mask;
+            for (; table[index] != EMPTY_SLOT; index = (index + 1) & mask) {
+                int ref = table[index];
+                if (readLength(ref) == length && Arrays.equals(bytes, ref + HEADER_BYTES, ref + HEADER_BYTES + length,
+                        text, offset, offset + length)) {
+                    return ref;
+                }
+            }
+            int ref = append(text, offset, length);
+            table[index] = ref;
+            if (++entries * 2 > table.length) {
+                rehash();
+            }
+            return ref;
+        }
+
+        private int append(byte[] text, int offset, int length) {
+            int required = HEADER_BYTES + length;
+            if (required > Integer.MAX_VALUE - 8 - used) {
+                throw new IllegalStateException("Блок текстов вещей переполнен");
+            }
+            if (used + required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max((long) bytes.length * 2, (long) used + required)));
+            }
+            int ref = used;
+            bytes[ref] = (byte) (length >>> 24);
+            bytes[ref + 1] = (byte) (length >>> 16);
+            bytes[ref + 2] = (byte) (length >>> 8);
+            bytes[ref + 3] = (byte) length;
+            System.arraycopy(text, offset, bytes, ref + HEADER_BYTES, length);
+            used += required;
+            return ref;
+        }
+
+        private void rehash() {
+            table = emptyTable(table.length * 2);
+            int mask = table.length - 1;
+            for (int ref = 0; ref < used; ref += HEADER_BYTES + readLength(ref)) {
+                int index = mix(hash(bytes, ref + HEADER_BYTES, readLength(ref))) & mask;
+                while (table[index] != EMPTY_SLOT) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = ref;
+            }
+        }
+
+        private int readLength(int ref) {
+            return (bytes[ref] & 0xFF) << 24 | (bytes[ref + 1] & 0xFF) << 16 | (bytes[ref + 2] & 0xFF) << 8
+                    | bytes[ref + 3] & 0xFF;
+        }
+
+        private static int hash(byte[] text, int offset, int length) {
+            int hash = 1;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + text[i];
+            }
+            return hash;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int[] emptyTable(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, EMPTY_SLOT);
+            return table;
+        }
+    }
+}
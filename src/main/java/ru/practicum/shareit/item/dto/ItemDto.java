@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -21,6 +22,12 @@ public class ItemDto {
     private Boolean available;
     private Long requestId;
 
+    /**
+     * Версия вещи для ETag; в JSON не выводится и из запроса не читается.
+     */
+    @JsonIgnore
+    private long version;
+
     public ItemDto(Long id, String name, String description, Boolean available, Long requestId) {
         this.id = id;
         this.name = name;
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.item.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import ru.practicum.shareit.item.model.Item;
+
+import java.io.IOException;
+
+/**
+ * Пишет вещь в том же виде, что Jackson пишет ItemDto: те же поля в том же порядке, null выводится явно.
+ * Имена полей закодированы заранее, поэтому запись не создаёт объектов.
+ */
+public class ItemJsonWriter {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString AVAILABLE = new SerializedString("available");
+    private static final SerializedString REQUEST_ID = new SerializedString("requestId");
+
+    public static void write(JsonGenerator generator, Item item) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(item.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(item.getName());
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(item.getDescription());
+        generator.writeFieldName(AVAILABLE);
+        generator.writeBoolean(item.isAvailable());
+        generator.writeFieldName(REQUEST_ID);
+        if (item.getRequest() != null) {
+            generator.writeNumber(item.getRequest().getId());
+        } else {
+            generator.writeNull();
+        }
+        generator.writeEndObject();
+    }
+}
@@ -15,12 +15,30 @@ public class ItemMapper {
     }
 
     public static ItemDto toItemDto(Item item) {
-        return new ItemDto(
+        ItemDto itemDto = new ItemDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.isAvailable(),
                 item.getRequest() != null ? item.getRequest().getId() : null
         );
+        itemDto.setVersion(item.getVersion());
+        return itemDto;
+    }
+
+    /**
+     * Возвращает новую копию вещи с применёнными непустыми полями из dto,
+     * не изменяя объект, который лежит в хранилище. Версия копии на единицу больше.
+     */
+    public static Item toUpdatedItem(Item item, ItemDto itemDto) {
+        Item updatedItem = new Item();
+        updatedItem.setId(item.getId());
+        updatedItem.setName(itemDto.getName() != null ? itemDto.getName() : item.getName());
+        updatedItem.setDescription(itemDto.getDescription() != null ? itemDto.getDescription() : item.getDescription());
+        updatedItem.setAvailable(itemDto.getAvailable() != null ? itemDto.getAvailable() : item.isAvailable());
+        updatedItem.setOwner(item.getOwner());
+        updatedItem.setRequest(item.getRequest());
+        updatedItem.setVersion(item.getVersion() + 1);
+        return updatedItem;
     }
 }
@@ -15,4 +15,8 @@ public class Item {
     private boolean available;
     private User owner;
     private ItemRequest request;
+    /**
+     * Номер версии: 0 у новой вещи, увеличивается при каждом обновлении.
+     */
+    private long version;
 }
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.journal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Журнал изменений хранилищ в памяти. Хранилище добавляет запись под своей блокировкой,
+ * а ждёт её сброса на диск уже после снятия блокировки.
+ */
+public interface Journal {
+
+    CompletableFuture<Void> COMMITTED = CompletableFuture.completedFuture(null);
+
+    /**
+     * Журнал выключен: изменения живут только в памяти.
+     */
+    Journal DISABLED = record -> COMMITTED;
+
+    /**
+     * Ставит запись в очередь на запись. Порядок записей совпадает с порядком вызовов.
+     *
+     * @return future, завершающийся после сброса записи на диск
+     */
+    CompletableFuture<Void> append(JournalRecord record);
+
+    /**
+     * Ждёт сброса записи на диск и пробрасывает ошибку записи как есть.
+     */
+    static void awaitCommitted(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный формат записей. Кадр: длина содержимого, CRC32C содержимого, содержимое.
+ * Вещь, запрос и бронирование хранят только id связанных сущностей; сами сущности подставляются при восстановлении.
+ * Бронирование хранит и id владельца вещи, чтобы восстановиться в индекс владельца даже без вещи.
+ * Версия пишется последним полем: в записях, сделанных до её появления, её нет, и она читается как 0.
+ */
+final class JournalCodec {
+
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private static final byte USER_SAVED = 1;
+    private static final byte USER_DELETED = 2;
+    private static final byte ITEM_SAVED = 3;
+    private static final byte ITEM_DELETED = 4;
+    private static final byte REQUEST_SAVED = 5;
+    private static final byte BOOKING_SAVED = 6;
+
+    private JournalCodec() {
+    }
+
+    static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (record instanceof JournalRecord.UserSaved saved) {
+                User user = saved.user();
+                out.writeByte(USER_SAVED);
+                out.writeLong(user.getId());
+                writeString(out, user.getName());
+                writeString(out, user.getEmail());
+                out.writeLong(user.getVersion());
+            } else if (record instanceof JournalRecord.UserDeleted deleted) {
+                out.writeByte(USER_DELETED);
+                out.writeLong(deleted.id());
+            } else if (record instanceof JournalRecord.ItemSaved saved) {
+                Item item = saved.item();
+                out.writeByte(ITEM_SAVED);
+                out.writeLong(item.getId());
+                writeString(out, item.getName());
+                writeString(out, item.getDescription());
+                out.writeBoolean(item.isAvailable());
+                out.writeLong(item.getOwner().getId());
+                out.writeBoolean(item.getRequest() != null);
+                if (item.getRequest() != null) {
+                    out.writeLong(item.getRequest().getId());
+                }
+                out.writeLong(item.getVersion());
+            } else if (record instanceof JournalRecord.ItemDeleted deleted) {
+                out.writeByte(ITEM_DELETED);
+                out.writeLong(deleted.id());
+            } else if (record instanceof JournalRecord.RequestSaved saved) {
+                ItemRequest request = saved.request();
+                out.writeByte(REQUEST_SAVED);
+                out.writeLong(request.getId());
+                writeString(out, request.getDescription());
+                out.writeLong(request.getRequestor().getId());
+                writeTime(out, request.getCreated());
+            } else if (record instanceof JournalRecord.BookingSaved saved) {
+                Booking booking = saved.booking();
+                out.writeByte(BOOKING_SAVED);
+                out.writeLong(booking.getId());
+                writeTime(out, booking.getStart());
+                writeTime(out, booking.getEnd());
+                out.writeLong(booking.getItem().getId());
+                out.writeLong(booking.getItem().getOwner().getId());
+                out.writeLong(booking.getBooker().getId());
+                writeString(out, booking.getStatus().name());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(byte[] payload) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            byte type = in.readByte();
+            return switch (type) {
+                case USER_SAVED -> {
+                    User user = new User();
+                    user.setId(in.readLong());
+                    user.setName(readString(in));
+                    user.setEmail(readString(in));
+                    user.setVersion(readVersion(in));
+                    yield new JournalRecord.UserSaved(user);
+                }
+                case USER_DELETED -> new JournalRecord.UserDeleted(in.readLong());
+                case ITEM_SAVED -> {
+                    Item item = new Item();
+                    item.setId(in.readLong());
+                    item.setName(readString(in));
+                    item.setDescription(readString(in));
+                    item.setAvailable(in.readBoolean());
+                    item.setOwner(userStub(in.readLong()));
+                    if (in.readBoolean()) {
+                        ItemRequest request = new ItemRequest();
+                        request.setId(in.readLong());
+                        item.setRequest(request);
+                    }
+                    item.setVersion(readVersion(in));
+                    yield new JournalRecord.ItemSaved(item);
+                }
+                case ITEM_DELETED -> new JournalRecord.ItemDeleted(in.readLong());
+                case REQUEST_SAVED -> {
+                    ItemRequest request = new ItemRequest();
+                    request.setId(in.readLong());
+                    request.setDescription(readString(in));
+                    request.setRequestor(userStub(in.readLong()));
+                    request.setCreated(readTime(in));
+                    yield new JournalRecord.RequestSaved(request);
+                }
+                case BOOKING_SAVED -> {
+                    Booking booking = new Booking();
+                    booking.setId(in.readLong());
+                    booking.setStart(readTime(in));
+                    booking.setEnd(readTime(in));
+                    Item item = new Item();
+                    item.setId(in.readLong());
+                    item.setOwner(userStub(in.readLong()));
+                    booking.setItem(item);
+                    booking.setBooker(userStub(in.readLong()));
+                    booking.setStatus(Booking.BookingStatus.valueOf(readString(in)));
+                    yield new JournalRecord.BookingSaved(booking);
+                }
+                default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Собирает кадр целиком в потоке вызывающего, чтобы поток записи только писал байты.
+     */
+    static ByteBuffer frame(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        return frame;
+    }
+
+    static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static User userStub(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static long readVersion(DataInputStream in) throws IOException {
+        return in.available() >= Long.BYTES ? in.readLong() : 0L;
+    }
+}
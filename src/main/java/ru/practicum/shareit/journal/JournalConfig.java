@@ -0,0 +1,48 @@
+package ru.practicum.shareit.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.InMemoryBookingRepository;
+import ru.practicum.shareit.item.SnapshotItemRepository;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Журнал хранилищ в памяти включается свойством shareit.journal.enabled и покрывает пользователей, вещи,
+ * запросы и бронирования. В профиле jdbc все четыре хранилища живут в БД, и журнал не нужен.
+ */
+@Configuration
+@Profile("!jdbc")
+public class JournalConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.journal.enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(@Value("${shareit.journal.dir:data/journal}") Path directory) {
+        return new WriteAheadLog(directory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.journal.enabled", havingValue = "true")
+    public JournalManager journalManager(WriteAheadLog writeAheadLog, InMemoryUserRepository userRepository,
+                                         SnapshotItemRepository itemRepository,
+                                         InMemoryItemRequestRepository requestRepository,
+                                         InMemoryBookingRepository bookingRepository,
+                                         @Value("${shareit.journal.snapshot-threshold:64MB}") DataSize threshold,
+                                         @Value("${shareit.journal.snapshot-check-interval:1m}") Duration interval) {
+        return new JournalManager(writeAheadLog, userRepository, itemRepository, requestRepository, bookingRepository,
+                threshold.toBytes(), interval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.journal.enabled", havingValue = "false", matchIfMissing = true)
+    public Journal disabledJournal() {
+        return Journal.DISABLED;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.journal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Имена файлов журнала. Сегменты wal-N.log нумеруются подряд; снимок snapshot-N.bin содержит
+ * состояние, к которому нужно применить сегменты с номером N и выше.
+ */
+final class JournalFiles {
+
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d{20})\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+    private JournalFiles() {
+    }
+
+    static Path segment(Path directory, long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+
+    static Path snapshot(Path directory, long number) {
+        return directory.resolve(String.format("snapshot-%020d.bin", number));
+    }
+
+    static List<Long> segments(Path directory) throws IOException {
+        return numbers(directory, SEGMENT);
+    }
+
+    static List<Long> snapshots(Path directory) throws IOException {
+        return numbers(directory, SNAPSHOT);
+    }
+
+    /**
+     * Фиксирует на диске создание и переименование файлов в каталоге.
+     * Не все платформы позволяют открыть каталог, там шаг пропускается.
+     */
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // каталог нельзя открыть как файл, например в Windows
+        }
+    }
+
+    private static List<Long> numbers(Path directory, Pattern pattern) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
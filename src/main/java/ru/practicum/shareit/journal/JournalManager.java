@@ -0,0 +1,258 @@
+package ru.practicum.shareit.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.InMemoryBookingRepository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.item.SnapshotItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Восстанавливает хранилища из последнего снимка и хвоста журнала до того, как приложение начнёт
+ * принимать запросы, и периодически заменяет разросшийся журнал снимком.
+ * <p>
+ * Снимок снимается без остановки записи: сначала журнал переключается на новый сегмент N,
+ * затем состояние выгружается в snapshot-N.bin. Снимок может уже содержать часть изменений из сегмента N,
+ * но записи журнала несут полное состояние сущности, поэтому повторное применение сегмента N даёт то же состояние.
+ * Снимок пишет пользователей, запросы, вещи и бронирования именно в этом порядке, чтобы при восстановлении
+ * ссылки на уже восстановленные сущности заменялись ими самими. Ответы на запросы не журналируются:
+ * они восстанавливаются из вещей с requestId в порядке их первого появления.
+ */
+@Slf4j
+public class JournalManager implements SmartInitializingSingleton, DisposableBean {
+
+    private final WriteAheadLog writeAheadLog;
+    private final InMemoryUserRepository userRepository;
+    private final SnapshotItemRepository itemRepository;
+    private final InMemoryItemRequestRepository requestRepository;
+    private final InMemoryBookingRepository bookingRepository;
+    private final long snapshotThresholdBytes;
+    private final Duration checkInterval;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    public JournalManager(WriteAheadLog writeAheadLog, InMemoryUserRepository userRepository,
+                          SnapshotItemRepository itemRepository, InMemoryItemRequestRepository requestRepository,
+                          InMemoryBookingRepository bookingRepository, long snapshotThresholdBytes,
+                          Duration checkInterval) {
+        this.writeAheadLog = writeAheadLog;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.requestRepository = requestRepository;
+        this.bookingRepository = bookingRepository;
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+        this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            writeAheadLog.start(recover());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить данные из журнала " + directory(), e);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("wal-snapshot").daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Применяет последний снимок и все сегменты после него.
+     *
+     * @return номер сегмента, с которого продолжится запись
+     */
+    long recover() throws IOException {
+        long startedAt = System.nanoTime();
+        Path directory = directory();
+        List<Long> snapshots = JournalFiles.snapshots(directory);
+        long snapshot = snapshots.isEmpty() ? 0 : snapshots.getLast();
+        long applied = 0;
+        if (snapshot > 0) {
+            applied += replay(JournalFiles.snapshot(directory, snapshot), false);
+        }
+        long lastSegment = snapshot > 0 ? snapshot - 1 : 0;
+        for (long segment : JournalFiles.segments(directory)) {
+            if (segment >= snapshot) {
+                applied += replay(JournalFiles.segment(directory, segment), true);
+                lastSegment = segment;
+            }
+        }
+        deleteBefore(snapshot);
+        log.info("Восстановлено из журнала {} записей за {} мс: пользователей {}, вещей {}", applied,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), userRepository.count(),
+                itemRepository.count());
+        return lastSegment + 1;
+    }
+
+    /**
+     * Переключает журнал на новый сегмент и выгружает состояние в снимок, затем удаляет старые сегменты.
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            long segment = writeAheadLog.rotate();
+            Path directory = directory();
+            Path target = JournalFiles.snapshot(directory, segment);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.deleteIfExists(temporary);
+            try (MappedFrameWriter writer = new MappedFrameWriter(temporary);
+                 Stream<User> users = userRepository.findAll(Pagination.ALL);
+                 Stream<ItemRequest> requests = requestRepository.findAll();
+                 Stream<Item> items = itemRepository.findAll();
+                 Stream<Booking> bookings = bookingRepository.findAll()) {
+                for (Iterator<User> it = users.iterator(); it.hasNext(); ) {
+                    writer.write(JournalCodec.encode(new JournalRecord.UserSaved(it.next())));
+                }
+                for (Iterator<ItemRequest> it = requests.iterator(); it.hasNext(); ) {
+                    writer.write(JournalCodec.encode(new JournalRecord.RequestSaved(it.next())));
+                }
+                for (Iterator<Item> it = items.iterator(); it.hasNext(); ) {
+                    writer.write(JournalCodec.encode(new JournalRecord.ItemSaved(it.next())));
+                }
+                for (Iterator<Booking> it = bookings.iterator(); it.hasNext(); ) {
+                    writer.write(JournalCodec.encode(new JournalRecord.BookingSaved(it.next())));
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            JournalFiles.forceDirectory(directory);
+            deleteBefore(segment);
+            log.info("Снимок {} записан за {} мс", target.getFileName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void snapshotIfNeeded() {
+        if (writeAheadLog.segmentBytes() < snapshotThresholdBytes) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось записать снимок в {}", directory(), e);
+        }
+    }
+
+    /**
+     * Применяет кадры файла через обычные методы хранилищ. Недописанный хвост сегмента обрезается,
+     * а снимок пишется целиком до переименования, поэтому недочитанный снимок повреждён и восстановление прерывается.
+     * В нечётком снимке один email может встретиться у двух пользователей, а два подтверждённых бронирования -
+     * пересечься: тогда более позднее состояние обоих лежит в журнале после снимка, и такая запись пропускается.
+     */
+    private long replay(Path file, boolean segment) throws IOException {
+        long applied = 0;
+        try (MappedFrameReader reader = new MappedFrameReader(file)) {
+            for (byte[] payload = reader.next(); payload != null; payload = reader.next()) {
+                JournalRecord record = JournalCodec.decode(payload);
+                try {
+                    apply(record);
+                } catch (DuplicateEmailException | ConflictException e) {
+                    if (segment) {
+                        throw e;
+                    }
+                    log.debug("Запись из снимка {} будет восстановлена из журнала: {}", file, e.getMessage());
+                }
+                applied++;
+            }
+            if (!segment && reader.position() < reader.size()) {
+                throw new IOException("Снимок " + file.getFileName() + " повреждён: прочитано " + reader.position()
+                        + " из " + reader.size() + " байт");
+            }
+            if (segment && reader.position() < reader.size()) {
+                log.warn("Сегмент {} обрезан до {} байт: хвост после сбоя не был зафиксирован", file.getFileName(),
+                        reader.position());
+                truncate(file, reader.position());
+            }
+        }
+        return applied;
+    }
+
+    private void apply(JournalRecord record) {
+        if (record instanceof JournalRecord.UserSaved saved) {
+            userRepository.save(saved.user());
+        } else if (record instanceof JournalRecord.UserDeleted deleted) {
+            userRepository.delete(deleted.id());
+        } else if (record instanceof JournalRecord.ItemSaved saved) {
+            Item item = saved.item();
+            userRepository.findById(item.getOwner().getId()).ifPresent(item::setOwner);
+            boolean created = itemRepository.findById(item.getId()).isEmpty();
+            if (item.getRequest() != null) {
+                requestRepository.findById(item.getRequest().getId()).ifPresent(item::setRequest);
+            }
+            itemRepository.save(item);
+            if (created && item.getRequest() != null) {
+                requestRepository.addAnswer(item.getRequest().getId(), item.getId());
+            }
+        } else if (record instanceof JournalRecord.ItemDeleted deleted) {
+            itemRepository.delete(deleted.id());
+        } else if (record instanceof JournalRecord.RequestSaved saved) {
+            ItemRequest request = saved.request();
+            userRepository.findById(request.getRequestor().getId()).ifPresent(request::setRequestor);
+            requestRepository.save(request);
+        } else if (record instanceof JournalRecord.BookingSaved saved) {
+            Booking booking = saved.booking();
+            itemRepository.findById(booking.getItem().getId()).ifPresent(booking::setItem);
+            userRepository.findById(booking.getBooker().getId()).ifPresent(booking::setBooker);
+            bookingRepository.save(booking);
+        }
+    }
+
+    private void deleteBefore(long snapshot) throws IOException {
+        Path directory = directory();
+        for (long segment : JournalFiles.segments(directory)) {
+            if (segment < snapshot) {
+                Files.delete(JournalFiles.segment(directory, segment));
+            }
+        }
+        for (long older : JournalFiles.snapshots(directory)) {
+            if (older < snapshot) {
+                Files.delete(JournalFiles.snapshot(directory, older));
+            }
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+    }
+
+    private Path directory() {
+        return writeAheadLog.getDirectory();
+    }
+}
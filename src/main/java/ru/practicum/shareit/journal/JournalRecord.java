@@ -0,0 +1,30 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+/**
+ * Изменение хранилища. Сохранение несёт полное состояние сущности, поэтому повторное применение безопасно.
+ */
+public sealed interface JournalRecord {
+
+    record UserSaved(User user) implements JournalRecord {
+    }
+
+    record UserDeleted(long id) implements JournalRecord {
+    }
+
+    record ItemSaved(Item item) implements JournalRecord {
+    }
+
+    record ItemDeleted(long id) implements JournalRecord {
+    }
+
+    record RequestSaved(ItemRequest request) implements JournalRecord {
+    }
+
+    record BookingSaved(Booking booking) implements JournalRecord {
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Читает кадры из файла через отображение в память окнами по WINDOW_BYTES.
+ * Останавливается на первом неполном или повреждённом кадре: это недописанный хвост.
+ */
+final class MappedFrameReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    MappedFrameReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /**
+     * @return содержимое следующего кадра или null, если целых кадров больше нет
+     */
+    byte[] next() throws IOException {
+        if (size - position < JournalCodec.HEADER_BYTES) {
+            return null;
+        }
+        ensureMapped(JournalCodec.HEADER_BYTES);
+        int offset = (int) (position - windowStart);
+        int length = window.getInt(offset);
+        int checksum = window.getInt(offset + Integer.BYTES);
+        if (length <= 0 || length > JournalCodec.MAX_PAYLOAD_BYTES
+                || size - position - JournalCodec.HEADER_BYTES < length) {
+            return null;
+        }
+        ensureMapped(JournalCodec.HEADER_BYTES + length);
+        byte[] payload = new byte[length];
+        window.get((int) (position - windowStart) + JournalCodec.HEADER_BYTES, payload);
+        if (JournalCodec.checksum(payload) != checksum) {
+            return null;
+        }
+        position += JournalCodec.HEADER_BYTES + length;
+        return payload;
+    }
+
+    /**
+     * Длина прочитанной целой части файла.
+     */
+    long position() {
+        return position;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensureMapped(int bytes) throws IOException {
+        if (window == null || position + bytes > windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(size - position, Math.max(WINDOW_BYTES, bytes)));
+        }
+    }
+}
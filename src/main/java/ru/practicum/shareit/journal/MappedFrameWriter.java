@@ -0,0 +1,51 @@
+package ru.practicum.shareit.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Пишет кадры в новый файл через отображение в память окнами по WINDOW_BYTES.
+ * При закрытии сбрасывает данные на диск и обрезает файл до записанной длины.
+ */
+final class MappedFrameWriter implements Closeable {
+
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    private long position;
+
+    MappedFrameWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    void write(byte[] payload) throws IOException {
+        int frameBytes = JournalCodec.HEADER_BYTES + payload.length;
+        if (window == null || window.remaining() < frameBytes) {
+            if (window != null) {
+                window.force();
+            }
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(WINDOW_BYTES, frameBytes));
+        }
+        window.putInt(payload.length).putInt(JournalCodec.checksum(payload)).put(payload);
+        position += frameBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (window != null) {
+                window.force();
+            }
+            channel.truncate(position);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package ru.practicum.shareit.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Журнал упреждающей записи с групповой фиксацией. Вызывающие потоки кладут готовые кадры в очередь,
+ * единственный поток записи забирает всё накопившееся, пишет одним вызовом и делает один force()
+ * на всю группу, так что стоимость fsync делится между конкурентными писателями.
+ * Журнал разбит на сегменты; rotate() начинает новый сегмент, после чего старые можно заменить снимком.
+ */
+@Slf4j
+public class WriteAheadLog implements Journal, Closeable {
+
+    private static final int MAX_GROUP = 4096;
+
+    private final Path directory;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong segmentBytes = new AtomicLong();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile State state = State.RECOVERING;
+    private volatile Throwable failure;
+    private Thread writer;
+    private FileChannel channel;
+    private long segment;
+
+    public WriteAheadLog(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Открывает сегмент для дописывания и запускает поток записи. До вызова записи не журналируются:
+     * так восстановление, которое повторяет журнал через те же хранилища, не пишет его заново.
+     */
+    public void start(long firstSegment) throws IOException {
+        Files.createDirectories(directory);
+        openSegment(firstSegment);
+        writer = Thread.ofPlatform().name("wal-writer").daemon().start(this::writeLoop);
+        state = State.OPEN;
+    }
+
+    @Override
+    public CompletableFuture<Void> append(JournalRecord record) {
+        if (state == State.RECOVERING) {
+            return COMMITTED;
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(unavailable());
+        }
+        ByteBuffer frame = JournalCodec.frame(JournalCodec.encode(record));
+        return enqueue(frame, Command.APPEND);
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает следующий. Записи, добавленные до вызова, остаются в старом сегменте.
+     *
+     * @return номер нового сегмента
+     */
+    public long rotate() {
+        Journal.awaitCommitted(enqueue(null, Command.ROTATE));
+        return segment;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Размер текущего сегмента в байтах.
+     */
+    public long segmentBytes() {
+        return segmentBytes.get();
+    }
+
+    public long recordCount() {
+        return records.sum();
+    }
+
+    /**
+     * Число вызовов force(): при конкурентной записи заметно меньше числа записей.
+     */
+    public long commitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * Дописывает уже принятые записи и закрывает сегмент. Записи, добавленные позже, завершаются ошибкой.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> closed;
+        stateLock.writeLock().lock();
+        try {
+            if (state != State.OPEN) {
+                state = State.CLOSED;
+                return;
+            }
+            closed = new CompletableFuture<>();
+            queue.add(new Entry(null, closed, Command.CLOSE));
+            state = State.CLOSED;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        closed.join();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(ByteBuffer frame, Command command) {
+        stateLock.readLock().lock();
+        try {
+            if (state != State.OPEN) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Журнал закрыт"));
+            }
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            queue.add(new Entry(frame, done, command));
+            return done;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private UncheckedIOException unavailable() {
+        return new UncheckedIOException(new IOException("Журнал недоступен после ошибки записи", failure));
+    }
+
+    private void writeLoop() {
+        List<Entry> group = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(group, MAX_GROUP - 1);
+            running = process(group);
+            group.clear();
+        }
+    }
+
+    /**
+     * Пишет кадры группы до ближайшей команды, фиксирует их одним force() и выполняет команду.
+     */
+    private boolean process(List<Entry> group) {
+        int from = 0;
+        for (int i = 0; i <= group.size(); i++) {
+            if (i < group.size() && group.get(i).command() == Command.APPEND) {
+                continue;
+            }
+            commit(group.subList(from, i));
+            if (i < group.size()) {
+                Entry control = group.get(i);
+                if (!execute(control)) {
+                    group.subList(i + 1, group.size()).forEach(entry -> entry.done().completeExceptionally(
+                            new IllegalStateException("Журнал закрыт")));
+                    return false;
+                }
+            }
+            from = i + 1;
+        }
+        return true;
+    }
+
+    private void commit(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (failure != null) {
+            entries.forEach(entry -> entry.done().completeExceptionally(unavailable()));
+            return;
+        }
+        ByteBuffer[] frames = new ByteBuffer[entries.size()];
+        long bytes = 0;
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = entries.get(i).frame();
+            bytes += frames[i].remaining();
+        }
+        try {
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(frames);
+            }
+            channel.force(false);
+            segmentBytes.addAndGet(bytes);
+            records.add(entries.size());
+            commits.increment();
+            entries.forEach(entry -> entry.done().complete(null));
+        } catch (IOException e) {
+            log.error("Ошибка записи журнала {}", directory, e);
+            failure = e;
+            entries.forEach(entry -> entry.done().completeExceptionally(new UncheckedIOException(e)));
+        }
+    }
+
+    private boolean execute(Entry control) {
+        try {
+            switch (control.command()) {
+                case ROTATE -> {
+                    channel.close();
+                    openSegment(segment + 1);
+                    control.done().complete(null);
+                    return true;
+                }
+                case CLOSE -> {
+                    channel.close();
+                    control.done().complete(null);
+                    return false;
+                }
+                default -> throw new IllegalStateException("Неожиданная команда журнала: " + control.command());
+            }
+        } catch (IOException e) {
+            log.error("Ошибка переключения сегмента журнала {}", directory, e);
+            failure = e;
+            control.done().completeExceptionally(new UncheckedIOException(e));
+            return control.command() != Command.CLOSE;
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        Path file = JournalFiles.segment(directory, number);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        JournalFiles.forceDirectory(directory);
+        segment = number;
+        segmentBytes.set(channel.size());
+    }
+
+    private enum State {
+        RECOVERING,
+        OPEN,
+        CLOSED
+    }
+
+    private enum Command {
+        APPEND,
+        ROTATE,
+        CLOSE
+    }
+
+    private record Entry(ByteBuffer frame, CompletableFuture<Void> done, Command command) {
+    }
+}
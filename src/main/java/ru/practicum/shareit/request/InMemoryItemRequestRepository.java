@@ -0,0 +1,121 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище запросов вещей. Для каждого запроса хранится список ответивших вещей, который пополняется
+ * при создании вещи с requestId, поэтому чтение запроса с ответами не просматривает каталог вещей.
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("!jdbc")
+public class InMemoryItemRequestRepository implements ItemRequestRepository {
+
+    private final ConcurrentNavigableMap<Long, ItemRequest> requests = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, NavigableSet<Long>> requestorIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, List<Long>> answers = new ConcurrentHashMap<>();
+    private final Journal journal;
+    private final IdGenerator idGenerator;
+
+    public InMemoryItemRequestRepository() {
+        this(Journal.DISABLED, IdGenerator.sequential());
+    }
+
+    /**
+     * @param journal     журнал, в который записывается каждый новый запрос
+     * @param idGenerator источник id новых запросов
+     */
+    @Autowired
+    public InMemoryItemRequestRepository(Journal journal, IdGenerator idGenerator) {
+        this.journal = journal;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Запрос не меняется после создания, поэтому запись в журнал не требует блокировки.
+     */
+    @Override
+    public ItemRequest save(ItemRequest itemRequest) {
+        if (itemRequest.getId() == null) {
+            itemRequest.setId(idGenerator.nextId());
+        } else {
+            idGenerator.observe(itemRequest.getId());
+        }
+        requests.put(itemRequest.getId(), itemRequest);
+        requestorIndex.computeIfAbsent(itemRequest.getRequestor().getId(),
+                id -> new ConcurrentSkipListSet<Long>(Collections.reverseOrder())).add(itemRequest.getId());
+        Journal.awaitCommitted(journal.append(new JournalRecord.RequestSaved(itemRequest)));
+        return itemRequest;
+    }
+
+    @Override
+    public Optional<ItemRequest> findById(Long id) {
+        return Optional.ofNullable(requests.get(id));
+    }
+
+    /**
+     * Страница начинается сразу за курсором в индексе запросов пользователя.
+     */
+    @Override
+    public Stream<ItemRequest> findByRequestorId(Long requestorId, Pagination pagination) {
+        NavigableSet<Long> requestIds = requestorIndex.get(requestorId);
+        if (requestIds == null) {
+            return Stream.empty();
+        }
+        NavigableSet<Long> page = pagination.after() != null
+                ? requestIds.tailSet(pagination.after(), false)
+                : requestIds;
+        return pagination.apply(page.stream()
+                .map(requests::get)
+                .filter(Objects::nonNull));
+    }
+
+    /**
+     * Страница начинается сразу за курсором через headMap; отфильтровываются только запросы самого пользователя.
+     */
+    @Override
+    public Stream<ItemRequest> findByRequestorIdNot(Long requestorId, Pagination pagination) {
+        ConcurrentNavigableMap<Long, ItemRequest> older = pagination.after() != null
+                ? requests.headMap(pagination.after(), false)
+                : requests;
+        return pagination.apply(older.descendingMap().values().stream()
+                .filter(itemRequest -> !itemRequest.getRequestor().getId().equals(requestorId)));
+    }
+
+    /**
+     * Все запросы в порядке id — для снимка журнала.
+     */
+    public Stream<ItemRequest> findAll() {
+        return requests.values().stream();
+    }
+
+    @Override
+    public void addAnswer(Long requestId, Long itemId) {
+        answers.computeIfAbsent(requestId, id -> new CopyOnWriteArrayList<>()).add(itemId);
+    }
+
+    @Override
+    public List<Long> findAnswerIds(Long requestId) {
+        return answers.getOrDefault(requestId, List.of());
+    }
+}
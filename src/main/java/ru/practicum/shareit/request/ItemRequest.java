@@ -1,16 +1,17 @@
 package ru.practicum.shareit.request;
 
 import lombok.Data;
+import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
 /**
- * TODO Sprint add-item-requests.
+ * Sprint add-item-requests.
  */
 @Data
 public class ItemRequest {
-    private long id;
+    private Long id;
     private String description;
-    private long request;
+    private User requestor;
     private LocalDateTime created;
 }
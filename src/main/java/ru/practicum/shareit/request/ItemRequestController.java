@@ -1,12 +1,58 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.util.List;
 
 /**
- * TODO Sprint add-item-requests.
+ * Sprint add-item-requests.
  */
 @RestController
 @RequestMapping(path = "/requests")
 public class ItemRequestController {
+    private final ItemRequestService itemRequestService;
+
+    @Autowired
+    public ItemRequestController(ItemRequestService itemRequestService) {
+        this.itemRequestService = itemRequestService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ItemRequestDto> createRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @Valid
+                                                        @RequestBody ItemRequestDto itemRequestDto) {
+        ItemRequestDto createdRequest = itemRequestService.createRequest(userId, itemRequestDto);
+        return new ResponseEntity<>(createdRequest, HttpStatus.OK);
+    }
+
+    @GetMapping
+    public List<ItemRequestDto> getUserRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @RequestParam(required = false) Long after,
+                                                @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                @Positive @RequestParam(required = false) Integer size) {
+        return itemRequestService.getUserRequests(userId, Pagination.of(after, from, size));
+    }
+
+    @GetMapping("/all")
+    public List<ItemRequestDto> getOtherUsersRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @RequestParam(required = false) Long after,
+                                                      @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                      @Positive @RequestParam(required = false) Integer size) {
+        return itemRequestService.getOtherUsersRequests(userId, Pagination.of(after, from, size));
+    }
+
+    @GetMapping("/{requestId}")
+    public ResponseEntity<ItemRequestDto> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                         @PathVariable Long requestId) {
+        ItemRequestDto itemRequestDto = itemRequestService.getRequestById(userId, requestId);
+        return new ResponseEntity<>(itemRequestDto, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.request;
+
+import ru.practicum.shareit.common.Pagination;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ItemRequestRepository {
+
+    ItemRequest save(ItemRequest itemRequest);
+
+    Optional<ItemRequest> findById(Long id);
+
+    /**
+     * Возвращает запросы пользователя от новых к старым. Курсор pagination.after() - id последнего запроса
+     * предыдущей страницы, поэтому страница начинается с запросов старше него.
+     */
+    Stream<ItemRequest> findByRequestorId(Long requestorId, Pagination pagination);
+
+    /**
+     * Возвращает запросы других пользователей от новых к старым, с тем же курсором, что и findByRequestorId.
+     */
+    Stream<ItemRequest> findByRequestorIdNot(Long requestorId, Pagination pagination);
+
+    /**
+     * Добавляет вещь в список ответов на запрос.
+     */
+    void addAnswer(Long requestId, Long itemId);
+
+    /**
+     * Возвращает id вещей, добавленных в ответ на запрос, в порядке добавления.
+     */
+    List<Long> findAnswerIds(Long requestId);
+}
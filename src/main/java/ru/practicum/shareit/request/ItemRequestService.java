@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request;
+
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.util.List;
+
+public interface ItemRequestService {
+
+    ItemRequestDto createRequest(Long userId, ItemRequestDto itemRequestDto);
+
+    List<ItemRequestDto> getUserRequests(Long userId, Pagination pagination);
+
+    List<ItemRequestDto> getOtherUsersRequests(Long userId, Pagination pagination);
+
+    ItemRequestDto getRequestById(Long userId, Long requestId);
+}
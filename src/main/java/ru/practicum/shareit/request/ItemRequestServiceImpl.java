@@ -0,0 +1,86 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Service
+@Timed("shareit.service")
+@Slf4j
+public class ItemRequestServiceImpl implements ItemRequestService {
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final UserService userService;
+
+    @Autowired
+    public ItemRequestServiceImpl(ItemRequestRepository itemRequestRepository, ItemRepository itemRepository,
+                                  UserService userService) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.userService = userService;
+    }
+
+    @Override
+    public ItemRequestDto createRequest(Long userId, ItemRequestDto itemRequestDto) {
+        log.debug("Добавление запроса пользователем с id: {}, запрос {}", userId, itemRequestDto);
+        User requestor = getUser(userId);
+        ItemRequest itemRequest = itemRequestRepository.save(
+                ItemRequestMapper.toItemRequest(itemRequestDto, requestor, LocalDateTime.now()));
+        return ItemRequestMapper.toItemRequestDto(itemRequest, List.of());
+    }
+
+    @Override
+    public List<ItemRequestDto> getUserRequests(Long userId, Pagination pagination) {
+        log.debug("Поиск запросов пользователя с id: {}, {}", userId, pagination);
+        getUser(userId);
+        try (Stream<ItemRequest> requests = itemRequestRepository.findByRequestorId(userId, pagination)) {
+            return requests.map(this::toItemRequestDtoWithAnswers).toList();
+        }
+    }
+
+    @Override
+    public List<ItemRequestDto> getOtherUsersRequests(Long userId, Pagination pagination) {
+        log.debug("Поиск запросов других пользователей для пользователя с id: {}, {}", userId, pagination);
+        getUser(userId);
+        try (Stream<ItemRequest> requests = itemRequestRepository.findByRequestorIdNot(userId, pagination)) {
+            return requests.map(this::toItemRequestDtoWithAnswers).toList();
+        }
+    }
+
+    @Override
+    public ItemRequestDto getRequestById(Long userId, Long requestId) {
+        log.debug("Поиск запроса с id: {} пользователем с id: {}", requestId, userId);
+        getUser(userId);
+        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос не найден"));
+        return toItemRequestDtoWithAnswers(itemRequest);
+    }
+
+    private ItemRequestDto toItemRequestDtoWithAnswers(ItemRequest itemRequest) {
+        List<ItemAnswerDto> answers = itemRequestRepository.findAnswerIds(itemRequest.getId()).stream()
+                .map(itemRepository::findById)
+                .flatMap(Optional::stream)
+                .map(ItemRequestMapper::toItemAnswerDto)
+                .toList();
+        return ItemRequestMapper.toItemRequestDto(itemRequest, answers);
+    }
+
+    private User getUser(Long userId) {
+        return userService.getUserById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    }
+}
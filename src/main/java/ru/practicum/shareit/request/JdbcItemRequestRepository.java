@@ -0,0 +1,109 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище запросов вещей в БД. Списки идут по убыванию id: запросы пользователя - по индексу (requestor_id, id),
+ * чужие - по первичному ключу. Ответы отдельно не хранятся: это вещи с request_id запроса, индекс (request_id, id).
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("jdbc")
+public class JdbcItemRequestRepository implements ItemRequestRepository {
+
+    private static final String SELECT = "SELECT r.id, r.description, r.created, "
+            + "u.id AS requestor_id, u.name AS requestor_name, u.email AS requestor_email "
+            + "FROM requests r JOIN users u ON u.id = r.requestor_id";
+    private static final String PAGE = " ORDER BY r.id DESC LIMIT ? OFFSET ?";
+
+    private static final RowMapper<ItemRequest> REQUEST_ROW_MAPPER = (rs, rowNum) -> {
+        User requestor = new User();
+        requestor.setId(rs.getLong("requestor_id"));
+        requestor.setName(rs.getString("requestor_name"));
+        requestor.setEmail(rs.getString("requestor_email"));
+
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setId(rs.getLong("id"));
+        itemRequest.setDescription(rs.getString("description"));
+        itemRequest.setCreated(rs.getObject("created", LocalDateTime.class));
+        itemRequest.setRequestor(requestor);
+        return itemRequest;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcItemRequestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public ItemRequest save(ItemRequest itemRequest) {
+        if (itemRequest.getId() != null && jdbcTemplate.update(
+                "UPDATE requests SET description = ?, requestor_id = ?, created = ? WHERE id = ?",
+                itemRequest.getDescription(), itemRequest.getRequestor().getId(), itemRequest.getCreated(),
+                itemRequest.getId()) > 0) {
+            return itemRequest;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO requests (description, requestor_id, created) VALUES (?, ?, ?)", new String[]{"id"});
+            ps.setString(1, itemRequest.getDescription());
+            ps.setLong(2, itemRequest.getRequestor().getId());
+            ps.setObject(3, itemRequest.getCreated());
+            return ps;
+        }, keyHolder);
+        itemRequest.setId(keyHolder.getKeyAs(Long.class));
+        return itemRequest;
+    }
+
+    @Override
+    public Optional<ItemRequest> findById(Long id) {
+        return jdbcTemplate.query(SELECT + " WHERE r.id = ?", REQUEST_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public Stream<ItemRequest> findByRequestorId(Long requestorId, Pagination pagination) {
+        return jdbcTemplate.queryForStream(SELECT + " WHERE r.requestor_id = ? AND r.id < ?" + PAGE,
+                REQUEST_ROW_MAPPER, requestorId, before(pagination), pagination.size(), pagination.from());
+    }
+
+    @Override
+    public Stream<ItemRequest> findByRequestorIdNot(Long requestorId, Pagination pagination) {
+        return jdbcTemplate.queryForStream(SELECT + " WHERE r.requestor_id <> ? AND r.id < ?" + PAGE,
+                REQUEST_ROW_MAPPER, requestorId, before(pagination), pagination.size(), pagination.from());
+    }
+
+    /**
+     * Вещь уже сохранена с request_id этого запроса, и этого достаточно, чтобы findAnswerIds её нашёл.
+     */
+    @Override
+    public void addAnswer(Long requestId, Long itemId) {
+    }
+
+    @Override
+    public List<Long> findAnswerIds(Long requestId) {
+        return jdbcTemplate.queryForList("SELECT id FROM items WHERE request_id = ? ORDER BY id", Long.class,
+                requestId);
+    }
+
+    private static long before(Pagination pagination) {
+        return pagination.after() != null ? pagination.after() : Long.MAX_VALUE;
+    }
+}
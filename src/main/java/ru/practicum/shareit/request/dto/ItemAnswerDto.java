@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.Data;
+
+/**
+ * Вещь, добавленная в ответ на запрос.
+ */
+@Data
+public class ItemAnswerDto {
+    private Long id;
+    private String name;
+    private Long ownerId;
+
+    public ItemAnswerDto(Long id, String name, Long ownerId) {
+        this.id = id;
+        this.name = name;
+        this.ownerId = ownerId;
+    }
+}
@@ -1,7 +1,27 @@
 package ru.practicum.shareit.request.dto;
 
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
- * TODO Sprint add-item-requests.
+ * Sprint add-item-requests.
  */
+@Data
 public class ItemRequestDto {
+    private Long id;
+
+    @NotBlank(message = "Описание запроса не может быть пустым")
+    private String description;
+    private LocalDateTime created;
+    private List<ItemAnswerDto> items;
+
+    public ItemRequestDto(Long id, String description, LocalDateTime created, List<ItemAnswerDto> items) {
+        this.id = id;
+        this.description = description;
+        this.created = created;
+        this.items = items;
+    }
 }
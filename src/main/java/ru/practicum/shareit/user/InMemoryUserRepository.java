@@ -1,48 +1,261 @@
 package ru.practicum.shareit.user;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.common.PersistentSortedMap;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище пользователей: id выдаёт IdGenerator, текущая версия
+ * хранилища - неизменяемое дерево, которое писатели заменяют целиком, а читатели обходят без блокировок.
+ * Уникальность email поддерживается индексом email -> id, который меняется вместе с записью
+ * под блокировкой страйпа, соответствующего id пользователя.
+ */
 @Repository
-public class InMemoryUserRepository {
+@Timed("shareit.repository")
+@Profile("!jdbc")
+public class InMemoryUserRepository implements UserRepository {
 
-    private final Map<Long, User> users = new HashMap<>();
+    private static final int LOCK_STRIPES = 64;
 
+    private final AtomicReference<PersistentSortedMap<Long, User>> current =
+            new AtomicReference<>(PersistentSortedMap.empty());
+    private final ConcurrentMap<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final IdGenerator idGenerator;
+    private final Journal journal;
+
+    public InMemoryUserRepository() {
+        this(Journal.DISABLED);
+    }
+
+    public InMemoryUserRepository(Journal journal) {
+        this(journal, IdGenerator.sequential());
+    }
+
+    /**
+     * @param journal     журнал, в который записывается каждое изменение; ожидание fsync идёт после снятия блокировки
+     * @param idGenerator источник id новых пользователей
+     */
+    @Autowired
+    public InMemoryUserRepository(Journal journal, IdGenerator idGenerator) {
+        this.journal = journal;
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Сохраняет пользователя, резервируя его email одним атомарным шагом.
+     */
+    @Override
     public User save(User user) {
-        if (user.getId() == null) {
-            user.setId(getNextId());
+        assignId(user);
+        ReentrantLock lock = lockFor(user.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            commit = saveLocked(user);
+        } finally {
+            lock.unlock();
         }
-        users.put(user.getId(), user);
+        Journal.awaitCommitted(commit);
         return user;
     }
 
+    /**
+     * Версия сверяется под блокировкой страйпа, под которой идут все записи этого пользователя.
+     */
+    @Override
+    public boolean saveIfVersion(User user, long expectedVersion) {
+        ReentrantLock lock = lockFor(user.getId());
+        CompletableFuture<Void> commit;
+        lock.lock();
+        try {
+            User stored = current.get().get(user.getId());
+            if (stored == null || stored.getVersion() != expectedVersion) {
+                return false;
+            }
+            commit = saveLocked(user);
+        } finally {
+            lock.unlock();
+        }
+        Journal.awaitCommitted(commit);
+        return true;
+    }
+
+    /**
+     * Сохраняет пачку целиком или не сохраняет ничего: под всеми блокировками сначала проверяются email,
+     * затем новым пользователям выдаются id, и вся пачка публикуется одной версией.
+     */
+    @Override
+    public List<User> saveAll(List<User> users) {
+        List<CompletableFuture<Void>> commits = new ArrayList<>(users.size());
+        lockAll();
+        try {
+            Set<String> batchEmails = new HashSet<>();
+            for (User user : users) {
+                String emailKey = normalize(user.getEmail());
+                Long emailOwner = emailIndex.get(emailKey);
+                if (!batchEmails.add(emailKey) || emailOwner != null && !emailOwner.equals(user.getId())) {
+                    throw new DuplicateEmailException("Пользователь с email = " + user.getEmail() + " уже существует");
+                }
+            }
+            assignIds(users);
+            for (User user : users) {
+                emailIndex.put(normalize(user.getEmail()), user.getId());
+            }
+            PersistentSortedMap<Long, User> previous = current.getAndUpdate(version -> {
+                PersistentSortedMap<Long, User> next = version;
+                for (User user : users) {
+                    next = next.put(user.getId(), user);
+                }
+                return next;
+            });
+            for (User user : users) {
+                commits.add(journal.append(new JournalRecord.UserSaved(user)));
+                releasePreviousEmail(previous.get(user.getId()), user);
+            }
+        } finally {
+            unlockAll();
+        }
+        commits.forEach(Journal::awaitCommitted);
+        return users;
+    }
+
+    @Override
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return Optional.ofNullable(current.get().get(id));
     }
 
-    public Collection<User> findAll() {
-        return users.values();
+    /**
+     * Поток лениво обходит версию хранилища, взятую в момент вызова: записи, сделанные во время обхода,
+     * в него не попадают, и страница не собирается в памяти целиком.
+     */
+    @Override
+    public Stream<User> findAll(Pagination pagination) {
+        return pagination.apply(current.get().values(pagination.after(), null));
     }
 
+    @Override
     public void delete(Long id) {
-        users.remove(id);
+        ReentrantLock lock = lockFor(id);
+        CompletableFuture<Void> commit = Journal.COMMITTED;
+        lock.lock();
+        try {
+            User removed = current.getAndUpdate(version -> version.remove(id)).get(id);
+            if (removed != null) {
+                commit = journal.append(new JournalRecord.UserDeleted(id));
+                emailIndex.remove(normalize(removed.getEmail()), id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Journal.awaitCommitted(commit);
     }
 
+    @Override
     public boolean existsByEmail(String email) {
-        return users.values().stream().anyMatch(user -> user.getEmail().equals(email));
+        return emailIndex.containsKey(normalize(email));
+    }
+
+    /**
+     * Размер хранится в корне дерева текущей версии.
+     */
+    @Override
+    public long count() {
+        return current.get().size();
+    }
+
+    /**
+     * Новым сущностям пачки id выдаются одним блоком генератора, уже выданные id учитываются до этого.
+     */
+    private void assignIds(List<User> users) {
+        int fresh = 0;
+        for (User user : users) {
+            if (user.getId() == null) {
+                fresh++;
+            } else {
+                idGenerator.observe(user.getId());
+            }
+        }
+        long[] ids = idGenerator.nextIds(fresh);
+        int next = 0;
+        for (User user : users) {
+            if (user.getId() == null) {
+                user.setId(ids[next++]);
+            }
+        }
+    }
+
+    private void assignId(User user) {
+        if (user.getId() == null) {
+            user.setId(idGenerator.nextId());
+        } else {
+            idGenerator.observe(user.getId());
+        }
+    }
+
+    /**
+     * Старый email освобождается только после записи в журнал: иначе другой пользователь мог бы занять его
+     * и попасть в журнал раньше, и при восстановлении получил бы конфликт email.
+     */
+    private CompletableFuture<Void> saveLocked(User user) {
+        String emailKey = normalize(user.getEmail());
+        Long emailOwner = emailIndex.putIfAbsent(emailKey, user.getId());
+        if (emailOwner != null && !emailOwner.equals(user.getId())) {
+            throw new DuplicateEmailException("Пользователь с email = " + user.getEmail() + " уже существует");
+        }
+        User previous = current.getAndUpdate(version -> version.put(user.getId(), user)).get(user.getId());
+        CompletableFuture<Void> commit = journal.append(new JournalRecord.UserSaved(user));
+        releasePreviousEmail(previous, user);
+        return commit;
+    }
+
+    private void releasePreviousEmail(User previous, User user) {
+        if (previous != null && !normalize(previous.getEmail()).equals(normalize(user.getEmail()))) {
+            emailIndex.remove(normalize(previous.getEmail()), user.getId());
+        }
+    }
+
+    private ReentrantLock lockFor(Long id) {
+        return locks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей в БД. Уникальность email без учёта регистра обеспечивает
+ * уникальный индекс по нормализованному email (email_key).
+ */
+@Repository
+@Timed("shareit.repository")
+@Profile("jdbc")
+public class JdbcUserRepository implements UserRepository {
+
+    private static final String INSERT = "INSERT INTO users (name, email, email_key, version) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE users SET name = ?, email = ?, email_key = ?, version = ? WHERE id = ?";
+    private static final String SELECT = "SELECT id, name, email, version FROM users";
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        user.setEmail(rs.getString("email"));
+        user.setVersion(rs.getLong("version"));
+        return user;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcUserRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public User save(User user) {
+        try {
+            if (user.getId() != null && jdbcTemplate.update(UPDATE, user.getName(), user.getEmail(),
+                    normalize(user.getEmail()), user.getVersion(), user.getId()) > 0) {
+                return user;
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT, new String[]{"id"});
+                bind(ps, user);
+                return ps;
+            }, keyHolder);
+            user.setId(keyHolder.getKeyAs(Long.class));
+            return user;
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateEmailException("Пользователь с email = " + user.getEmail() + " уже существует");
+        }
+    }
+
+    /**
+     * Версия сверяется в условии UPDATE, поэтому проверка и запись атомарны на стороне БД.
+     */
+    @Override
+    public boolean saveIfVersion(User user, long expectedVersion) {
+        try {
+            return jdbcTemplate.update(UPDATE + " AND version = ?", user.getName(), user.getEmail(),
+                    normalize(user.getEmail()), user.getVersion(), user.getId(), expectedVersion) > 0;
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateEmailException("Пользователь с email = " + user.getEmail() + " уже существует");
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<User> saveAll(List<User> users) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, users.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateEmailException("Пользователь с одним из переданных email уже существует");
+        }
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+        return users;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return jdbcTemplate.query(SELECT + " WHERE id = ?", USER_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public Stream<User> findAll(Pagination pagination) {
+        return jdbcTemplate.queryForStream(SELECT + " WHERE id > ? ORDER BY id LIMIT ? OFFSET ?", USER_ROW_MAPPER,
+                pagination.after() != null ? pagination.after() : 0L, pagination.size(), pagination.from());
+    }
+
+    @Override
+    public void delete(Long id) {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE email_key = ?)", Boolean.class, normalize(email)));
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private static void bind(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getName());
+        ps.setString(2, user.getEmail());
+        ps.setString(3, normalize(user.getEmail()));
+        ps.setLong(4, user.getVersion());
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,13 +1,27 @@
 package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.cache.EntityTags;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.JsonStreamBody;
+import ru.practicum.shareit.common.JsonStreamWriter;
+import ru.practicum.shareit.common.Pagination;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserJsonWriter;
 
-import java.util.Collection;
+import java.util.List;
 
 /**
  * Sprint add-controllers.
@@ -17,21 +31,46 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final JsonResponseCache<Long> userResponseCache;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JsonStreamWriter jsonStreamWriter,
+                          @Qualifier("userResponseCache") JsonResponseCache<Long> userResponseCache) {
         this.userService = userService;
+        this.jsonStreamWriter = jsonStreamWriter;
+        this.userResponseCache = userResponseCache;
     }
 
     @GetMapping
-    public Collection<UserDto> getUsers() {
-        return userService.getUsers();
+    public ResponseEntity<JsonStreamBody> getUsers(@RequestParam(required = false) Long after,
+                                                   @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                   @Positive @RequestParam(required = false) Integer size) {
+        return jsonStreamWriter.array(userService.streamUsers(Pagination.of(after, from, size)),
+                UserJsonWriter::write);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<JsonStreamBody> streamUsers(@RequestParam(required = false) Long after,
+                                                      @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                      @Positive @RequestParam(required = false) Integer size) {
+        return jsonStreamWriter.ndjson(userService.streamUsers(Pagination.of(after, from, size)),
+                UserJsonWriter::write);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResult<UserDto>>> createUsers(@NotEmpty
+                                                                  @Size(max = BatchResult.MAX_BATCH_SIZE)
+                                                                  @RequestBody List<UserDto> userDtos) {
+        return new ResponseEntity<>(userService.createUsers(userDtos), HttpStatus.OK);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long userId) {
-        UserDto userDto = userService.getUserDtoById(userId);
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long userId,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        return userResponseCache.get(userId, () -> userService.getUserDtoById(userId), UserDto::getVersion)
+                .toResponseEntity(ifNoneMatch);
     }
 
     @PostMapping
@@ -41,11 +80,18 @@ public class UserController {
         return new ResponseEntity<>(createdUser, HttpStatus.OK);
     }
 
+    /**
+     * С If-Match пользователь обновляется, только если его ETag не изменился, иначе 412.
+     */
     @PatchMapping("/{userId}")
     public ResponseEntity<UserDto> updateUser(@PathVariable Long userId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch,
                                               @RequestBody UserDto userDto) {
-        UserDto updatedUser = userService.updateUser(userId, userDto);
-        return new ResponseEntity<>(updatedUser, HttpStatus.OK);
+        UserDto updatedUser = userService.updateUser(userId, userDto, EntityTags.versionCondition(ifMatch, userId));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(userId, updatedUser.getVersion()))
+                .body(updatedUser);
     }
 
     @DeleteMapping("/{userId}")
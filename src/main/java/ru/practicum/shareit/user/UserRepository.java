@@ -0,0 +1,50 @@
+package ru.practicum.shareit.user;
+
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей. Реализация выбирается профилем: в памяти по умолчанию, JDBC в профиле jdbc.
+ */
+public interface UserRepository {
+
+    /**
+     * @throws ru.practicum.shareit.exception.DuplicateEmailException если email уже занят другим пользователем
+     */
+    User save(User user);
+
+    /**
+     * Сохраняет пользователей одной пачкой: либо все, либо ни одного.
+     *
+     * @throws ru.practicum.shareit.exception.DuplicateEmailException если email уже занят другим пользователем
+     */
+    List<User> saveAll(List<User> users);
+
+    /**
+     * Сохраняет пользователя, только если версия в хранилище всё ещё равна expectedVersion (compare-and-set).
+     *
+     * @return false, если пользователя за это время изменили или удалили
+     * @throws ru.practicum.shareit.exception.DuplicateEmailException если email уже занят другим пользователем
+     */
+    boolean saveIfVersion(User user, long expectedVersion);
+
+    Optional<User> findById(Long id);
+
+    /**
+     * Возвращает пользователей в порядке возрастания id. Поток нужно закрыть после чтения.
+     */
+    Stream<User> findAll(Pagination pagination);
+
+    void delete(Long id);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * Возвращает число пользователей в хранилище.
+     */
+    long count();
+}
@@ -1,14 +1,24 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Pagination;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
 
 public interface UserService {
 
-    Collection<UserDto> getUsers();
+    Collection<UserDto> getUsers(Pagination pagination);
+
+    /**
+     * Пользователи без преобразования в dto - для потоковой записи ответа.
+     */
+    Stream<User> streamUsers(Pagination pagination);
 
     UserDto getUserDtoById(Long id);
 
@@ -16,7 +26,19 @@ public interface UserService {
 
     UserDto createUser(UserDto userDto);
 
-    UserDto updateUser(Long userId, UserDto userDto);
+    /**
+     * Создаёт пользователей пачкой. Ошибка в одном элементе не отменяет остальные.
+     *
+     * @return результат для каждого элемента в порядке запроса
+     */
+    List<BatchResult<UserDto>> createUsers(List<UserDto> userDtos);
+
+    /**
+     * Обновляет пользователя сравнением версий, как ItemService.updateItem.
+     *
+     * @param versionCondition условие на текущую версию из If-Match; null - без условия
+     */
+    UserDto updateUser(Long userId, UserDto userDto, LongPredicate versionCondition);
 
     boolean deleteUser(Long id);
 }
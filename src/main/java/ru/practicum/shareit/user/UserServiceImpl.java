@@ -1,85 +1,166 @@
 package ru.practicum.shareit.user;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.DuplicateEmailException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.feed.ItemChangeFeed;
+import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.*;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("shareit.service")
 @Slf4j
 public class UserServiceImpl implements UserService {
+    static final int UPDATE_ATTEMPTS = 3;
 
-    private final InMemoryUserRepository userRepository;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final JsonResponseCache<Long> userResponseCache;
+    private final JsonResponseCache<Long> itemResponseCache;
+    private final ItemChangeFeed itemChangeFeed;
+    private final Validator validator;
 
     @Autowired
-    public UserServiceImpl(InMemoryUserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, ItemRepository itemRepository,
+                           @Qualifier("userResponseCache") JsonResponseCache<Long> userResponseCache,
+                           @Qualifier("itemResponseCache") JsonResponseCache<Long> itemResponseCache,
+                           ItemChangeFeed itemChangeFeed, Validator validator) {
         this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.userResponseCache = userResponseCache;
+        this.itemResponseCache = itemResponseCache;
+        this.itemChangeFeed = itemChangeFeed;
+        this.validator = validator;
     }
 
     @Override
-    public Collection<UserDto> getUsers() {
-        log.info("Вывод пользователей из памяти");
-        return userRepository.findAll().stream()
-                .map(UserMapper::toUserDto)
-                .collect(Collectors.toList());
+    public Collection<UserDto> getUsers(Pagination pagination) {
+        try (Stream<User> users = streamUsers(pagination)) {
+            return users.map(UserMapper::toUserDto).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<User> streamUsers(Pagination pagination) {
+        log.debug("Вывод пользователей: {}", pagination);
+        return userRepository.findAll(pagination);
     }
 
     @Override
     public UserDto getUserDtoById(Long userId) {
-        log.info("Поиск пользователя с id: {}", userId);
+        log.debug("Поиск пользователя с id: {}", userId);
         User user = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
         return UserMapper.toUserDto(user);
     }
 
     @Override
     public Optional<User> getUserById(Long userId) {
-        log.info("Поиск пользователя с id: {}", userId);
+        log.debug("Поиск пользователя с id: {}", userId);
         return userRepository.findById(userId);
     }
 
     @Override
     public UserDto createUser(UserDto userDto) {
-        log.info("Добавление нового пользователя: {}", userDto);
-        if (userRepository.existsByEmail(userDto.getEmail())) {
-            throw new DuplicateEmailException("Пользователь с email = " + userDto.getEmail() + " уже существует");
-        }
+        log.debug("Добавление нового пользователя: {}", userDto);
         User user = UserMapper.toUser(userDto);
         User createdUser = userRepository.save(user);
         return UserMapper.toUserDto(createdUser);
     }
 
+    /**
+     * Проверяет всю пачку, затем сохраняет прошедших проверку одним вызовом saveAll.
+     * Если пачку отклонили из-за email (дубль внутри пачки или гонка с другим запросом),
+     * сохраняет её поштучно, чтобы вернуть результат для каждого элемента.
+     */
     @Override
-    public UserDto updateUser(Long userId, UserDto userDto) {
-        log.info("Обновление пользователя с id {}", userId);
-        User existingUser = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-
-        if (userDto.getEmail() != null && !existingUser.getEmail().equals(userDto.getEmail())) {
-            if (userRepository.existsByEmail(userDto.getEmail())) {
-                throw new DuplicateEmailException("Пользователь с email = " + userDto.getEmail() + " уже существует");
+    public List<BatchResult<UserDto>> createUsers(List<UserDto> userDtos) {
+        log.debug("Пакетное добавление пользователей: {}", userDtos.size());
+        List<BatchResult<UserDto>> results = new ArrayList<>(Collections.nCopies(userDtos.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserDto userDto = userDtos.get(i);
+            Set<ConstraintViolation<UserDto>> violations = validator.validate(userDto);
+            if (!violations.isEmpty()) {
+                results.set(i, BatchResult.invalid(i, violations));
+            } else if (userRepository.existsByEmail(userDto.getEmail())) {
+                results.set(i, BatchResult.failed(i, HttpStatus.CONFLICT,
+                        "Пользователь с email = " + userDto.getEmail() + " уже существует"));
+            } else {
+                indexes.add(i);
+                users.add(UserMapper.toUser(userDto));
             }
-            existingUser.setEmail(userDto.getEmail());
         }
-
-        if (userDto.getName() != null) {
-            existingUser.setName(userDto.getName());
+        try {
+            List<User> createdUsers = userRepository.saveAll(users);
+            for (int k = 0; k < indexes.size(); k++) {
+                results.set(indexes.get(k), BatchResult.ok(indexes.get(k), UserMapper.toUserDto(createdUsers.get(k))));
+            }
+        } catch (DuplicateEmailException e) {
+            for (int k = 0; k < indexes.size(); k++) {
+                int index = indexes.get(k);
+                try {
+                    results.set(index, BatchResult.ok(index, UserMapper.toUserDto(userRepository.save(users.get(k)))));
+                } catch (DuplicateEmailException duplicate) {
+                    results.set(index, BatchResult.failed(index, HttpStatus.CONFLICT, duplicate.getMessage()));
+                }
+            }
         }
+        return results;
+    }
 
-        User updatedUser = userRepository.save(existingUser);
-        return UserMapper.toUserDto(updatedUser);
+    @Override
+    public UserDto updateUser(Long userId, UserDto userDto, LongPredicate versionCondition) {
+        log.debug("Обновление пользователя с id {}", userId);
+        for (int attempt = 1; ; attempt++) {
+            User existingUser = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+            if (versionCondition != null && !versionCondition.test(existingUser.getVersion())) {
+                throw new PreconditionFailedException("Пользователь изменился, текущая версия " + existingUser.getVersion());
+            }
+            User updatedUser = UserMapper.toUpdatedUser(existingUser, userDto);
+            if (userRepository.saveIfVersion(updatedUser, existingUser.getVersion())) {
+                userResponseCache.invalidate(userId);
+                return UserMapper.toUserDto(updatedUser);
+            }
+            if (versionCondition != null) {
+                throw new PreconditionFailedException("Пользователя изменили параллельным запросом");
+            }
+            if (attempt == UPDATE_ATTEMPTS) {
+                throw new ConflictException("Пользователя одновременно изменяют другие запросы, повторите обновление");
+            }
+            log.debug("Пользователя {} изменили параллельно, попытка {}", userId, attempt);
+        }
     }
 
     @Override
     public boolean deleteUser(Long userId) {
-        log.info("Удаление пользователя с id {}", userId);
+        log.debug("Удаление пользователя с id {}", userId);
         if (userRepository.findById(userId).isPresent()) {
+            for (Long itemId : itemRepository.deleteByOwnerId(userId)) {
+                itemResponseCache.invalidate(itemId);
+                itemChangeFeed.publishDeleted(itemId, userId);
+            }
             userRepository.delete(userId);
+            userResponseCache.invalidate(userId);
             return true;
         }
         return false;
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
@@ -15,6 +16,12 @@ public class UserDto {
     @NotBlank(message = "Электронная почта не может быть пустой")
     private String email;
 
+    /**
+     * Версия пользователя для ETag; в JSON не выводится и из запроса не читается.
+     */
+    @JsonIgnore
+    private long version;
+
     public UserDto(Long id, String name, String email) {
         this.id = id;
         this.name = name;
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.user.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+
+/**
+ * Пишет пользователя в том же виде, что Jackson пишет UserDto. Имена полей закодированы заранее.
+ */
+public class UserJsonWriter {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString EMAIL = new SerializedString("email");
+
+    public static void write(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(user.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(user.getName());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.getEmail());
+        generator.writeEndObject();
+    }
+}
@@ -5,11 +5,13 @@ import ru.practicum.shareit.user.model.User;
 
 public class UserMapper {
     public static UserDto toUserDto(User user) {
-        return new UserDto(
+        UserDto userDto = new UserDto(
                 user.getId(),
                 user.getName(),
                 user.getEmail()
         );
+        userDto.setVersion(user.getVersion());
+        return userDto;
     }
 
     public static User toUser(UserDto userDto) {
@@ -19,4 +21,17 @@ public class UserMapper {
         user.setEmail(userDto.getEmail());
         return user;
     }
+
+    /**
+     * Возвращает новую копию пользователя с применёнными непустыми полями из dto,
+     * не изменяя объект, который лежит в хранилище. Версия копии на единицу больше.
+     */
+    public static User toUpdatedUser(User user, UserDto userDto) {
+        User updatedUser = new User();
+        updatedUser.setId(user.getId());
+        updatedUser.setName(userDto.getName() != null ? userDto.getName() : user.getName());
+        updatedUser.setEmail(userDto.getEmail() != null ? userDto.getEmail() : user.getEmail());
+        updatedUser.setVersion(user.getVersion() + 1);
+        return updatedUser;
+    }
 }
\ No newline at end of file
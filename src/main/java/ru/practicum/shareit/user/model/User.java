@@ -10,4 +10,8 @@ public class User {
     private Long id;
     private String name;
     private String email;
+    /**
+     * Номер версии: 0 у нового пользователя, увеличивается при каждом обновлении.
+     */
+    private long version;
 }
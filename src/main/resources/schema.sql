@@ -0,0 +1,54 @@
+CREATE TABLE IF NOT EXISTS users (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name      VARCHAR(255) NOT NULL,
+    email     VARCHAR(512) NOT NULL,
+    email_key VARCHAR(512) NOT NULL,
+    version   BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT uq_users_email_key UNIQUE (email_key)
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255)  NOT NULL,
+    description  VARCHAR(2000) NOT NULL,
+    is_available BOOLEAN       NOT NULL,
+    owner_id     BIGINT        NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    request_id   BIGINT,
+    version      BIGINT        NOT NULL DEFAULT 0
+);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_available ON items (is_available, id);
+
+CREATE TABLE IF NOT EXISTS item_trigrams (
+    trigram VARCHAR(3) NOT NULL,
+    item_id BIGINT     NOT NULL REFERENCES items (id) ON DELETE CASCADE,
+    PRIMARY KEY (trigram, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_item_trigrams_item_id ON item_trigrams (item_id);
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id, id);
+
+CREATE TABLE IF NOT EXISTS requests (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description  VARCHAR(2000) NOT NULL,
+    requestor_id BIGINT        NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    created      TIMESTAMP     NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_id ON requests (requestor_id, id);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP   NOT NULL,
+    end_date   TIMESTAMP   NOT NULL,
+    item_id    BIGINT      NOT NULL REFERENCES items (id) ON DELETE CASCADE,
+    booker_id  BIGINT      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status     VARCHAR(16) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_id ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_id ON bookings (item_id, start_date, id);
@@ -0,0 +1,203 @@
+package ru.practicum.shareit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнительная нагрузка на /users и /items на платформенных и виртуальных потоках.
+ * Запуск: mvn test -Dtest=ExecutionModeLoadTest -Dshareit.load-test=true
+ * Доля медленных запросов имитирует обращения к БД: фильтр блокирует поток на SLOW_CALL_MILLIS.
+ * Клиенты работают на платформенных потоках в обоих режимах: на виртуальных они делили бы несущие потоки
+ * с запросами сервера, и время ответа включало бы ожидание клиента в очереди планировщика, а не только сервер.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.load-test", matches = "true")
+class ExecutionModeLoadTest {
+
+    private static final int USERS = 1_000;
+    private static final int CLIENTS = Integer.getInteger("shareit.load-test.clients", 1_000);
+    private static final int REQUESTS = Integer.getInteger("shareit.load-test.requests", 20_000);
+    private static final int WARMUP_REQUESTS = 5_000;
+    private static final int SLOW_CALL_PERCENT = 10;
+    private static final long SLOW_CALL_MILLIS = 50;
+    private static final String SLOW_CALL_HEADER = "X-Simulated-Latency";
+
+    @Test
+    void compareThroughputAndLatencyOnPlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("Платформенные потоки: {}", platform);
+        log.info("Виртуальные потоки:   {}", virtual);
+
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+        assertTrue(virtual.servedOnVirtualThreads());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        AtomicBoolean servedOnVirtualThreads = new AtomicBoolean();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItApp.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(SimulatedLatencyFilter.class,
+                        () -> new SimulatedLatencyFilter(servedOnVirtualThreads)))
+                .run("--server.port=0", "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--shareit.admission.enabled=false");
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(Executors.newCachedThreadPool())
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build();
+             RecordingStream pinning = new RecordingStream()) {
+            seed(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            fire(client, port, WARMUP_REQUESTS, new long[WARMUP_REQUESTS]);
+
+            AtomicLong pinnedEvents = new AtomicLong();
+            pinning.enable("jdk.VirtualThreadPinned");
+            pinning.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.incrementAndGet());
+            pinning.startAsync();
+
+            long[] latencies = new long[REQUESTS];
+            long startedAt = System.nanoTime();
+            int errors = fire(client, port, REQUESTS, latencies);
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            Arrays.sort(latencies);
+            return new Result(REQUESTS * 1_000_000_000L / elapsedNanos, percentileMillis(latencies, 0.50),
+                    percentileMillis(latencies, 0.99), errors, pinnedEvents.get(),
+                    virtualThreads && servedOnVirtualThreads.get());
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        UserService userService = context.getBean(UserService.class);
+        ItemService itemService = context.getBean(ItemService.class);
+        for (long i = 1; i <= USERS; i++) {
+            UserDto user = userService.createUser(new UserDto(null, "user" + i, "user" + i + "@mail.ru"));
+            itemService.createItem(user.getId(), new ItemDto(null, "Drill " + i, "Impact drill", true, null));
+        }
+    }
+
+    private static int fire(HttpClient client, int port, int requests, long[] latencies) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        HttpRequest request = randomRequest(port);
+                        long startedAt = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - startedAt;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return errors.get();
+    }
+
+    private static HttpRequest randomRequest(int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(1, USERS + 1);
+        String path = switch (random.nextInt(4)) {
+            case 0 -> "/users/" + id;
+            case 1 -> "/items/" + id;
+            case 2 -> "/items/search?text=drill&size=10";
+            default -> "/items?size=10";
+        };
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("X-Sharer-User-Id", String.valueOf(id))
+                .timeout(Duration.ofSeconds(30));
+        if (random.nextInt(100) < SLOW_CALL_PERCENT) {
+            builder.header(SLOW_CALL_HEADER, "true");
+        }
+        return builder.GET().build();
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private record Result(long requestsPerSecond, double p50Millis, double p99Millis, int errors,
+                          long pinnedEvents, boolean servedOnVirtualThreads) {
+
+        @Override
+        public String toString() {
+            return String.format("%d запр/с, p50 = %.2f мс, p99 = %.2f мс, ошибок: %d, закреплений: %d",
+                    requestsPerSecond, p50Millis, p99Millis, errors, pinnedEvents);
+        }
+    }
+
+    private static class SimulatedLatencyFilter extends OncePerRequestFilter {
+
+        private final AtomicBoolean servedOnVirtualThreads;
+
+        SimulatedLatencyFilter(AtomicBoolean servedOnVirtualThreads) {
+            this.servedOnVirtualThreads = servedOnVirtualThreads;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            if (Thread.currentThread().isVirtual()) {
+                servedOnVirtualThreads.set(true);
+            }
+            if (request.getHeader(SLOW_CALL_HEADER) != null) {
+                try {
+                    Thread.sleep(SLOW_CALL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServletException(e);
+                }
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.JdbcBookingRepository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.item.InMemoryItemRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.JdbcItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.JdbcItemRequestRepository;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.JdbcUserRepository;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class JdbcRepositoryTest {
+
+    private static final int USERS = 200;
+    private static final int ITEMS_PER_USER = 10;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcUserRepository userRepository;
+    private JdbcItemRepository itemRepository;
+    private JdbcItemRequestRepository requestRepository;
+    private JdbcBookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        userRepository = new JdbcUserRepository(jdbcTemplate);
+        itemRepository = new JdbcItemRepository(jdbcTemplate);
+        requestRepository = new JdbcItemRequestRepository(jdbcTemplate);
+        bookingRepository = new JdbcBookingRepository(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void usersKeepCaseInsensitiveEmailUniqueness() {
+        User user = userRepository.save(user("first"));
+        userRepository.saveAll(List.of(user("second"), user("third")));
+
+        assertTrue(userRepository.existsByEmail("FIRST@mail.ru"));
+        assertThrows(DuplicateEmailException.class, () -> userRepository.save(user("First")));
+
+        user.setEmail("changed@mail.ru");
+        userRepository.save(user);
+        assertFalse(userRepository.existsByEmail("first@mail.ru"));
+        assertEquals(List.of("second", "third"), names(userRepository.findAll(Pagination.of(user.getId(), 0, 5))));
+    }
+
+    @Test
+    void itemsAreFoundByOwnerAndTextAndDeletedWithOwner() {
+        User owner = userRepository.save(user("owner"));
+        User other = userRepository.save(user("other"));
+        Item drill = itemRepository.save(item(owner, "Дрель", "Простая дрель", true));
+        itemRepository.saveAll(List.of(item(owner, "Пила", "100% сталь", true), item(other, "Дрель", "Нет", false)));
+
+        assertEquals(List.of("Дрель", "Пила"), itemNames(itemRepository.findByOwnerId(owner.getId(), Pagination.ALL)));
+        assertEquals(List.of("Пила"), itemNames(itemRepository.findByOwnerId(owner.getId(), Pagination.of(drill.getId(), 0, 1))));
+        assertEquals(List.of(drill.getId()), itemRepository.searchByText("дрел", Pagination.ALL).items().map(Item::getId).toList());
+        assertEquals(List.of("Пила"), itemNames(itemRepository.searchByText("0%", Pagination.ALL).items()));
+        itemRepository.save(item(other, "Мешок", "Дрель в комплекте", true));
+        assertEquals(List.of("Дрель", "Мешок"), itemNames(itemRepository.searchTopByText("дрел", 5).items()));
+        assertEquals(List.of("Дрель"), itemNames(itemRepository.searchTopByText("дрел", 1).items()));
+
+        assertEquals(2, itemRepository.deleteByOwnerId(owner.getId()).size());
+        userRepository.delete(owner.getId());
+        assertTrue(itemRepository.findById(drill.getId()).isEmpty());
+    }
+
+    @Test
+    void textIndexFollowsRenamesAndCoversRowsWrittenWithoutIt() {
+        User owner = userRepository.save(user("owner"));
+        Item drill = itemRepository.save(item(owner, "Дрель", "Ударная", true));
+        drill.setName("Перфоратор");
+        itemRepository.save(drill);
+        jdbcTemplate.update("INSERT INTO items (name, description, is_available, owner_id) VALUES (?, ?, TRUE, ?)",
+                "Старая дрель", "Без индекса", owner.getId());
+
+        assertEquals(List.of(), itemNames(itemRepository.searchByText("дрел", Pagination.ALL).items()));
+        assertEquals(List.of("Перфоратор"), itemNames(itemRepository.searchByText("перфо", Pagination.ALL).items()));
+        itemRepository.afterSingletonsInstantiated();
+        assertEquals(List.of("Старая дрель"), itemNames(itemRepository.searchByText("дрел", Pagination.ALL).items()));
+        assertEquals(List.of(), itemNames(itemRepository.searchByText("дрелд", Pagination.ALL).items()));
+    }
+
+    @Test
+    void bookingsAreListedByStateAndApprovedIntervalsDoNotOverlap() {
+        User owner = userRepository.save(user("owner"));
+        User booker = userRepository.save(user("booker"));
+        Item drill = itemRepository.save(item(owner, "Дрель", "Ударная", true));
+        LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+        Booking past = bookingRepository.save(booking(drill, booker, now.minusDays(3), now.minusDays(2)));
+        Booking current = bookingRepository.save(booking(drill, booker, now.minusHours(1), now.plusHours(1)));
+        Booking future = bookingRepository.save(booking(drill, booker, now.plusDays(1), now.plusDays(2)));
+        bookingRepository.updateStatus(current.getId(), Set.of(Booking.BookingStatus.WAITING),
+                Booking.BookingStatus.APPROVED);
+
+        assertThrows(ConflictException.class,
+                () -> bookingRepository.save(booking(drill, booker, now, now.plusHours(3))));
+        assertTrue(bookingRepository.updateStatus(current.getId(), Set.of(Booking.BookingStatus.WAITING),
+                Booking.BookingStatus.REJECTED).isEmpty());
+        assertEquals(List.of(future.getId(), current.getId(), past.getId()),
+                bookingIds(bookingRepository.findByBookerId(booker.getId(), BookingState.ALL, now, Pagination.ALL)));
+        assertEquals(List.of(current.getId()),
+                bookingIds(bookingRepository.findByOwnerId(owner.getId(), BookingState.CURRENT, now, Pagination.ALL)));
+        assertEquals(List.of(past.getId()),
+                bookingIds(bookingRepository.findByOwnerId(owner.getId(), BookingState.PAST, now, Pagination.ALL)));
+        assertEquals(List.of(future.getId(), past.getId()), bookingIds(bookingRepository.findByBookerId(booker.getId(),
+                BookingState.WAITING, now, Pagination.ALL)));
+        assertEquals(List.of(current.getId()), bookingIds(bookingRepository.findByBookerId(booker.getId(),
+                BookingState.ALL, now, new Pagination(null, 1, 1))));
+        assertEquals("owner", bookingRepository.findById(current.getId()).orElseThrow().getItem().getOwner().getName());
+        assertTrue(bookingRepository.isBooked(drill.getId(), LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 10)));
+        assertFalse(bookingRepository.isBooked(drill.getId(), LocalDate.of(2030, 1, 11), LocalDate.of(2030, 1, 12)));
+    }
+
+    @Test
+    void requestsArePagedNewestFirstAndAnsweredByItems() {
+        User requestor = userRepository.save(user("requestor"));
+        User other = userRepository.save(user("other"));
+        ItemRequest first = requestRepository.save(request(requestor, "нужна дрель"));
+        ItemRequest second = requestRepository.save(request(requestor, "нужна пила"));
+        ItemRequest foreign = requestRepository.save(request(other, "нужен молоток"));
+        Item answer = item(other, "Дрель", "Для запроса", true);
+        answer.setRequest(first);
+        itemRepository.save(answer);
+
+        assertEquals(List.of(second.getId(), first.getId()),
+                requestIds(requestRepository.findByRequestorId(requestor.getId(), Pagination.ALL)));
+        assertEquals(List.of(first.getId()), requestIds(requestRepository.findByRequestorId(requestor.getId(),
+                Pagination.of(second.getId(), 0, 5))));
+        assertEquals(List.of(foreign.getId()),
+                requestIds(requestRepository.findByRequestorIdNot(requestor.getId(), Pagination.ALL)));
+        assertEquals(List.of(answer.getId()), requestRepository.findAnswerIds(first.getId()));
+        assertEquals("requestor", requestRepository.findById(first.getId()).orElseThrow().getRequestor().getName());
+    }
+
+    @Test
+    void comparesThroughputWithInMemoryStore() {
+        long jdbcNanos = fill(userRepository, itemRepository);
+        long memoryNanos = fill(new InMemoryUserRepository(), new InMemoryItemRepository());
+
+        log.info("Запись {} пользователей и {} вещей пачками: H2 {} мс, в памяти {} мс", USERS, USERS * ITEMS_PER_USER,
+                jdbcNanos / 1_000_000, memoryNanos / 1_000_000);
+        try (Stream<User> users = userRepository.findAll(Pagination.ALL)) {
+            assertEquals(USERS, users.count());
+        }
+    }
+
+    private static long fill(UserRepository users, ItemRepository items) {
+        long startedAt = System.nanoTime();
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            batch.add(user("user" + i));
+        }
+        for (User owner : users.saveAll(batch)) {
+            List<Item> ownerItems = new ArrayList<>();
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                ownerItems.add(item(owner, "Вещь " + i, "Описание вещи " + i, true));
+            }
+            items.saveAll(ownerItems);
+            try (Stream<Item> found = items.findByOwnerId(owner.getId(), Pagination.ALL)) {
+                assertEquals(ITEMS_PER_USER, found.count());
+            }
+        }
+        return System.nanoTime() - startedAt;
+    }
+
+    private static List<String> names(Stream<User> users) {
+        try (users) {
+            return users.map(User::getName).toList();
+        }
+    }
+
+    private static List<String> itemNames(Stream<Item> items) {
+        try (items) {
+            return items.map(Item::getName).toList();
+        }
+    }
+
+    private static List<Long> bookingIds(Stream<Booking> bookings) {
+        try (bookings) {
+            return bookings.map(Booking::getId).toList();
+        }
+    }
+
+    private static List<Long> requestIds(Stream<ItemRequest> requests) {
+        try (requests) {
+            return requests.map(ItemRequest::getId).toList();
+        }
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(Booking.BookingStatus.WAITING);
+        return booking;
+    }
+
+    private static ItemRequest request(User requestor, String description) {
+        ItemRequest request = new ItemRequest();
+        request.setRequestor(requestor);
+        request.setDescription(description);
+        request.setCreated(LocalDateTime.of(2030, 1, 1, 10, 0));
+        return request;
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@mail.ru");
+        return user;
+    }
+
+    private static Item item(User owner, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+}
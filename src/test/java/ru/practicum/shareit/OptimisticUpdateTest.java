@@ -0,0 +1,186 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OptimisticUpdateTest {
+
+    private static final int THREADS = 8;
+    private static final int PATCHES_PER_THREAD = 5;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void ifMatchGuardsUserAndItemUpdates() throws Exception {
+        long userId = createUser();
+        String userTag = send(get("/users/" + userId)).headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"" + userId + "-0\"", userTag);
+
+        HttpResponse<String> renamed = send(patch("/users/" + userId, "{\"name\":\"Анна\"}").header("If-Match", userTag));
+        assertEquals(200, renamed.statusCode());
+        assertEquals("\"" + userId + "-1\"", renamed.headers().firstValue("ETag").orElseThrow());
+        assertEquals(412, send(patch("/users/" + userId, "{\"name\":\"Борис\"}").header("If-Match", userTag)).statusCode());
+        assertEquals("\"" + userId + "-1\"", send(get("/users/" + userId)).headers().firstValue("ETag").orElseThrow());
+
+        long itemId = createItem(userId);
+        String itemPath = "/items/" + itemId;
+        HttpResponse<String> anyVersion = send(patch(itemPath, "{\"name\":\"Пила\"}")
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("If-Match", "*"));
+        assertEquals(200, anyVersion.statusCode());
+        String itemTag = anyVersion.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"" + itemId + "-1\"", itemTag);
+        assertEquals(412, send(patch(itemPath, "{\"name\":\"Лобзик\"}")
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("If-Match", "\"" + itemId + "-0\"")).statusCode());
+        assertEquals(412, send(patch(itemPath, "{\"name\":\"Лобзик\"}")
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("If-Match", "W/" + itemTag)).statusCode());
+        assertTrue(send(get(itemPath)).body().contains("\"Пила\""));
+    }
+
+    @Test
+    void concurrentPatchesWithoutIfMatchAreNotLost() throws Exception {
+        long userId = createUser();
+        long itemId = createItem(userId);
+        AtomicInteger applied = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < PATCHES_PER_THREAD; i++) {
+                        int status = send(patch("/items/" + itemId, "{\"description\":\"Поток " + thread + "\"}")
+                                .header("X-Sharer-User-Id", String.valueOf(userId))).statusCode();
+                        assertTrue(status == 200 || status == 409, "статус " + status);
+                        if (status == 200) {
+                            applied.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(applied.get() > 0);
+        assertEquals("\"" + itemId + "-" + applied.get() + "\"",
+                send(get("/items/" + itemId)).headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void batchPatchesRacingSinglePatchesAreNotLost() throws Exception {
+        long userId = createUser();
+        long itemId = createItem(userId);
+        AtomicInteger applied = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < PATCHES_PER_THREAD; i++) {
+                        String change = "\"description\":\"Поток " + thread + "\"";
+                        int status;
+                        if (thread % 2 == 0) {
+                            HttpResponse<String> response = send(patch("/items/batch",
+                                    "[{\"id\":" + itemId + "," + change + "}]")
+                                    .header("X-Sharer-User-Id", String.valueOf(userId)));
+                            assertEquals(200, response.statusCode());
+                            status = objectMapper.readTree(response.body()).get(0).get("status").asInt();
+                        } else {
+                            status = send(patch("/items/" + itemId, "{" + change + "}")
+                                    .header("X-Sharer-User-Id", String.valueOf(userId))).statusCode();
+                        }
+                        assertTrue(status == 200 || status == 409, "статус " + status);
+                        if (status == 200) {
+                            applied.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(applied.get() > 0);
+        assertEquals("\"" + itemId + "-" + applied.get() + "\"",
+                send(get("/items/" + itemId)).headers().firstValue("ETag").orElseThrow());
+    }
+
+    private long createUser() throws Exception {
+        HttpResponse<String> response = send(post("/users",
+                "{\"name\":\"Анна\",\"email\":\"anna" + System.nanoTime() + "@mail.ru\"}"));
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    private long createItem(long userId) throws Exception {
+        HttpResponse<String> response = send(post("/items",
+                "{\"name\":\"Дрель\",\"description\":\"Простая\",\"available\":true}")
+                .header("X-Sharer-User-Id", String.valueOf(userId)));
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder patch(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tokenBucketLetsBurstThroughThenOneRequestPerInterval() {
+        TokenBucket bucket = new TokenBucket(100, 3);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(100, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(100));
+        assertEquals(50, bucket.tryAcquire(150));
+        assertFalse(bucket.isFull(399));
+        assertTrue(bucket.isFull(400));
+    }
+
+    @Test
+    void abusiveUserGetsTooManyRequestsWhileOtherUserPasses() throws Exception {
+        AdmissionFilter filter = filter(1, 2, 10, 100);
+
+        assertEquals(200, get(filter, "/items", "1").getStatus());
+        assertEquals(200, get(filter, "/items", "1").getStatus());
+        MockHttpServletResponse rejected = get(filter, "/items", "1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("error"));
+        assertEquals(200, get(filter, "/items", "2").getStatus());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(200, get(filter, "/items", "1").getStatus());
+        assertEquals(1.0, meterRegistry.get("shareit.admission.rejected")
+                .tags("endpoint", "read", "reason", "rate").counter().count());
+    }
+
+    @Test
+    void usersBehindOneAddressHaveOwnBucketsAndAnonymousClientsAreKeyedByAddress() throws Exception {
+        AdmissionFilter filter = filter(1, 1, 10, 100);
+
+        MockHttpServletRequest first = request("/items", "1");
+        first.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest second = request("/items", "2");
+        second.setRemoteAddr("10.0.0.1");
+        assertEquals(200, send(filter, first).getStatus());
+        assertEquals(200, send(filter, second).getStatus());
+
+        assertEquals(200, send(filter, anonymous("10.0.0.1")).getStatus());
+        assertEquals(429, send(filter, anonymous("10.0.0.1")).getStatus());
+        assertEquals(200, send(filter, anonymous("10.0.0.2")).getStatus());
+    }
+
+    @Test
+    void newClientsOverLimitAreRejectedUntilIdleBucketsAreEvicted() throws Exception {
+        AdmissionFilter filter = filter(1, 2, 10, 2);
+
+        assertEquals(200, get(filter, "/items", "1").getStatus());
+        assertEquals(200, get(filter, "/items", "2").getStatus());
+        MockHttpServletResponse rejected = get(filter, "/items", "3");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(429, get(filter, "/items", "4").getStatus());
+        assertEquals(200, get(filter, "/items", "1").getStatus());
+        assertEquals(2.0, meterRegistry.get("shareit.admission.rejected")
+                .tags("endpoint", "read", "reason", "clients").counter().count());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(200, get(filter, "/items", "3").getStatus());
+        assertEquals(200, get(filter, "/items", "4").getStatus());
+        assertEquals(429, get(filter, "/items", "5").getStatus());
+    }
+
+    @Test
+    void busyEndpointClassRejectsWithoutQueueingAndReleasesPermit() throws Exception {
+        AdmissionFilter filter = filter(1000, 1000, 1, 100);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MockHttpServletResponse> slow = executor.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(request("/items/search", "1"), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return response;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertEquals(429, get(filter, "/items/search", "2").getStatus());
+            assertEquals(200, get(filter, "/items/7", "2").getStatus());
+
+            release.countDown();
+            assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(200, get(filter, "/items/search", "2").getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AdmissionFilter filter(double requestsPerSecond, int burst, int concurrency, int maxTrackedClients) {
+        return new AdmissionFilter(requestsPerSecond, burst,
+                Map.of(EndpointClass.SEARCH, concurrency, EndpointClass.FEED, concurrency,
+                        EndpointClass.READ, concurrency, EndpointClass.WRITE, concurrency),
+                maxTrackedClients, new ObjectMapper(), meterRegistry, clock::get);
+    }
+
+    private static MockHttpServletResponse get(AdmissionFilter filter, String path, String userId) throws Exception {
+        return send(filter, request(path, userId));
+    }
+
+    private static MockHttpServletResponse send(AdmissionFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader(AdmissionFilter.USER_HEADER, userId);
+        return request;
+    }
+
+    private static MockHttpServletRequest anonymous(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items");
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
@@ -0,0 +1,277 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryBookingRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private final InMemoryBookingRepository repository = new InMemoryBookingRepository();
+    private final User booker = user(2L);
+    private final Item item = item(1L);
+
+    @Test
+    void approvedBookingBlocksOverlappingIntervalsOnly() {
+        Booking approved = repository.save(booking(item, 10, 20, Booking.BookingStatus.APPROVED));
+
+        assertThrows(ConflictException.class, () -> repository.save(booking(item, 15, 25, Booking.BookingStatus.WAITING)));
+        assertThrows(ConflictException.class, () -> repository.save(booking(item, 5, 11, Booking.BookingStatus.WAITING)));
+        assertThrows(ConflictException.class, () -> repository.save(booking(item, 12, 18, Booking.BookingStatus.APPROVED)));
+        assertDoesNotThrow(() -> repository.save(booking(item, 20, 30, Booking.BookingStatus.APPROVED)));
+        assertDoesNotThrow(() -> repository.save(booking(item, 0, 10, Booking.BookingStatus.WAITING)));
+        assertDoesNotThrow(() -> repository.save(booking(item(3L), 10, 20, Booking.BookingStatus.APPROVED)));
+
+        repository.save(BookingMapper.withStatus(approved, Booking.BookingStatus.CANCELED));
+        assertDoesNotThrow(() -> repository.save(booking(item, 15, 19, Booking.BookingStatus.APPROVED)));
+    }
+
+    @Test
+    void concurrentApprovalsOfOverlappingBookingsLeaveOneApproved() throws Exception {
+        int threads = 8;
+        List<Booking> waiting = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            waiting.add(repository.save(booking(item, i, i + threads, Booking.BookingStatus.WAITING)));
+        }
+        AtomicInteger approvedCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Booking booking : waiting) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        repository.save(BookingMapper.withStatus(booking, Booking.BookingStatus.APPROVED));
+                        approvedCount.incrementAndGet();
+                    } catch (ConflictException ignored) {
+                        // интервал уже занят другим подтверждённым бронированием
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, approvedCount.get());
+    }
+
+    @Test
+    void racingApproveAndCancelNeverResurrectCanceledBooking() throws Exception {
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < rounds; i++) {
+                Booking waiting = repository.save(booking(item, 24 * i, 24 * i + 1, Booking.BookingStatus.WAITING));
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> approve = executor.submit(() -> {
+                    start.await();
+                    return repository.updateStatus(waiting.getId(), EnumSet.of(Booking.BookingStatus.WAITING),
+                            Booking.BookingStatus.APPROVED);
+                });
+                Future<Optional<Booking>> cancel = executor.submit(() -> {
+                    start.await();
+                    return repository.updateStatus(waiting.getId(),
+                            EnumSet.of(Booking.BookingStatus.WAITING, Booking.BookingStatus.APPROVED),
+                            Booking.BookingStatus.CANCELED);
+                });
+                start.countDown();
+                approve.get();
+
+                assertTrue(cancel.get().isPresent());
+                assertEquals(Booking.BookingStatus.CANCELED,
+                        repository.findById(waiting.getId()).orElseThrow().getStatus());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        LocalDate today = NOW.toLocalDate();
+        assertFalse(repository.isBooked(item.getId(), today, today.plusDays(rounds)));
+        assertDoesNotThrow(() -> repository.save(booking(item, 0, 24 * rounds, Booking.BookingStatus.APPROVED)));
+        assertTrue(repository.updateStatus(-1L, EnumSet.allOf(Booking.BookingStatus.class),
+                Booking.BookingStatus.CANCELED).isEmpty());
+    }
+
+    @Test
+    void bookerAndOwnerBookingsAreSelectedByStateNewestFirst() {
+        Booking past = repository.save(booking(item, -30, -20, Booking.BookingStatus.APPROVED));
+        Booking current = repository.save(booking(item, -10, 10, Booking.BookingStatus.APPROVED));
+        Booking rejected = repository.save(booking(item, 20, 30, Booking.BookingStatus.WAITING));
+        repository.save(BookingMapper.withStatus(rejected, Booking.BookingStatus.REJECTED));
+        Booking waiting = repository.save(booking(item, 40, 50, Booking.BookingStatus.WAITING));
+
+        assertEquals(List.of(waiting.getId(), rejected.getId(), current.getId(), past.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.ALL, NOW, Pagination.ALL)));
+        assertEquals(List.of(waiting.getId(), rejected.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.FUTURE, NOW, Pagination.ALL)));
+        assertEquals(List.of(current.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT, NOW, Pagination.ALL)));
+        assertEquals(List.of(past.getId()),
+                ids(repository.findByOwnerId(item.getOwner().getId(), BookingState.PAST, NOW, Pagination.ALL)));
+        assertEquals(List.of(waiting.getId()),
+                ids(repository.findByOwnerId(item.getOwner().getId(), BookingState.WAITING, NOW, Pagination.ALL)));
+        assertEquals(List.of(rejected.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.REJECTED, NOW, Pagination.ALL)));
+        assertEquals(List.of(rejected.getId(), current.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.ALL, NOW, Pagination.of(null, 1, 2))));
+        assertTrue(repository.findByOwnerId(booker.getId(), BookingState.ALL, NOW, Pagination.ALL).findAny().isEmpty());
+    }
+
+    @Test
+    void currentAndPastAreSelectedFromLongHistory() {
+        int history = 10_000;
+        List<Long> past = new ArrayList<>();
+        for (int i = 1; i <= history; i++) {
+            Item rented = item(100L + i % 50);
+            past.add(repository.save(booking(rented, -2 * i, -2 * i + 1, Booking.BookingStatus.APPROVED)).getId());
+        }
+        Booking longRunning = repository.save(booking(item(3L), -3 * history, 100, Booking.BookingStatus.APPROVED));
+        Booking current = repository.save(booking(item, -1, 1, Booking.BookingStatus.WAITING));
+        Booking endedNow = repository.save(booking(item(4L), -5, 0, Booking.BookingStatus.APPROVED));
+        repository.save(booking(item, 5, 6, Booking.BookingStatus.WAITING));
+
+        assertEquals(List.of(current.getId(), longRunning.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT, NOW, Pagination.ALL)));
+        assertEquals(List.of(longRunning.getId()),
+                ids(repository.findByOwnerId(item.getOwner().getId(), BookingState.CURRENT, NOW, Pagination.of(null, 1, 5))));
+        assertEquals(past.subList(0, 3),
+                ids(repository.findByBookerId(booker.getId(), BookingState.PAST, NOW, Pagination.of(null, 0, 3))));
+        assertEquals(past.subList(5_000, 5_002),
+                ids(repository.findByOwnerId(item.getOwner().getId(), BookingState.PAST, NOW, Pagination.of(null, 5_000, 2))));
+        assertEquals(history, repository.findByBookerId(booker.getId(), BookingState.PAST, NOW, Pagination.ALL).count());
+        assertTrue(repository.findByBookerId(booker.getId(), BookingState.ALL, NOW, Pagination.ALL)
+                .anyMatch(booking -> booking.getId().equals(endedNow.getId())));
+
+        repository.save(BookingMapper.withStatus(current, Booking.BookingStatus.CANCELED));
+        assertEquals(List.of(current.getId(), longRunning.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT, NOW, Pagination.ALL)));
+    }
+
+    @Test
+    void currentIsPagedAmongStartedBookingsWithoutFutureOnes() {
+        List<Long> future = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            future.add(repository.save(booking(item(100L + i % 50), 2 * i, 2 * i + 1, Booking.BookingStatus.WAITING))
+                    .getId());
+        }
+        Booking older = repository.save(booking(item(3L), -30, 24, Booking.BookingStatus.APPROVED));
+        Booking newer = repository.save(booking(item(4L), -2, 3, Booking.BookingStatus.APPROVED));
+        repository.save(booking(item(5L), -40, -31, Booking.BookingStatus.APPROVED));
+
+        assertEquals(List.of(newer.getId(), older.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT, NOW, Pagination.ALL)));
+        assertEquals(List.of(older.getId()),
+                ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT, NOW, Pagination.of(null, 1, 1))));
+        assertEquals(List.of(future.get(11)), ids(repository.findByBookerId(booker.getId(), BookingState.CURRENT,
+                NOW.plusHours(24), Pagination.ALL)));
+    }
+
+    @Test
+    void bookedDaysFollowApprovalsAndCancellations() {
+        LocalDate today = NOW.toLocalDate();
+        Booking firstDays = repository.save(booking(item, 0, 48, Booking.BookingStatus.APPROVED));
+        repository.save(booking(item, 60, 84, Booking.BookingStatus.APPROVED));
+        repository.save(booking(item, 24 * 100, 24 * 250, Booking.BookingStatus.APPROVED));
+        Booking morning = repository.save(booking(item, 19 * 24 - 4, 19 * 24 - 2, Booking.BookingStatus.APPROVED));
+        repository.save(booking(item, 19 * 24 + 2, 19 * 24 + 4, Booking.BookingStatus.APPROVED));
+        Booking waiting = repository.save(booking(item, 24 * 30, 24 * 31, Booking.BookingStatus.WAITING));
+
+        assertTrue(repository.isBooked(item.getId(), today.minusDays(7), today));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(2), today.plusDays(2)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(3), today.plusDays(3)));
+        assertFalse(repository.isBooked(item.getId(), today.plusDays(4), today.plusDays(18)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(150), today.plusDays(151)));
+        assertFalse(repository.isBooked(item.getId(), today.plusDays(251), today.plusDays(400)));
+        assertFalse(repository.isBooked(item.getId(), today.plusDays(30), today.plusDays(31)));
+        assertFalse(repository.isBooked(item(3L).getId(), today, today.plusDays(400)));
+
+        repository.save(BookingMapper.withStatus(firstDays, Booking.BookingStatus.CANCELED));
+        repository.save(BookingMapper.withStatus(morning, Booking.BookingStatus.CANCELED));
+        repository.save(BookingMapper.withStatus(waiting, Booking.BookingStatus.APPROVED));
+
+        assertFalse(repository.isBooked(item.getId(), today, today.plusDays(2)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(19), today.plusDays(19)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(30), today.plusDays(30)));
+    }
+
+    @Test
+    void bookingsReachingFarFutureAreCheckedPastTheDayMapWindow() {
+        LocalDate today = NOW.toLocalDate();
+        repository.save(booking(item, -12, 12, Booking.BookingStatus.APPROVED));
+        Booking farFuture = booking(item, 24 * 20_000, 24, Booking.BookingStatus.APPROVED);
+        farFuture.setEnd(LocalDateTime.of(9999, 12, 31, 0, 0));
+        repository.save(farFuture);
+        Booking endless = booking(item(3L), 0, 24, Booking.BookingStatus.APPROVED);
+        endless.setEnd(LocalDateTime.of(LocalDate.MAX.getYear(), 12, 31, 0, 0));
+        repository.save(endless);
+
+        assertTrue(repository.isBooked(item.getId(), today, today));
+        assertFalse(repository.isBooked(item.getId(), today.plusDays(1), today.plusDays(19_999)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(20_000), today.plusDays(20_000)));
+        assertTrue(repository.isBooked(item.getId(), today.plusDays(5_000), today.plusDays(30_000)));
+        assertTrue(repository.isBooked(item.getId(), LocalDate.of(9999, 12, 30), LocalDate.of(9999, 12, 30)));
+        assertFalse(repository.isBooked(item.getId(), LocalDate.of(9999, 12, 31), LocalDate.MAX));
+        assertTrue(repository.isBooked(item(3L).getId(), LocalDate.of(500_000, 1, 1), LocalDate.MAX));
+
+        repository.save(BookingMapper.withStatus(farFuture, Booking.BookingStatus.CANCELED));
+        assertFalse(repository.isBooked(item.getId(), today.plusDays(1), LocalDate.MAX));
+        assertTrue(repository.isBooked(item.getId(), today.minusDays(1), today));
+    }
+
+    private static List<Long> ids(Stream<Booking> bookings) {
+        return bookings.map(Booking::getId).toList();
+    }
+
+    private Booking booking(Item item, int startHour, int endHour, Booking.BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(NOW.plusHours(startHour));
+        booking.setEnd(NOW.plusHours(endHour));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private static Item item(Long id) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName("Дрель");
+        item.setDescription("Простая дрель");
+        item.setAvailable(true);
+        item.setOwner(user(1L));
+        return item;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("user" + id);
+        user.setEmail("user" + id + "@mail.ru");
+        return user;
+    }
+}
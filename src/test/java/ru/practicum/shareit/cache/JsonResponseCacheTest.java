@@ -0,0 +1,113 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JsonResponseCacheTest {
+
+    private static final ToLongFunction<Map<String, ? extends Number>> ID = value -> value.get("id").longValue();
+
+    private final JsonResponseCache<Long> cache =
+            new JsonResponseCache<>("test", new ObjectMapper(), 2, Duration.ofMinutes(5));
+
+    @Test
+    void repeatedGetIsServedFromCacheUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+
+        CachedResponse first = cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+        CachedResponse second = cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+
+        assertEquals(1, loads.get());
+        assertEquals("{\"id\":1}", new String(second.body(), StandardCharsets.UTF_8));
+        assertEquals(first.etag(), second.etag());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        cache.invalidate(1L);
+        CachedResponse reloaded = cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+
+        assertEquals(2, loads.get());
+        assertNotEquals(first.etag(), reloaded.etag());
+    }
+
+    @Test
+    void matchingIfNoneMatchReturnsNotModifiedWithoutBody() {
+        CachedResponse response = cache.get(1L, () -> Map.of("id", 1), ID);
+
+        ResponseEntity<byte[]> notModified = response.toResponseEntity("W/\"other\", " + response.etag());
+        ResponseEntity<byte[]> modified = response.toResponseEntity("\"other\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+        assertEquals(response.etag(), modified.getHeaders().getETag());
+    }
+
+    @Test
+    void overflowEvictsOldestEntries() {
+        for (long id = 1; id <= 3; id++) {
+            long value = id;
+            cache.get(id, () -> Map.of("id", value), ID);
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadStartedBeforeInvalidationIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return Map.of("id", loads.incrementAndGet());
+        }, ID);
+        cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+        CachedResponse cached = cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+
+        assertEquals(2, loads.get());
+        assertEquals(EntityTags.of(1L, 2), cached.etag());
+    }
+
+    @Test
+    void invalidatingManyKeysKeepsCacheUsable() {
+        for (long id = 0; id < 100_000; id++) {
+            cache.invalidate(id);
+        }
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+        cache.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        JsonResponseCache<Long> shortLived =
+                new JsonResponseCache<>("short", new ObjectMapper(), 10, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        shortLived.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+        shortLived.get(1L, () -> Map.of("id", loads.incrementAndGet()), ID);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.item.mapper.ItemJsonWriter;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.mapper.UserJsonWriter;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonStreamWriterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final JsonStreamWriter writer = new JsonStreamWriter(objectMapper, new SimpleMeterRegistry());
+
+    @Test
+    void itemArrayMatchesJacksonOutputForDtos() throws IOException {
+        User owner = user(1L, "Владелец", "owner@mail.ru");
+        ItemRequest request = new ItemRequest();
+        request.setId(5L);
+        List<Item> items = List.of(
+                item(1L, "Дрель \"Bosch\"", "Ударная\\сетевая\n\tс кейсом 🔧", true, owner, null),
+                item(2L, "Пила", "", false, owner, request),
+                item(3L, null, "без названия \u0001", true, owner, null));
+
+        String expected = toJson(items.stream().map(ItemMapper::toItemDto).toList());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeArray(out, items.stream(), ItemJsonWriter::write);
+
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void userNdjsonMatchesJacksonOutputForDtos() throws IOException {
+        List<User> users = List.of(user(1L, "Анна", "anna@mail.ru"), user(2L, "Bob </script>", "bob@mail.ru"));
+
+        String expected = users.stream()
+                .map(UserMapper::toUserDto)
+                .map(this::toJson)
+                .collect(Collectors.joining("\n", "", "\n"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeNdjson(out, users.stream(), UserJsonWriter::write);
+
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void emptyStreamWritesEmptyArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeArray(out, Stream.<User>empty(), UserJsonWriter::write);
+
+        assertEquals(toJson(List.of()), out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Как в HTTP-ответе: через UTF-8 генератор, который, в отличие от writeValueAsString,
+     * экранирует суррогатные пары.
+     */
+    private String toJson(Object value) {
+        try {
+            return new String(objectMapper.writeValueAsBytes(value), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static User user(Long id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static Item item(Long id, String name, String description, boolean available, User owner,
+                             ItemRequest request) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        item.setRequest(request);
+        return item;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PersistentSortedMapTest {
+
+    @Test
+    void randomOperationsMatchTreeMapAndKeepOldVersions() {
+        Random random = new Random(42);
+        TreeMap<Long, String> expected = new TreeMap<>();
+        PersistentSortedMap<Long, String> map = PersistentSortedMap.empty();
+        List<PersistentSortedMap<Long, String>> versions = new ArrayList<>();
+        List<List<String>> versionValues = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+            if (i % 1_000 == 0) {
+                versions.add(map);
+                versionValues.add(List.copyOf(expected.values()));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(List.copyOf(expected.values()), map.values().toList());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(versionValues.get(i), versions.get(i).values().toList());
+        }
+    }
+
+    @Test
+    void valuesReturnsOpenRangeInKeyOrder() {
+        PersistentSortedMap<Long, Long> map = PersistentSortedMap.empty();
+        for (long key = 1; key <= 100; key++) {
+            map = map.put(key * 10, key * 10);
+        }
+
+        assertEquals(List.of(60L, 70L, 80L), map.values(50L, 90L).toList());
+        assertEquals(List.of(60L, 70L), map.values(55L, 75L).toList());
+        assertEquals(LongStream.rangeClosed(99, 100).map(key -> key * 10).boxed().toList(),
+                map.values(980L, null).toList());
+        assertEquals(List.of(10L, 20L), map.values(null, 21L).toList());
+        assertEquals(List.of(), map.values(1000L, null).toList());
+        assertEquals(60L, map.ceilingValue(55L));
+        assertEquals(60L, map.ceilingValue(60L));
+        assertEquals(10L, map.ceilingValue(Long.MIN_VALUE));
+        assertNull(map.ceilingValue(1001L));
+        assertEquals(1000L, map.lastValue());
+        assertNull(PersistentSortedMap.<Long, Long>empty().lastValue());
+    }
+
+    @Test
+    void unchangedWriteReturnsSameVersion() {
+        String value = "value";
+        PersistentSortedMap<Long, String> map = PersistentSortedMap.<Long, String>empty().put(1L, value);
+
+        assertSame(map, map.put(1L, value));
+        assertSame(map, map.remove(2L));
+        assertNull(map.remove(1L).get(1L));
+    }
+}
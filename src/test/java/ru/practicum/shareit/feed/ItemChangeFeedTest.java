@@ -0,0 +1,141 @@
+package ru.practicum.shareit.feed;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "shareit.feed.buffer-size=4")
+class ItemChangeFeedTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ItemChangeFeed itemChangeFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void subscriberReceivesOnlyMatchingChanges() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/items/feed?text="
+                        + URLEncoder.encode("ДРЕЛЬ", StandardCharsets.UTF_8)))
+                .header("Accept", "text/event-stream")
+                .build();
+        BlockingQueue<String> data = new LinkedBlockingQueue<>();
+        int subscribers = itemChangeFeed.subscriberCount();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        Thread reader = Thread.ofVirtual().start(() -> response.body()
+                .filter(line -> line.startsWith("data:"))
+                .forEach(data::add));
+        try {
+            assertEquals(200, response.statusCode());
+            awaitSubscribers(subscribers + 1);
+
+            itemChangeFeed.publish(item(101L, 1L, "Пила", "Ручная"));
+            itemChangeFeed.publish(item(102L, 1L, "Набор", "Дрель и биты"));
+
+            String event = data.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull(event);
+            assertTrue(event.contains("\"id\":102"), event);
+        } finally {
+            reader.interrupt();
+            response.body().close();
+        }
+    }
+
+    @Test
+    void ownerSubscriberReceivesDeletesOfOwnItemsOnly() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/items/feed?ownerId=9"))
+                .header("Accept", "text/event-stream")
+                .build();
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        int subscribers = itemChangeFeed.subscriberCount();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        Thread reader = Thread.ofVirtual().start(() -> response.body()
+                .filter(line -> line.startsWith("event:") || line.startsWith("data:"))
+                .forEach(events::add));
+        try {
+            awaitSubscribers(subscribers + 1);
+
+            itemChangeFeed.publishDeleted(201L, 8L);
+            itemChangeFeed.publish(item(202L, 9L, "Пила", "Ручная"));
+            itemChangeFeed.publishDeleted(202L, 9L);
+
+            assertEquals("event:deleted", events.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertEquals("data:{\"id\":202}", events.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } finally {
+            reader.interrupt();
+            response.body().close();
+        }
+    }
+
+    @Test
+    void subscriberThatDoesNotReadIsDropped() throws Exception {
+        double droppedBefore = meterRegistry.get("shareit.feed.dropped").counter().count();
+        int subscribers = itemChangeFeed.subscriberCount();
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(1024);
+            socket.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /items/feed?ownerId=7 HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            awaitSubscribers(subscribers + 1);
+
+            String description = "x".repeat(32 * 1024);
+            for (long id = 1; id <= 400 && itemChangeFeed.subscriberCount() > subscribers; id++) {
+                itemChangeFeed.publish(item(1000 + id, 7L, "Вещь " + id, description));
+            }
+            awaitSubscribers(subscribers);
+        }
+        assertEquals(droppedBefore + 1, meterRegistry.get("shareit.feed.dropped").counter().count());
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (itemChangeFeed.subscriberCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, itemChangeFeed.subscriberCount());
+    }
+
+    private static Item item(Long id, Long ownerId, String name, String description) {
+        User owner = new User();
+        owner.setId(ownerId);
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return item;
+    }
+}
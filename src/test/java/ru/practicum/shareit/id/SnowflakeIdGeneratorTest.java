@@ -0,0 +1,147 @@
+package ru.practicum.shareit.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int NODES = 4;
+    private static final int THREADS_PER_NODE = 2;
+    private static final int IDS_PER_THREAD = 50_000;
+    private static final long START_MILLIS = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000;
+    private static final int IDS_PER_MILLI = 1 << SnowflakeIdGenerator.SEQUENCE_BITS;
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    @Test
+    void concurrentGeneratorsOnDifferentNodesNeverCollide() throws Exception {
+        List<SnowflakeIdGenerator> generators = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            generators.add(new SnowflakeIdGenerator(node * 10L));
+        }
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (SnowflakeIdGenerator generator : generators) {
+                for (int t = 0; t < THREADS_PER_NODE; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        long previous = Long.MIN_VALUE;
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            long id = generator.nextId();
+                            assertTrue(id > previous, "id одного потока должны возрастать");
+                            previous = id;
+                            ids.add(id);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(NODES * THREADS_PER_NODE * IDS_PER_THREAD, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0 && id <= MAX_SAFE_INTEGER));
+    }
+
+    @Test
+    void exhaustedMillisecondAndClockGoingBackBorrowNextMilliseconds() {
+        AtomicLong clock = new AtomicLong(START_MILLIS);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, clock::get);
+
+        long previous = 0;
+        for (int i = 0; i < IDS_PER_MILLI + 1; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(5, SnowflakeIdGenerator.node(id));
+            previous = id;
+        }
+        assertEquals(START_MILLIS + 1, SnowflakeIdGenerator.timestampMillis(previous));
+
+        clock.set(START_MILLIS - 10_000);
+        long afterClockWentBack = generator.nextId();
+        assertTrue(afterClockWentBack > previous);
+        assertEquals(START_MILLIS + 1, SnowflakeIdGenerator.timestampMillis(afterClockWentBack));
+    }
+
+    @Test
+    void blockContinuesIntoNextMillisecondsAndFollowsSingleIds() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, () -> START_MILLIS);
+
+        long single = generator.nextId();
+        long[] block = generator.nextIds(IDS_PER_MILLI);
+        long next = generator.nextId();
+
+        assertEquals(IDS_PER_MILLI, block.length);
+        assertTrue(block[0] > single);
+        for (int i = 1; i < block.length; i++) {
+            assertTrue(block[i] > block[i - 1]);
+            assertEquals(3, SnowflakeIdGenerator.node(block[i]));
+        }
+        assertEquals(START_MILLIS, SnowflakeIdGenerator.timestampMillis(block[0]));
+        assertEquals(START_MILLIS + 1, SnowflakeIdGenerator.timestampMillis(block[block.length - 1]));
+        assertTrue(next > block[block.length - 1]);
+        assertEquals(0, generator.nextIds(0).length);
+    }
+
+    @Test
+    void idsFitInJavaScriptSafeIntegersUntilTimeRunsOut() {
+        long lastMillis = SnowflakeIdGenerator.EPOCH_MILLIS + (1L << 41) - 1;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE, () -> lastMillis);
+
+        long[] ids = generator.nextIds(IDS_PER_MILLI);
+
+        assertEquals(MAX_SAFE_INTEGER, ids[ids.length - 1]);
+        assertEquals(lastMillis, SnowflakeIdGenerator.timestampMillis(ids[ids.length - 1]));
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void sequentialBlockIsContiguous() {
+        IdGenerator generator = IdGenerator.sequential();
+        generator.observe(10);
+
+        assertArrayEquals(new long[]{11, 12, 13}, generator.nextIds(3));
+        assertEquals(14, generator.nextId());
+    }
+
+    @Test
+    void observedIdsOfSameNodeAreNotReissued() {
+        long recovered = new SnowflakeIdGenerator(7, () -> START_MILLIS + 60_000).nextId();
+        long otherNode = new SnowflakeIdGenerator(8, () -> START_MILLIS + 120_000).nextId();
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(7, () -> START_MILLIS);
+
+        restarted.observe(otherNode);
+        restarted.observe(recovered);
+
+        long next = restarted.nextId();
+        assertTrue(next > recovered);
+        assertEquals(START_MILLIS + 60_000, SnowflakeIdGenerator.timestampMillis(next));
+    }
+
+    @Test
+    void nodeMustFitItsBits() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+}
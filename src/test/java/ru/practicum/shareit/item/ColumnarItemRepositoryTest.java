@@ -0,0 +1,345 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.item.InMemoryItemRepositoryTest.item;
+import static ru.practicum.shareit.item.InMemoryItemRepositoryTest.owner;
+
+@Slf4j
+class ColumnarItemRepositoryTest {
+
+    private static final int FOOTPRINT_ITEMS = 20_000;
+    private static final int FOOTPRINT_OWNERS = 500;
+    private static final int WRITERS = 4;
+    private static final String[] WORDS = {"дрель", "перфоратор", "лобзик", "палатка", "велосипед", "лестница"};
+
+    private final ColumnarItemRepository repository = new ColumnarItemRepository();
+
+    @Test
+    void ownerIndexAndColumnsFollowSavesAndDeletes() {
+        User first = owner(1L);
+        User second = owner(2L);
+        Item drill = repository.save(item(first, "Дрель", "Простая дрель", true));
+        Item saw = repository.save(item(first, "Пила", "Ручная пила", false));
+        ItemRequest request = new ItemRequest();
+        request.setId(7L);
+        saw.setRequest(request);
+        repository.save(saw);
+
+        Item found = repository.findById(saw.getId()).orElseThrow();
+        assertEquals("Пила", found.getName());
+        assertEquals("Ручная пила", found.getDescription());
+        assertFalse(found.isAvailable());
+        assertEquals(first.getId(), found.getOwner().getId());
+        assertEquals(7L, found.getRequest().getId());
+        assertNull(repository.findById(drill.getId()).orElseThrow().getRequest());
+
+        Item movedSaw = item(second, saw.getName(), saw.getDescription(), true);
+        movedSaw.setId(saw.getId());
+        repository.save(movedSaw);
+        assertEquals(List.of(drill.getId()), ids(repository.findByOwnerId(first.getId(), Pagination.ALL)));
+        assertEquals(List.of(saw.getId()), ids(repository.findByOwnerId(second.getId(), Pagination.ALL)));
+
+        repository.delete(drill.getId());
+        assertTrue(repository.findById(drill.getId()).isEmpty());
+        assertEquals(List.of(saw.getId()), List.copyOf(repository.deleteByOwnerId(second.getId())));
+        assertEquals(0L, repository.count());
+
+        Item restored = item(first, "Дрель", "Вернулась", true);
+        restored.setId(drill.getId());
+        repository.save(restored);
+        assertEquals("Вернулась", repository.findById(drill.getId()).orElseThrow().getDescription());
+        assertEquals(1L, repository.count());
+    }
+
+    @Test
+    void searchIgnoresCaseWithoutIndexAndIsPageable() {
+        User owner = owner(1L);
+        Item drill = repository.save(item(owner, "Дрель", "Аккумуляторная ДРЕЛЬ", true));
+        repository.save(item(owner, "Дрель ударная", "Недоступна", false));
+        Item saw = repository.save(item(owner, "Пила Ёлка", "Для дерева", true));
+        Item tent = repository.save(item(owner, "Палатка", "Дрель в комплекте", true));
+
+        assertEquals(List.of(drill.getId(), tent.getId()), ids(repository.searchByText("дрел", Pagination.ALL).items()));
+        assertEquals(List.of(saw.getId()), ids(repository.searchByText("ёлк", Pagination.ALL).items()));
+        assertEquals(List.of(tent.getId()), ids(repository.searchByText("дрел", Pagination.of(drill.getId(), 0, 5)).items()));
+        assertEquals(List.of(tent.getId()), ids(repository.searchByText("дрел", Pagination.of(null, 1, 1)).items()));
+        assertTrue(repository.searchByText("бензопила", Pagination.ALL).items().findAny().isEmpty());
+        assertEquals(List.of(drill.getId(), tent.getId()), ids(repository.searchTopByText("дрель", 5).items()));
+    }
+
+    @Test
+    void saveAllRejectsStaleItems() {
+        Item drill = repository.save(item(owner(1L), "Дрель", "Простая", true));
+        Item saw = repository.save(item(owner(1L), "Пила", "Ручная", true));
+        assertTrue(repository.saveIfVersion(ItemMapper.toUpdatedItem(drill, new ItemDto(null, "Дрель ударная", null, null, null)), 0L));
+
+        List<Item> saved = repository.saveAll(List.of(
+                ItemMapper.toUpdatedItem(drill, new ItemDto(null, "Перфоратор", null, null, null)),
+                ItemMapper.toUpdatedItem(saw, new ItemDto(null, "Ножовка", null, null, null))));
+
+        assertNull(saved.get(0));
+        assertEquals("Ножовка", saved.get(1).getName());
+        assertEquals("Дрель ударная", repository.findById(drill.getId()).orElseThrow().getName());
+        assertEquals(1L, repository.findById(saw.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void saveIfVersionRejectsStaleAndDeletedItems() {
+        Item drill = repository.save(item(owner(1L), "Дрель", "Простая", true));
+        Item renamed = ItemMapper.toUpdatedItem(drill, new ItemDto(null, "Дрель ударная", null, null, null));
+
+        assertTrue(repository.saveIfVersion(renamed, 0L));
+        assertEquals(1L, repository.findById(drill.getId()).orElseThrow().getVersion());
+        assertFalse(repository.saveIfVersion(ItemMapper.toUpdatedItem(drill, new ItemDto(null, "Пила", null, null, null)), 0L));
+        assertEquals("Дрель ударная", repository.findById(drill.getId()).orElseThrow().getName());
+
+        repository.delete(drill.getId());
+        assertFalse(repository.saveIfVersion(ItemMapper.toUpdatedItem(renamed, new ItemDto(null, null, null, false, null)), 1L));
+        assertTrue(repository.findById(drill.getId()).isEmpty());
+    }
+
+    @Test
+    void deletedSlotsAndUnusedTextsAreCompacted() {
+        User owner = owner(1L);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            items.add(item(owner, "Вещь " + i, "Описание " + "x".repeat(64) + i, i % 2 == 0));
+        }
+        repository.saveAll(items);
+        for (int i = 0; i < 4_000; i++) {
+            repository.delete(items.get(i).getId());
+        }
+        Item late = repository.save(item(owner, "Вещь поздняя", "Описание", true));
+
+        assertEquals(1_001L, repository.count());
+        assertEquals("Вещь 4999", repository.findById(items.get(4_999).getId()).orElseThrow().getName());
+        assertEquals(Stream.of(4_000, 4_002, 4_004, 4_006, 4_008).map(i -> items.get(i).getId()).toList(),
+                ids(repository.searchByText("вещь 400", Pagination.ALL).items()));
+        try (Stream<Item> all = repository.findAll()) {
+            List<Long> allIds = ids(all);
+            assertEquals(1_001, allIds.size());
+            assertEquals(items.get(4_000).getId(), allIds.get(0));
+            assertEquals(late.getId(), allIds.get(allIds.size() - 1));
+        }
+    }
+
+    @Test
+    void offHeapTextsBehaveTheSame() {
+        ColumnarItemRepository offHeap = new ColumnarItemRepository(Journal.DISABLED, true, IdGenerator.sequential());
+        Item drill = offHeap.save(item(owner(1L), "Дрель", "Аккумуляторная", true));
+
+        assertEquals("Аккумуляторная", offHeap.findById(drill.getId()).orElseThrow().getDescription());
+        assertEquals(List.of(drill.getId()), ids(offHeap.searchByText("ДРЕЛ".toLowerCase(), Pagination.ALL).items()));
+    }
+
+    @Test
+    void offHeapRewritesReuseArenaInsteadOfGrowing() {
+        ColumnarItemRepository offHeap = new ColumnarItemRepository(Journal.DISABLED, true, IdGenerator.sequential());
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            items.add(offHeap.save(item(owner(1L), "Вещь " + i, "Описание", true)));
+        }
+        for (int round = 0; round < 20_000; round++) {
+            Item item = items.get(round % items.size());
+            item.setDescription("Описание после правки номер " + round + " " + WORDS[round % WORDS.length].repeat(8));
+            offHeap.save(item);
+        }
+
+        assertTrue(offHeap.textArenaBytes() <= 3L * OffHeapTextArena.SLAB_BYTES, offHeap.textArenaBytes() + " байт");
+        for (Item item : items) {
+            assertEquals(item.getDescription(), offHeap.findById(item.getId()).orElseThrow().getDescription());
+        }
+        assertEquals(List.of(items.get(299).getId()), ids(offHeap.searchByText("вещь 299", Pagination.ALL).items()));
+    }
+
+    @Test
+    void ownerWithManyItemsIsPagedAcrossChunks() {
+        User owner = owner(1L);
+        User other = owner(2L);
+        List<Long> saved = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            saved.add(repository.save(item(i % 3 == 0 ? other : owner, "Вещь " + i, "Описание", true)).getId());
+        }
+        List<Long> owned = saved.stream().filter(id -> (id - saved.get(0)) % 3 != 0).toList();
+
+        assertEquals(owned, ids(repository.findByOwnerId(owner.getId(), Pagination.ALL)));
+        assertEquals(owned.subList(501, 511), ids(repository.findByOwnerId(owner.getId(), Pagination.of(owned.get(499), 1, 10))));
+
+        for (int i = 0; i < 1_500; i++) {
+            Item moved = item(other, "Вещь", "Передана", true);
+            moved.setId(owned.get(i));
+            repository.save(moved);
+        }
+        repository.delete(owned.get(1_500));
+        assertEquals(owned.subList(1_501, owned.size()), ids(repository.findByOwnerId(owner.getId(), Pagination.ALL)));
+        assertEquals(3_000 - owned.size() + 1_500, repository.findByOwnerId(other.getId(), Pagination.ALL).count());
+        assertEquals(2_999L, repository.count());
+    }
+
+    @Test
+    void searchOverBudgetReturnsPartialResult() {
+        try (ItemSearchExecutor executor = new ItemSearchExecutor(2, Duration.ofMillis(50))) {
+            ColumnarItemRepository parted = new ColumnarItemRepository(Journal.DISABLED, executor, false,
+                    IdGenerator.sequential());
+            for (int i = 0; i < 2 * ColumnChunk.CAPACITY; i++) {
+                parted.save(item(owner(1L), "Дрель " + i, "Описание", true));
+            }
+            assertEquals(2 * ColumnChunk.CAPACITY, parted.searchByText("дрель", Pagination.ALL).items().count());
+            CountDownLatch busy = new CountDownLatch(1);
+            for (int i = 0; i < executor.shards(); i++) {
+                executor.pool().execute(() -> {
+                    try {
+                        busy.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            ItemSearchResult result = parted.searchByText("дрель", Pagination.ALL);
+            ItemSearchResult top = parted.searchTopByText("дрель", 5);
+            busy.countDown();
+
+            assertTrue(result.partial());
+            assertTrue(result.items().findAny().isEmpty());
+            assertTrue(top.partial());
+            assertFalse(parted.searchByText("дрель", Pagination.ALL).partial());
+        }
+    }
+
+    @Test
+    void searchesReadOneVersionWhileWritersUpdateDifferentItems() throws Exception {
+        User owner = owner(1L);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            items.add(item(owner, "Дрель " + i, "Описание", true));
+        }
+        repository.saveAll(items);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < WRITERS; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = thread; i < items.size(); i += WRITERS) {
+                        Item stored = repository.findById(items.get(i).getId()).orElseThrow();
+                        Item renamed = ItemMapper.toUpdatedItem(stored,
+                                new ItemDto(null, "Перфоратор " + i, null, null, null));
+                        assertTrue(repository.saveIfVersion(renamed, stored.getVersion()));
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> searcher = executor.submit(() -> {
+                int searches = 0;
+                while (writing.get()) {
+                    List<Item> found = repository.searchByText("0", Pagination.ALL).items().toList();
+                    assertEquals(found.stream().map(Item::getId).sorted().toList(), ids(found.stream()));
+                    searches++;
+                }
+                return searches;
+            });
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            assertTrue(searcher.get() > 0);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1_000L, repository.searchByText("перфоратор", Pagination.ALL).items().count());
+        assertTrue(repository.searchByText("дрель", Pagination.ALL).items().findAny().isEmpty());
+        assertEquals(1_000L, repository.findByOwnerId(owner.getId(), Pagination.ALL).count());
+    }
+
+    /**
+     * Отчёт о памяти на вещь: куча после сборки мусора и прямые буферы для обеих раскладок на одних данных.
+     */
+    @Test
+    void reportsFootprintAgainstObjectStore() {
+        Footprint objects = footprint(new InMemoryItemRepository());
+        Footprint columns = footprint(new ColumnarItemRepository());
+        Footprint offHeap = footprint(new ColumnarItemRepository(Journal.DISABLED, true, IdGenerator.sequential()));
+
+        log.info("Память на вещь при {} вещах: объекты {} байт, колонки {} байт, колонки с текстами вне кучи {} + {} байт",
+                FOOTPRINT_ITEMS, objects.heapPerItem(), columns.heapPerItem(), offHeap.heapPerItem(),
+                offHeap.directPerItem());
+        assertTrue(columns.heapPerItem() * 4 < objects.heapPerItem(), columns + " / " + objects);
+        assertTrue(offHeap.heapPerItem() < columns.heapPerItem(), offHeap + " / " + columns);
+    }
+
+    private static Footprint footprint(ItemRepository store) {
+        Footprint before = Footprint.measure();
+        List<User> owners = new ArrayList<>();
+        for (long i = 1; i <= FOOTPRINT_OWNERS; i++) {
+            owners.add(owner(i));
+        }
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < FOOTPRINT_ITEMS; i++) {
+            batch.add(item(owners.get(i % FOOTPRINT_OWNERS),
+                    WORDS[i % WORDS.length] + " инструмент модель" + Integer.toString(i, 36),
+                    "Почти новый " + WORDS[(i / WORDS.length) % WORDS.length], i % 10 != 0));
+            if (batch.size() == 1_000) {
+                store.saveAll(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        Footprint after = Footprint.measure();
+        assertEquals(FOOTPRINT_ITEMS, store.count());
+        return new Footprint(after.heap() - before.heap(), after.direct() - before.direct());
+    }
+
+    private static List<Long> ids(Stream<Item> items) {
+        return items.map(Item::getId).toList();
+    }
+
+    private record Footprint(long heap, long direct) {
+
+        static Footprint measure() {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                    .filter(pool -> pool.getName().equals("direct"))
+                    .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                    .sum();
+            return new Footprint(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), direct);
+        }
+
+        long heapPerItem() {
+            return heap / FOOTPRINT_ITEMS;
+        }
+
+        long directPerItem() {
+            return direct / FOOTPRINT_ITEMS;
+        }
+    }
+}
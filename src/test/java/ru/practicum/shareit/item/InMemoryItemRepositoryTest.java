@@ -0,0 +1,342 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryItemRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int ITEMS_PER_THREAD = 5_000;
+
+    private final InMemoryItemRepository repository = new InMemoryItemRepository();
+
+    @Test
+    void concurrentSavesProduceUniqueIds() throws Exception {
+        User owner = owner(1L);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                        ids.add(repository.save(item(owner, "Дрель", "Аккумуляторная дрель", true)).getId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(THREADS * ITEMS_PER_THREAD, ids.size());
+        assertEquals((long) THREADS * ITEMS_PER_THREAD, repository.findByOwnerId(owner.getId(), Pagination.ALL).count());
+    }
+
+    @Test
+    void concurrentVersionedUpdatesLoseNothing() throws Exception {
+        Item saved = repository.save(item(owner(1L), "Дрель", "0", true));
+        int updatesPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        while (true) {
+                            Item current = repository.findById(saved.getId()).orElseThrow();
+                            Item next = ItemMapper.toUpdatedItem(current, new ItemDto(null, null,
+                                    String.valueOf(Integer.parseInt(current.getDescription()) + 1), null, null));
+                            if (repository.saveIfVersion(next, current.getVersion())) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Item result = repository.findById(saved.getId()).orElseThrow();
+        assertEquals(THREADS * updatesPerThread, result.getVersion());
+        assertEquals(String.valueOf(THREADS * updatesPerThread), result.getDescription());
+        repository.delete(saved.getId());
+        assertFalse(repository.saveIfVersion(result, result.getVersion()));
+    }
+
+    @Test
+    void batchUpdatesRacingSingleUpdatesLoseNothing() throws Exception {
+        Item saved = repository.save(item(owner(1L), "Дрель", "0", true));
+        Item neighbour = repository.save(item(owner(1L), "Пила", "0", true));
+        int updatesPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean batch = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        while (true) {
+                            Item current = repository.findById(saved.getId()).orElseThrow();
+                            Item next = ItemMapper.toUpdatedItem(current, new ItemDto(null, null,
+                                    String.valueOf(Integer.parseInt(current.getDescription()) + 1), null, null));
+                            boolean applied = batch
+                                    ? repository.saveAll(List.of(next)).get(0) != null
+                                    : repository.saveIfVersion(next, current.getVersion());
+                            if (applied) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Item result = repository.findById(saved.getId()).orElseThrow();
+        assertEquals(THREADS * updatesPerThread, result.getVersion());
+        assertEquals(String.valueOf(THREADS * updatesPerThread), result.getDescription());
+
+        Item stale = ItemMapper.toUpdatedItem(saved, new ItemDto(null, "Старая", null, null, null));
+        Item fresh = ItemMapper.toUpdatedItem(neighbour, new ItemDto(null, "Ножовка", null, null, null));
+        List<Item> batchResult = repository.saveAll(List.of(stale, fresh));
+        assertNull(batchResult.get(0));
+        assertEquals(fresh, batchResult.get(1));
+        assertEquals(result, repository.findById(saved.getId()).orElseThrow());
+
+        repository.delete(neighbour.getId());
+        assertNull(repository.saveAll(List.of(ItemMapper.toUpdatedItem(fresh,
+                new ItemDto(null, "Лобзик", null, null, null)))).get(0));
+        assertTrue(repository.findById(neighbour.getId()).isEmpty());
+    }
+
+    @Test
+    void ownerIndexFollowsSavesAndDeletes() {
+        User first = owner(1L);
+        User second = owner(2L);
+        Item drill = repository.save(item(first, "Дрель", "Простая дрель", true));
+        Item saw = repository.save(item(first, "Пила", "Ручная пила", true));
+        Item tent = repository.save(item(second, "Палатка", "Двухместная", true));
+
+        assertEquals(List.of(drill.getId(), saw.getId()), ids(repository.findByOwnerId(first.getId(), Pagination.ALL)));
+
+        Item movedSaw = item(second, saw.getName(), saw.getDescription(), true);
+        movedSaw.setId(saw.getId());
+        repository.save(movedSaw);
+        assertEquals(3L, repository.count());
+        assertEquals(List.of(drill.getId()), ids(repository.findByOwnerId(first.getId(), Pagination.ALL)));
+        assertEquals(List.of(saw.getId(), tent.getId()), ids(repository.findByOwnerId(second.getId(), Pagination.ALL)));
+
+        repository.delete(drill.getId());
+        assertTrue(repository.findByOwnerId(first.getId(), Pagination.ALL).findAny().isEmpty());
+
+        assertEquals(List.of(saw.getId(), tent.getId()), List.copyOf(repository.deleteByOwnerId(second.getId())));
+        assertTrue(repository.findByOwnerId(second.getId(), Pagination.ALL).findAny().isEmpty());
+        assertTrue(repository.findById(tent.getId()).isEmpty());
+        assertEquals(0L, repository.count());
+    }
+
+    @Test
+    void searchIndexFollowsTextAndAvailabilityChanges() {
+        User owner = owner(1L);
+        Item drill = repository.save(item(owner, "Дрель", "Аккумуляторная ДРЕЛЬ", true));
+        Item hidden = repository.save(item(owner, "Дрель ударная", "Недоступна", false));
+        Item saw = repository.save(item(owner, "Пила", "Для дерева", true));
+
+        assertEquals(List.of(drill.getId()), ids(repository.searchByText("дрел", Pagination.ALL).items()));
+        assertEquals(List.of(drill.getId()), ids(repository.searchByText("аккумулятор", Pagination.ALL).items()));
+        assertEquals(List.of(drill.getId(), saw.getId()), ids(repository.searchByText("л", Pagination.ALL).items()));
+        assertTrue(repository.searchByText("бензопила", Pagination.ALL).items().findAny().isEmpty());
+
+        Item renamedSaw = item(owner, "Дрель-пила", saw.getDescription(), true);
+        renamedSaw.setId(saw.getId());
+        repository.save(renamedSaw);
+        Item shownHidden = item(owner, hidden.getName(), hidden.getDescription(), true);
+        shownHidden.setId(hidden.getId());
+        repository.save(shownHidden);
+
+        assertEquals(List.of(drill.getId(), hidden.getId(), saw.getId()), ids(repository.searchByText("дрел", Pagination.ALL).items()));
+        assertTrue(repository.searchByText("для дер", Pagination.ALL).items().allMatch(item -> item.getId().equals(saw.getId())));
+
+        repository.delete(drill.getId());
+        assertEquals(List.of(hidden.getId(), saw.getId()), ids(repository.searchByText("дрел", Pagination.ALL).items()));
+    }
+
+    @Test
+    void ownerItemsAndSearchArePageable() {
+        User owner = owner(1L);
+        List<Long> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            saved.add(repository.save(item(owner, "Дрель " + i, "Описание", true)).getId());
+        }
+
+        assertEquals(saved.subList(1, 3), ids(repository.findByOwnerId(owner.getId(), Pagination.of(null, 1, 2))));
+        assertEquals(saved.subList(3, 5), ids(repository.findByOwnerId(owner.getId(), Pagination.of(saved.get(2), 0, 10))));
+        assertEquals(saved.subList(4, 5), ids(repository.searchByText("дрель", Pagination.of(saved.get(2), 1, null)).items()));
+    }
+
+    @Test
+    void openedListsReadTheVersionTakenAtCallTime() {
+        User owner = owner(1L);
+        Item drill = repository.save(item(owner, "Дрель", "Описание", true));
+        Stream<Item> ownerItems = repository.findByOwnerId(owner.getId(), Pagination.ALL);
+        Stream<Item> found = repository.searchByText("дрель", Pagination.ALL).items();
+
+        repository.save(item(owner, "Дрель ударная", "Описание", true));
+        Item hiddenDrill = item(owner, drill.getName(), drill.getDescription(), false);
+        hiddenDrill.setId(drill.getId());
+        repository.save(hiddenDrill);
+
+        assertEquals(List.of(true), ownerItems.map(Item::isAvailable).toList());
+        assertEquals(List.of(drill.getId()), ids(found));
+    }
+
+    @Test
+    void searchDuringUpdatesKeepsItemsThatStillMatch() throws Exception {
+        User owner = owner(1L);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(repository.save(item(owner, "Дрель " + i, "Описание", true)));
+        }
+        AtomicBoolean updating = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int round = 0; updating.get(); round++) {
+                    for (Item stored : items) {
+                        Item updated = item(owner, stored.getName(), "Описание " + round, true);
+                        updated.setId(stored.getId());
+                        repository.save(updated);
+                    }
+                }
+            });
+            for (int i = 0; i < 200; i++) {
+                assertEquals(items.size(), repository.searchByText("дрель", Pagination.ALL).items().count());
+                assertEquals(items.size(), repository.searchTopByText("дрель", items.size()).items().count());
+            }
+            updating.set(false);
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shardedSearchMergesShardsInIdOrder() {
+        try (ItemSearchExecutor executor = new ItemSearchExecutor(4, Duration.ZERO)) {
+            InMemoryItemRepository sharded = new InMemoryItemRepository(Journal.DISABLED, executor, IdGenerator.sequential());
+            User owner = owner(1L);
+            List<Long> saved = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                saved.add(sharded.save(item(owner, "Дрель " + i, "Описание", i % 2 == 0)).getId());
+            }
+            List<Long> available = saved.stream().filter(id -> id % 2 == 1).toList();
+
+            ItemSearchResult all = sharded.searchByText("дрель", Pagination.ALL);
+            assertFalse(all.partial());
+            assertEquals(available, ids(all.items()));
+            assertEquals(available.subList(11, 16),
+                    ids(sharded.searchByText("др", Pagination.of(available.get(9), 1, 5)).items()));
+        }
+    }
+
+    @Test
+    void searchOverBudgetReturnsPartialResult() throws Exception {
+        try (ItemSearchExecutor executor = new ItemSearchExecutor(2, Duration.ofMillis(50))) {
+            InMemoryItemRepository sharded = new InMemoryItemRepository(Journal.DISABLED, executor, IdGenerator.sequential());
+            sharded.save(item(owner(1L), "Дрель", "Описание", true));
+            CountDownLatch busy = new CountDownLatch(1);
+            for (int i = 0; i < executor.shards(); i++) {
+                executor.pool().execute(() -> {
+                    try {
+                        busy.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            ItemSearchResult result = sharded.searchByText("дрель", Pagination.ALL);
+            busy.countDown();
+
+            assertTrue(result.partial());
+            assertTrue(result.items().findAny().isEmpty());
+            assertFalse(sharded.searchByText("дрель", Pagination.ALL).partial());
+        }
+    }
+
+    @Test
+    void topSearchRanksNameThenPositionThenFrequency() {
+        try (ItemSearchExecutor executor = new ItemSearchExecutor(3, Duration.ZERO)) {
+            InMemoryItemRepository sharded = new InMemoryItemRepository(Journal.DISABLED, executor, IdGenerator.sequential());
+            User owner = owner(1L);
+            Item inDescription = sharded.save(item(owner, "Набор", "Дрель и дрель", true));
+            Item late = sharded.save(item(owner, "Ударная дрель", "Описание", true));
+            Item once = sharded.save(item(owner, "Дрель", "Описание", true));
+            Item twice = sharded.save(item(owner, "Дрель", "Запасная дрель", true));
+            Item tie = sharded.save(item(owner, "Дрель", "Описание", true));
+            sharded.save(item(owner, "Дрель", "Дрель дрель дрель", false));
+
+            ItemSearchResult top = sharded.searchTopByText("дрель", 10);
+            assertFalse(top.partial());
+            assertEquals(List.of(twice.getId(), once.getId(), tie.getId(), late.getId(), inDescription.getId()),
+                    ids(top.items()));
+            assertEquals(List.of(twice.getId(), once.getId()), ids(sharded.searchTopByText("дрель", 2).items()));
+            assertEquals(List.of(inDescription.getId()), ids(sharded.searchTopByText("на", 1).items()));
+        }
+    }
+
+    private static List<Long> ids(Stream<Item> items) {
+        return items.map(Item::getId).toList();
+    }
+
+    static User owner(Long id) {
+        User owner = new User();
+        owner.setId(id);
+        owner.setName("owner" + id);
+        owner.setEmail("owner" + id + "@mail.ru");
+        return owner;
+    }
+
+    static Item item(User owner, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+}
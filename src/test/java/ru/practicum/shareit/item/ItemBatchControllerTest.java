@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemBatchControllerTest {
+
+    private static final String ITEM = "{\"name\":\"Дрель\",\"description\":\"Простая\",\"available\":true}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void partialSuccessIsReturnedWithStatus200AndPerElementStatuses() throws Exception {
+        long owner = createUser();
+        long stranger = createUser();
+
+        String created = mockMvc.perform(batch(post("/items/batch"), owner,
+                        "[" + ITEM + ",{\"name\":\"\",\"available\":true}," + ITEM + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body.name").value("Дрель"))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].body").doesNotExist())
+                .andExpect(jsonPath("$[1].error").isNotEmpty())
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andReturn().getResponse().getContentAsString();
+        long itemId = objectMapper.readTree(created).get(0).get("body").get("id").asLong();
+
+        mockMvc.perform(batch(patch("/items/batch"), stranger,
+                        "[{\"id\":" + itemId + ",\"name\":\"Чужая\"},{\"name\":\"Без id\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(403))
+                .andExpect(jsonPath("$[1].status").value(400));
+        mockMvc.perform(batch(patch("/items/batch"), owner, "[{\"id\":" + itemId + ",\"name\":\"Пила\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body.name").value("Пила"))
+                .andExpect(jsonPath("$[0].body.description").value("Простая"));
+    }
+
+    @Test
+    void wholeBatchIsRejectedForUnknownUserOrBadSize() throws Exception {
+        long owner = createUser();
+
+        mockMvc.perform(batch(post("/items/batch"), Long.MAX_VALUE, "[" + ITEM + "]"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(batch(post("/items/batch"), owner, "[]"))
+                .andExpect(status().isBadRequest());
+        String tooMany = "[" + String.join(",", Collections.nCopies(1001, ITEM)) + "]";
+        mockMvc.perform(batch(post("/items/batch"), owner, tooMany))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(batch(patch("/items/batch"), owner, "[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long createUser() throws Exception {
+        String response = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Анна\",\"email\":\"anna" + System.nanoTime() + "@mail.ru\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private static MockHttpServletRequestBuilder batch(MockHttpServletRequestBuilder request, long userId,
+                                                       String json) {
+        return request.header("X-Sharer-User-Id", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .characterEncoding("UTF-8")
+                .content(json);
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.cache.JsonResponseCache;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.feed.ItemChangeFeed;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.practicum.shareit.item.InMemoryItemRepositoryTest.item;
+import static ru.practicum.shareit.item.InMemoryItemRepositoryTest.owner;
+
+class ItemServiceImplTest {
+
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    private final UserService userService = mock(UserService.class);
+    @SuppressWarnings("unchecked")
+    private final JsonResponseCache<Long> itemResponseCache = mock(JsonResponseCache.class);
+    private final ItemChangeFeed itemChangeFeed = mock(ItemChangeFeed.class);
+    private final InMemoryItemRequestRepository itemRequestRepository = new InMemoryItemRequestRepository();
+    private final User owner = owner(1L);
+    private final User stranger = owner(2L);
+
+    @BeforeEach
+    void setUp() {
+        when(userService.getUserById(1L)).thenReturn(Optional.of(owner));
+        when(userService.getUserById(2L)).thenReturn(Optional.of(stranger));
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void createItemsValidatesEveryElementAndSavesTheRest() {
+        InMemoryItemRepository itemRepository = new InMemoryItemRepository();
+        ItemServiceImpl service = service(itemRepository);
+        ItemRequest request = new ItemRequest();
+        request.setDescription("Нужна дрель");
+        request.setRequestor(stranger);
+        request.setCreated(LocalDateTime.now());
+        long requestId = itemRequestRepository.save(request).getId();
+
+        List<BatchResult<ItemDto>> results = service.createItems(1L, List.of(
+                new ItemDto(null, "Дрель", "Простая", true, null),
+                new ItemDto(null, " ", "Без названия", true, null),
+                new ItemDto(null, "Пила", null, null, null),
+                new ItemDto(null, "Дрель", "По запросу", true, requestId),
+                new ItemDto(null, "Дрель", "По чужому запросу", true, requestId + 1)));
+
+        assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(BatchResult::getIndex).toList());
+        assertEquals(List.of(200, 400, 400, 200, 404), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals("name: Название не может быть пустым", results.get(1).getError());
+        assertEquals("available: Поле 'available' должно быть указано; description: Описание не может быть пустым",
+                results.get(2).getError());
+        assertEquals("Запрос не найден", results.get(4).getError());
+        assertNull(results.get(1).getBody());
+
+        long first = results.get(0).getBody().getId();
+        long second = results.get(3).getBody().getId();
+        assertEquals(first + 1, second);
+        assertEquals(requestId, results.get(3).getBody().getRequestId());
+        assertEquals(List.of(second), itemRequestRepository.findAnswerIds(requestId));
+        assertEquals(2, itemRepository.findByOwnerId(1L, Pagination.ALL).count());
+        verify(itemChangeFeed, times(2)).publish(any(Item.class));
+    }
+
+    @Test
+    void createItemsForUnknownUserFailsWholeBatch() {
+        ItemServiceImpl service = service(new InMemoryItemRepository());
+
+        assertThrows(NotFoundException.class,
+                () -> service.createItems(3L, List.of(new ItemDto(null, "Дрель", "Простая", true, null))));
+    }
+
+    @Test
+    void updateItemsReportsOwnershipAndLookupFailuresPerElement() {
+        InMemoryItemRepository itemRepository = new InMemoryItemRepository();
+        Item own = itemRepository.save(item(owner, "Дрель", "Простая", true));
+        Item foreign = itemRepository.save(item(stranger, "Пила", "Чужая", true));
+        ItemServiceImpl service = service(itemRepository);
+
+        List<BatchResult<ItemDto>> results = service.updateItems(1L, List.of(
+                new ItemDto(own.getId(), "Дрель 2", null, null, null),
+                new ItemDto(foreign.getId(), "Моя пила", null, null, null),
+                new ItemDto(foreign.getId() + 100, "Нет такой", null, null, null),
+                new ItemDto(null, "Без id", null, null, null),
+                new ItemDto(own.getId(), "Дрель 3", null, null, null)));
+
+        assertEquals(List.of(200, 403, 404, 400, 400), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals("Дрель 2", results.get(0).getBody().getName());
+        assertEquals("Простая", results.get(0).getBody().getDescription());
+        assertEquals("Вещь с id " + own.getId() + " уже есть в пакете", results.get(4).getError());
+        assertEquals("Дрель 2", itemRepository.findById(own.getId()).orElseThrow().getName());
+        assertEquals("Пила", itemRepository.findById(foreign.getId()).orElseThrow().getName());
+        verify(itemResponseCache).invalidate(own.getId());
+        verify(itemResponseCache, never()).invalidate(foreign.getId());
+    }
+
+    @Test
+    void updateItemsKeepsConcurrentChangeAndReportsConflict() {
+        InMemoryItemRepository itemRepository = new InMemoryItemRepository() {
+            @Override
+            public List<Item> saveAll(List<Item> items) {
+                Item stored = findById(items.get(0).getId()).orElseThrow();
+                Item concurrent = ItemMapper.toUpdatedItem(stored, new ItemDto(null, "Параллельно", null, null, null));
+                assertTrue(saveIfVersion(concurrent, stored.getVersion()));
+                return super.saveAll(items);
+            }
+        };
+        Item first = itemRepository.save(item(owner, "Дрель", "Простая", true));
+        Item second = itemRepository.save(item(owner, "Пила", "Простая", true));
+        ItemServiceImpl service = service(itemRepository);
+
+        List<BatchResult<ItemDto>> results = service.updateItems(1L, List.of(
+                new ItemDto(first.getId(), "Дрель 2", null, null, null),
+                new ItemDto(second.getId(), "Пила 2", null, null, null)));
+
+        assertEquals(List.of(409, 200), results.stream().map(BatchResult::getStatus).toList());
+        assertNull(results.get(0).getBody());
+        assertNotNull(results.get(0).getError());
+        assertEquals("Параллельно", itemRepository.findById(first.getId()).orElseThrow().getName());
+        assertEquals("Пила 2", itemRepository.findById(second.getId()).orElseThrow().getName());
+    }
+
+    private ItemServiceImpl service(ItemRepository itemRepository) {
+        return new ItemServiceImpl(itemRepository, itemRequestRepository, mock(BookingRepository.class), userService,
+                itemResponseCache, itemChangeFeed, new SimpleMeterRegistry(), validatorFactory.getValidator());
+    }
+}
@@ -0,0 +1,267 @@
+package ru.practicum.shareit.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.InMemoryBookingRepository;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.id.IdGenerator;
+import ru.practicum.shareit.item.InMemoryItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.InMemoryItemRequestRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.InMemoryUserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class WriteAheadLogTest {
+
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 500;
+
+    @TempDir
+    Path directory;
+
+    private Store store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void restartRestoresUsersAndItemsFromLog() {
+        store = Store.open(directory);
+        User owner = store.users.save(user("owner"));
+        User renamed = store.users.save(user("renamed"));
+        renamed.setEmail("renamed-new@mail.ru");
+        store.users.save(renamed);
+        User deleted = store.users.save(user("deleted"));
+        store.users.delete(deleted.getId());
+        Item item = store.items.save(item("дрель", owner, 7L));
+        Item removed = store.items.save(item("пила", owner, null));
+        store.items.delete(removed.getId());
+        store.close();
+
+        store = Store.open(directory);
+
+        assertEquals(2, store.users.count());
+        assertEquals("renamed-new@mail.ru", store.users.findById(renamed.getId()).orElseThrow().getEmail());
+        assertTrue(store.users.findById(deleted.getId()).isEmpty());
+        assertEquals(1, store.items.count());
+        Item restored = store.items.findById(item.getId()).orElseThrow();
+        assertEquals("дрель", restored.getName());
+        assertEquals("owner", restored.getOwner().getName());
+        assertEquals(7L, restored.getRequest().getId());
+        assertEquals(removed.getId() + 1, store.items.save(item("новая", owner, null)).getId());
+    }
+
+    @Test
+    void snapshotReplacesOldSegmentsAndTailIsReplayedOnTop() throws IOException {
+        store = Store.open(directory);
+        User owner = store.users.save(user("owner"));
+        Item item = store.items.save(item("дрель", owner, null));
+        store.manager.snapshot();
+        item.setAvailable(false);
+        store.items.save(item);
+        store.users.save(user("after-snapshot"));
+        store.close();
+
+        assertEquals(1, JournalFiles.snapshots(directory).size());
+        assertEquals(List.of(JournalFiles.snapshots(directory).getFirst()), JournalFiles.segments(directory));
+
+        store = Store.open(directory);
+
+        assertEquals(2, store.users.count());
+        assertFalse(store.items.findById(item.getId()).orElseThrow().isAvailable());
+    }
+
+    @Test
+    void requestsBookingsAndAnswersSurviveRestartFromLogAndSnapshot() throws IOException {
+        store = Store.open(directory);
+        User owner = store.users.save(user("owner"));
+        User booker = store.users.save(user("booker"));
+        ItemRequest request = store.requests.save(request("нужна дрель", booker));
+        Item item = store.items.save(item("дрель", owner, request.getId()));
+        store.requests.addAnswer(request.getId(), item.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 1, 10, 12, 0, 0, 500);
+        Booking booking = store.bookings.save(booking(item, booker, start));
+        store.bookings.updateStatus(booking.getId(), Set.of(Booking.BookingStatus.WAITING),
+                Booking.BookingStatus.APPROVED);
+        store.manager.snapshot();
+        Booking later = store.bookings.save(booking(item, booker, start.plusDays(5)));
+        store.close();
+
+        store = Store.open(directory);
+
+        ItemRequest restoredRequest = store.requests.findById(request.getId()).orElseThrow();
+        assertEquals("booker", restoredRequest.getRequestor().getName());
+        assertEquals(request.getCreated(), restoredRequest.getCreated());
+        assertEquals(List.of(item.getId()), store.requests.findAnswerIds(request.getId()));
+        assertSame(restoredRequest, store.items.findById(item.getId()).orElseThrow().getRequest());
+        Booking restored = store.bookings.findById(booking.getId()).orElseThrow();
+        assertEquals(Booking.BookingStatus.APPROVED, restored.getStatus());
+        assertEquals(start, restored.getStart());
+        assertEquals("дрель", restored.getItem().getName());
+        assertTrue(store.bookings.isBooked(item.getId(), start.toLocalDate(), start.toLocalDate()));
+        assertEquals(List.of(later.getId(), booking.getId()), store.bookings.findByOwnerId(owner.getId(),
+                BookingState.ALL, start, Pagination.ALL).map(Booking::getId).toList());
+        assertEquals(later.getId() + 1, store.bookings.save(booking(item, booker, start.plusDays(9))).getId());
+    }
+
+    @Test
+    void corruptSnapshotFailsRecovery() throws IOException {
+        store = Store.open(directory);
+        for (int i = 0; i < 10; i++) {
+            store.users.save(user("user" + i));
+        }
+        store.manager.snapshot();
+        store.close();
+        store = null;
+        Path snapshot = JournalFiles.snapshot(directory, JournalFiles.snapshots(directory).getLast());
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        assertThrows(UncheckedIOException.class, () -> store = Store.open(directory));
+    }
+
+    @Test
+    void tornTailIsIgnoredAndTruncated() throws IOException {
+        store = Store.open(directory);
+        User saved = store.users.save(user("kept"));
+        store.close();
+        Path segment = JournalFiles.segment(directory, JournalFiles.segments(directory).getLast());
+        long committedSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        store = Store.open(directory);
+
+        assertEquals(1, store.users.count());
+        assertTrue(store.users.findById(saved.getId()).isPresent());
+        assertEquals(committedSize, Files.size(segment));
+    }
+
+    @Test
+    void concurrentWritersShareCommitsAndAllSurviveRestart() throws Exception {
+        store = Store.open(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < USERS_PER_THREAD; i++) {
+                        store.users.save(user("user" + thread + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long records = store.wal.recordCount();
+        long commits = store.wal.commitCount();
+        log.info("{} записей зафиксировано за {} fsync", records, commits);
+        store.close();
+
+        store = Store.open(directory);
+
+        assertEquals((long) THREADS * USERS_PER_THREAD, records);
+        assertTrue(commits < records);
+        assertEquals((long) THREADS * USERS_PER_THREAD, store.users.count());
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@mail.ru");
+        return user;
+    }
+
+    private static Item item(String name, User owner, Long requestId) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name + " в хорошем состоянии");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        if (requestId != null) {
+            ItemRequest request = new ItemRequest();
+            request.setId(requestId);
+            item.setRequest(request);
+        }
+        return item;
+    }
+
+    private static ItemRequest request(String description, User requestor) {
+        ItemRequest request = new ItemRequest();
+        request.setDescription(description);
+        request.setRequestor(requestor);
+        request.setCreated(LocalDateTime.of(2030, 1, 9, 12, 0));
+        return request;
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(2));
+        booking.setStatus(Booking.BookingStatus.WAITING);
+        return booking;
+    }
+
+    private record Store(WriteAheadLog wal, InMemoryUserRepository users, InMemoryItemRepository items,
+                         InMemoryItemRequestRepository requests, InMemoryBookingRepository bookings,
+                         JournalManager manager) {
+
+        static Store open(Path directory) {
+            WriteAheadLog wal = new WriteAheadLog(directory);
+            InMemoryUserRepository users = new InMemoryUserRepository(wal);
+            InMemoryItemRepository items = new InMemoryItemRepository(wal);
+            InMemoryItemRequestRepository requests = new InMemoryItemRequestRepository(wal, IdGenerator.sequential());
+            InMemoryBookingRepository bookings = new InMemoryBookingRepository(wal, IdGenerator.sequential());
+            JournalManager manager = new JournalManager(wal, users, items, requests, bookings, Long.MAX_VALUE,
+                    Duration.ofHours(1));
+            try {
+                manager.afterSingletonsInstantiated();
+            } catch (RuntimeException e) {
+                wal.close();
+                throw e;
+            }
+            return new Store(wal, users, items, requests, bookings, manager);
+        }
+
+        void close() {
+            manager.destroy();
+            wal.close();
+        }
+    }
+}
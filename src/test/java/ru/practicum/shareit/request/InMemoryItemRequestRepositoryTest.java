@@ -0,0 +1,106 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryItemRequestRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int ANSWERS_PER_THREAD = 1_000;
+
+    private final InMemoryItemRequestRepository repository = new InMemoryItemRequestRepository();
+
+    @Test
+    void ownRequestsArePagedNewestFirstByOffsetAndCursor() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(request(1L));
+            repository.save(request(2L));
+        }
+
+        List<Long> all = ids(repository.findByRequestorId(1L, Pagination.ALL).toList());
+        assertEquals(LongStream.iterate(19, id -> id >= 1, id -> id - 2).boxed().toList(), all);
+        assertEquals(all.subList(2, 5), ids(repository.findByRequestorId(1L, Pagination.of(null, 2, 3)).toList()));
+        assertEquals(all.subList(4, 7), ids(repository.findByRequestorId(1L, Pagination.of(13L, 0, 3)).toList()));
+        assertEquals(all.subList(5, 7), ids(repository.findByRequestorId(1L, Pagination.of(13L, 1, 2)).toList()));
+        assertEquals(all.subList(4, 7), ids(repository.findByRequestorId(1L, Pagination.of(12L, 0, 3)).toList()));
+        assertEquals(List.of(), repository.findByRequestorId(1L, Pagination.of(1L, 0, 3)).toList());
+        assertEquals(List.of(), repository.findByRequestorId(3L, Pagination.ALL).toList());
+    }
+
+    @Test
+    void otherUsersRequestsArePagedNewestFirstByOffsetAndCursor() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(request(1L));
+            repository.save(request(2L));
+            repository.save(request(3L));
+        }
+
+        List<Long> all = ids(repository.findByRequestorIdNot(1L, Pagination.ALL).toList());
+        assertEquals(20, all.size());
+        assertEquals(List.of(30L, 29L, 27L, 26L), all.subList(0, 4));
+        assertEquals(all.subList(1, 4), ids(repository.findByRequestorIdNot(1L, Pagination.of(null, 1, 3)).toList()));
+        assertEquals(all.subList(3, 8), ids(repository.findByRequestorIdNot(1L, Pagination.of(27L, 0, 5)).toList()));
+        assertEquals(all.subList(2, 7), ids(repository.findByRequestorIdNot(1L, Pagination.of(28L, 0, 5)).toList()));
+        assertEquals(all.subList(4, 6), ids(repository.findByRequestorIdNot(1L, Pagination.of(27L, 1, 2)).toList()));
+        assertEquals(List.of(), repository.findByRequestorIdNot(1L, Pagination.of(1L, 0, 5)).toList());
+    }
+
+    @Test
+    void concurrentAnswersToOneRequestAreNotLost() throws Exception {
+        long requestId = repository.save(request(1L)).getId();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long firstItemId = (long) t * ANSWERS_PER_THREAD;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long itemId = firstItemId; itemId < firstItemId + ANSWERS_PER_THREAD; itemId++) {
+                        repository.addAnswer(requestId, itemId);
+                        repository.findAnswerIds(requestId).size();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Long> answers = repository.findAnswerIds(requestId);
+        assertEquals(THREADS * ANSWERS_PER_THREAD, answers.size());
+        assertEquals(THREADS * ANSWERS_PER_THREAD, new HashSet<>(answers).size());
+        assertEquals(List.of(), repository.findAnswerIds(requestId + 1));
+    }
+
+    private static ItemRequest request(long requestorId) {
+        User requestor = new User();
+        requestor.setId(requestorId);
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription("Нужна дрель");
+        itemRequest.setRequestor(requestor);
+        itemRequest.setCreated(LocalDateTime.now());
+        return itemRequest;
+    }
+
+    private static List<Long> ids(List<ItemRequest> requests) {
+        return requests.stream().map(ItemRequest::getId).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.request;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ItemRequestControllerTest {
+
+    private static final int THREADS = 4;
+    private static final int ITEMS_PER_THREAD = 5;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void requestListsArePagedByOffsetAndCursor() throws Exception {
+        long requestor = createUser();
+        long other = createUser();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(0, createRequest(requestor, "Нужна дрель " + i));
+        }
+
+        assertEquals(created, ids(send(get("/requests", requestor))));
+        assertEquals(created.subList(1, 3), ids(send(get("/requests?from=1&size=2", requestor))));
+        assertEquals(created.subList(2, 4), ids(send(get("/requests?after=" + created.get(1) + "&size=2", requestor))));
+        assertEquals(List.of(), ids(send(get("/requests", other))));
+
+        assertEquals(created.subList(0, 3), ids(send(get("/requests/all?size=3", other))));
+        assertEquals(created.subList(3, 5), ids(send(get("/requests/all?after=" + created.get(2) + "&size=2", other))));
+        assertEquals(created.subList(4, 5), ids(send(get("/requests/all?after=" + created.get(2) + "&from=1&size=1",
+                other))));
+        assertEquals(400, send(get("/requests/all?size=0", other)).statusCode());
+    }
+
+    @Test
+    void itemsCreatedConcurrentlyForRequestAreAllListedAsAnswers() throws Exception {
+        long requestor = createUser();
+        long owner = createUser();
+        long requestId = createRequest(requestor, "Нужна стремянка");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                        HttpResponse<String> response = send(post("/items",
+                                "{\"name\":\"Стремянка\",\"description\":\"Высокая\",\"available\":true,"
+                                        + "\"requestId\":" + requestId + "}", owner));
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        HttpResponse<String> response = send(get("/requests/" + requestId, owner));
+        assertEquals(200, response.statusCode());
+        JsonNode items = objectMapper.readTree(response.body()).get("items");
+        assertEquals(THREADS * ITEMS_PER_THREAD, items.size());
+        for (JsonNode item : items) {
+            assertEquals(owner, item.get("ownerId").asLong());
+        }
+        assertEquals(404, send(get("/requests/" + (requestId + 1_000_000), owner)).statusCode());
+    }
+
+    private long createUser() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"Анна\",\"email\":\"anna" + System.nanoTime() + "@mail.ru\"}")));
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    private long createRequest(long userId, String description) throws Exception {
+        HttpResponse<String> response = send(post("/requests", "{\"description\":\"" + description + "\"}", userId));
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+
+    private List<Long> ids(HttpResponse<String> response) throws Exception {
+        assertEquals(200, response.statusCode());
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(response.body()).forEach(request -> ids.add(request.get("id").asLong()));
+        return ids;
+    }
+
+    private HttpRequest.Builder get(String path, long userId) {
+        return HttpRequest.newBuilder(uri(path)).header("X-Sharer-User-Id", String.valueOf(userId)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json, long userId) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.Pagination;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class InMemoryUserRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 5_000;
+
+    private final InMemoryUserRepository repository = new InMemoryUserRepository();
+
+    @Test
+    void concurrentCreateAndReadKeepsEveryWriteWithUniqueIds() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long startedAt = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < USERS_PER_THREAD; i++) {
+                        User saved = repository.save(user("user" + thread + "-" + i));
+                        ids.add(saved.getId());
+                        long randomId = ThreadLocalRandom.current().nextLong(1, saved.getId() + 1);
+                        repository.findById(randomId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+            log.info("{} операций записи и чтения за {} мс ({} оп/с)", THREADS * USERS_PER_THREAD * 2, elapsedMillis,
+                    THREADS * USERS_PER_THREAD * 2 * 1000L / elapsedMillis);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(THREADS * USERS_PER_THREAD, ids.size());
+        assertEquals((long) THREADS * USERS_PER_THREAD, repository.findAll(Pagination.ALL).count());
+        assertEquals((long) THREADS * USERS_PER_THREAD, repository.count());
+        assertTrue(ids.stream().allMatch(id -> repository.findById(id).isPresent()));
+    }
+
+    @Test
+    void explicitIdAdvancesSequence() {
+        User withId = user("manual");
+        withId.setId(100L);
+        repository.save(withId);
+
+        User created = repository.save(user("next"));
+
+        assertEquals(101L, created.getId());
+    }
+
+    @Test
+    void concurrentSignupsWithSameEmailCreateExactlyOneUser() throws Exception {
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    User user = user("same");
+                    user.setEmail(thread % 2 == 0 ? "Same@Mail.ru" : "same@mail.ru");
+                    try {
+                        repository.save(user);
+                    } catch (DuplicateEmailException e) {
+                        duplicates.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1L, repository.findAll(Pagination.ALL).count());
+        assertEquals(THREADS - 1, duplicates.get());
+    }
+
+    @Test
+    void changingEmailReleasesPreviousOne() {
+        User user = repository.save(user("first"));
+        User updated = user("first");
+        updated.setId(user.getId());
+        updated.setEmail("changed@mail.ru");
+        repository.save(updated);
+
+        assertFalse(repository.existsByEmail("first@mail.ru"));
+        assertTrue(repository.existsByEmail("CHANGED@mail.ru"));
+
+        repository.save(user("first"));
+        repository.delete(user.getId());
+
+        assertFalse(repository.existsByEmail("changed@mail.ru"));
+        assertThrows(DuplicateEmailException.class, () -> repository.save(user("first")));
+    }
+
+    @Test
+    void saveAllAllocatesConsecutiveIds() {
+        repository.save(user("existing"));
+
+        List<User> saved = repository.saveAll(List.of(user("a"), user("b"), user("c")));
+
+        assertEquals(List.of(2L, 3L, 4L), saved.stream().map(User::getId).toList());
+        assertEquals(5L, repository.save(user("next")).getId());
+        assertEquals(5L, repository.count());
+    }
+
+    @Test
+    void saveAllWithDuplicateEmailSavesNothing() {
+        repository.save(user("taken"));
+
+        assertThrows(DuplicateEmailException.class,
+                () -> repository.saveAll(List.of(user("fresh"), user("TAKEN"))));
+        assertThrows(DuplicateEmailException.class,
+                () -> repository.saveAll(List.of(user("twin"), user("twin"))));
+
+        assertEquals(1L, repository.count());
+        assertFalse(repository.existsByEmail("fresh@mail.ru"));
+        assertFalse(repository.existsByEmail("twin@mail.ru"));
+    }
+
+    @Test
+    void listsNeverSeePartOfConcurrentBatch() throws Exception {
+        int batches = 2_000;
+        int batchSize = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int b = 0; b < batches; b++) {
+                    List<User> batch = new ArrayList<>();
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(user("batch" + b + "-" + i));
+                    }
+                    repository.saveAll(batch);
+                }
+            });
+            Future<?> reader = executor.submit(() -> {
+                while (!writer.isDone()) {
+                    List<Long> ids = repository.findAll(Pagination.ALL).map(User::getId).toList();
+                    assertEquals(0, ids.size() % batchSize);
+                    for (int i = 1; i < ids.size(); i++) {
+                        assertEquals(ids.get(i - 1) + 1, ids.get(i));
+                    }
+                }
+            });
+            writer.get();
+            reader.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals((long) batches * batchSize, repository.count());
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@mail.ru");
+        return user;
+    }
+}